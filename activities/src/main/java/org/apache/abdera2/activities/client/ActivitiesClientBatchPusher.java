@@ -17,16 +17,40 @@
  */
 package org.apache.abdera2.activities.client;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.abdera2.activities.model.ASObject;
 import org.apache.abdera2.activities.model.Collection;
+import org.apache.abdera2.common.http.ResponseType;
+import org.apache.abdera2.common.protocol.ClientResponse;
 import org.apache.abdera2.common.protocol.RequestOptions;
 import org.apache.abdera2.common.pusher.Pusher;
 
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import static com.google.common.base.Preconditions.*;
+
 /**
  * Identical to ActivitiesClientPusher with the exception that the 
  * pushAll method will create a Collection object containing all of 
  * the items and will post the single Collection object to the server
- * rather than sending one post per item
+ * rather than sending one post per item.
+ * 
+ * When created with a Window, individually pushed items are buffered 
+ * as well. The buffer is posted as a single Collection once it holds 
+ * the window's maximum number of items or once the oldest item has 
+ * waited for the window's maximum delay, whichever comes first. The 
+ * number of concurrent posts is capped (push blocks while the cap is 
+ * reached) and batches that fail with an error or a 5xx response are 
+ * retried with exponential backoff. A windowed pusher should be closed
+ * once it is no longer needed so that buffered items are posted and its
+ * scheduler thread is stopped.
  */
 public class ActivitiesClientBatchPusher<T extends ASObject> 
   extends ActivitiesClientPusher<T> {
@@ -54,32 +78,207 @@ public class ActivitiesClientBatchPusher<T extends ASObject>
     return new ActivitiesClientBatchPusher<T>(iri,session,options);
   }
   
+  public static <T extends ASObject>Pusher<T> create(
+    String iri,
+    ActivitiesSession session,
+    RequestOptions options,
+    Window window) {
+    return new ActivitiesClientBatchPusher<T>(iri,session,options,window);
+  }
+  
+  public static Window.Builder makeWindow() {
+    return new Window.Builder();
+  }
+  
+  /**
+   * Controls how individually pushed items are grouped into batches
+   */
+  public static final class Window {
+    
+    public static final class Builder implements Supplier<Window> {
+      private int size = 100;
+      private long delay = 1000;
+      private int maxInFlight = 4;
+      private int retries = 3;
+      private long backoff = 500;
+      
+      /**
+       * The maximum number of items posted in a single Collection
+       */
+      public Builder size(int size) {
+        checkArgument(size > 0, "Size must be positive");
+        this.size = size;
+        return this;
+      }
+      
+      /**
+       * The maximum time an item is buffered before it is posted
+       */
+      public Builder delay(long delay, TimeUnit unit) {
+        checkArgument(delay > 0, "Delay must be positive");
+        this.delay = unit.toMillis(delay);
+        return this;
+      }
+      
+      /**
+       * The maximum number of posts that may be outstanding at once
+       */
+      public Builder maxInFlight(int maxInFlight) {
+        checkArgument(maxInFlight > 0, "Max in flight must be positive");
+        this.maxInFlight = maxInFlight;
+        return this;
+      }
+      
+      /**
+       * The number of times a failed batch is retried before it is 
+       * passed to handle
+       */
+      public Builder retries(int retries) {
+        checkArgument(retries >= 0, "Retries must not be negative");
+        this.retries = retries;
+        return this;
+      }
+      
+      /**
+       * The delay before the first retry, doubled for each retry after
+       */
+      public Builder backoff(long backoff, TimeUnit unit) {
+        checkArgument(backoff >= 0, "Backoff must not be negative");
+        this.backoff = unit.toMillis(backoff);
+        return this;
+      }
+      
+      public Window get() {
+        return new Window(this);
+      }
+    }
+    
+    private final int size;
+    private final long delay;
+    private final int maxInFlight;
+    private final int retries;
+    private final long backoff;
+    
+    Window(Builder builder) {
+      this.size = builder.size;
+      this.delay = builder.delay;
+      this.maxInFlight = builder.maxInFlight;
+      this.retries = builder.retries;
+      this.backoff = builder.backoff;
+    }
+    
+    public int getSize() {
+      return size;
+    }
+    
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(delay, TimeUnit.MILLISECONDS);
+    }
+    
+    public int getMaxInFlight() {
+      return maxInFlight;
+    }
+    
+    public int getRetries() {
+      return retries;
+    }
+    
+    public long getBackoff(TimeUnit unit) {
+      return unit.convert(backoff, TimeUnit.MILLISECONDS);
+    }
+  }
+  
+  private final Window window;
+  private final Object lock = new Object();
+  private List<T> buffer;
+  private long generation;
+  private boolean closed;
+  private int outstanding;
+  private final Semaphore inFlight;
+  private final ScheduledExecutorService scheduler;
+  
   public ActivitiesClientBatchPusher(
     String iri, 
     ActivitiesSession session,
-    RequestOptions options) {
+    RequestOptions options,
+    Window window) {
     super(iri, session, options);
+    this.window = window;
+    if (window != null) {
+      this.buffer = new ArrayList<T>(window.size);
+      this.inFlight = new Semaphore(window.maxInFlight);
+      this.scheduler = 
+        MoreExecutors.getExitingScheduledExecutorService(
+          new ScheduledThreadPoolExecutor(1));
+    } else {
+      this.inFlight = null;
+      this.scheduler = null;
+    }
+  }
+  
+  public ActivitiesClientBatchPusher(
+    String iri, 
+    ActivitiesSession session,
+    RequestOptions options) {
+    this(iri, session, options, null);
   }
 
   public ActivitiesClientBatchPusher(
     String iri, 
     ActivitiesSession session) {
     super(iri, session);
+    this.window = null;
+    this.inFlight = null;
+    this.scheduler = null;
   }
 
   public ActivitiesClientBatchPusher(
     String iri, 
     RequestOptions options) {
     super(iri, options);
+    this.window = null;
+    this.inFlight = null;
+    this.scheduler = null;
   }
 
   public ActivitiesClientBatchPusher(
     String iri) {
     super(iri);
+    this.window = null;
+    this.inFlight = null;
+    this.scheduler = null;
   }
 
+  public Window getWindow() {
+    return window;
+  }
+  
+  @Override
+  public void push(final T t) {
+    if (window == null) {
+      super.push(t);
+      return;
+    }
+    checkNotNull(t);
+    List<T> batch = null;
+    synchronized(lock) {
+      checkState(!closed, "Pusher has been closed");
+      buffer.add(t);
+      if (buffer.size() >= window.size)
+        batch = drain();
+      else if (buffer.size() == 1)
+        scheduleFlush(generation);
+    }
+    if (batch != null)
+      send(batch);
+  }
+  
   @Override
   public void pushAll(final Iterable<T> t) {
+    if (window != null) {
+      for (T i : t) push(i);
+      return;
+    }
     try {
       session.post(
         iri, 
@@ -91,5 +290,174 @@ public class ActivitiesClientBatchPusher<T extends ASObject>
       handle(x);
     }
   }
+  
+  /**
+   * Post any buffered items immediately
+   */
+  public void flush() {
+    if (window == null) return;
+    List<T> batch;
+    synchronized(lock) {
+      batch = buffer.isEmpty() ? null : drain();
+    }
+    if (batch != null)
+      send(batch);
+  }
+  
+  /**
+   * Post any buffered items, wait for every post in flight (including 
+   * retries) to complete and stop the scheduler. Items may not be pushed
+   * once the pusher is closed
+   */
+  public void close() {
+    try {
+      close(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  /**
+   * Post any buffered items, wait up to the given timeout for every post
+   * in flight (including retries) to complete and stop the scheduler. 
+   * Returns false if posts were still outstanding when the timeout 
+   * expired; any retries already scheduled will still be attempted
+   */
+  public boolean close(long timeout, TimeUnit unit) 
+    throws InterruptedException {
+      if (window == null) return true;
+      synchronized(lock) {
+        if (closed) return true;
+        closed = true;
+      }
+      flush();
+      boolean done = true;
+      long remaining = unit.toNanos(timeout);
+      synchronized(lock) {
+        while (outstanding > 0) {
+          if (remaining <= 0) {
+            done = false;
+            break;
+          }
+          long start = System.nanoTime();
+          TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+          remaining -= System.nanoTime() - start;
+        }
+      }
+      // delayed retries still run after shutdown, new work is refused
+      scheduler.shutdown();
+      return done;
+  }
+  
+  private List<T> drain() {
+    List<T> batch = buffer;
+    buffer = new ArrayList<T>(window.size);
+    generation++;
+    outstanding++;
+    return batch;
+  }
+  
+  /**
+   * Called once a drained batch has been posted or given up on
+   */
+  private void finished(boolean acquired) {
+    if (acquired)
+      inFlight.release();
+    synchronized(lock) {
+      outstanding--;
+      lock.notifyAll();
+    }
+  }
+  
+  private void scheduleFlush(final long gen) {
+    scheduler.schedule(
+      new Runnable() {
+        public void run() {
+          // the flush is handed off so that the scheduler, which also
+          // runs retries, never blocks waiting for an in flight slot
+          exec.execute(
+            new Runnable() {
+              public void run() {
+                List<T> batch = null;
+                synchronized(lock) {
+                  if (gen == generation && !buffer.isEmpty())
+                    batch = drain();
+                }
+                if (batch != null)
+                  send(batch);
+              }
+            });
+        }
+      }, 
+      window.delay, 
+      TimeUnit.MILLISECONDS);
+  }
+  
+  private void send(List<T> batch) {
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      handle(e);
+      finished(false);
+      return;
+    }
+    try {
+      exec.execute(new Attempt(batch, 0));
+    } catch (Throwable t) {
+      handle(t);
+      finished(true);
+    }
+  }
+  
+  private final class Attempt implements Runnable {
+    private final List<T> batch;
+    private final int attempt;
+    Attempt(List<T> batch, int attempt) {
+      this.batch = batch;
+      this.attempt = attempt;
+    }
+    public void run() {
+      Throwable error = null;
+      try {
+        ClientResponse resp = 
+          session.post(
+            iri, 
+            Collection.<T>makeCollection(batch), 
+            options);
+        if (resp.getType() == ResponseType.SERVER_ERROR) {
+          error = new IllegalStateException(
+            "Server responded " + resp.getStatus() + " " + resp.getStatusText());
+          resp.release();
+        } else {
+          onResponse(resp);
+        }
+      } catch (Throwable t) {
+        error = t;
+      }
+      if (error == null) {
+        finished(true);
+      } else if (attempt < window.retries) {
+        // the in flight slot is kept until the batch succeeds or
+        // the retries are exhausted
+        try {
+          scheduler.schedule(
+            new Runnable() {
+              public void run() {
+                exec.execute(new Attempt(batch, attempt + 1));
+              }
+            }, 
+            window.backoff << attempt, 
+            TimeUnit.MILLISECONDS);
+        } catch (Throwable t) {
+          handle(t);
+          finished(true);
+        }
+      } else {
+        handle(error);
+        finished(true);
+      }
+    }
+  }
 
 }
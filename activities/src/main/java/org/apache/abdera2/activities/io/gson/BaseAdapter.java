@@ -17,6 +17,7 @@
  */
 package org.apache.abdera2.activities.io.gson;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Type;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -85,8 +86,8 @@ final class BaseAdapter
   private final Map<String,Class<?>> map = 
     new ConcurrentHashMap<String,Class<?>>();
   
-  private final Map<String,Class<? extends ASObject.Builder>> objsmap =
-    new ConcurrentHashMap<String,Class<? extends ASObject.Builder>>();
+  private final Map<String,BuilderFactory> objsmap =
+    new ConcurrentHashMap<String,BuilderFactory>();
   
   public BaseAdapter() {
     initPropMap();
@@ -178,12 +179,12 @@ final class BaseAdapter
   }
   
   private static <X extends ASObject.Builder>void processType(
-    Map<String,Class<? extends ASObject.Builder>> map, 
+    Map<String,BuilderFactory> map, 
     Map<String,Class<?>> propsmap,
     Class<? extends X>... _classes) {
     for (Class<? extends X> _class : _classes) {
       String name = AnnoUtil.getName(_class);
-      map.put(name, _class);
+      map.put(name, new BuilderFactory(_class));
       if (_class.isAnnotationPresent(Properties.class)) {
         Properties props = _class.getAnnotation(Properties.class);
         for (Property prop : props.value()) {
@@ -195,6 +196,32 @@ final class BaseAdapter
     }
   }
   
+  /**
+   * Creates the builders for a registered objectType. The builder's
+   * constructor is looked up once, when the objectType is registered, 
+   * rather than for every object that is read
+   */
+  private static final class BuilderFactory {
+    private final Class<? extends ASObject.Builder> _class;
+    private final Constructor<? extends ASObject.Builder> constructor;
+    BuilderFactory(Class<? extends ASObject.Builder> _class) {
+      this._class = _class;
+      Constructor<? extends ASObject.Builder> constructor = null;
+      try {
+        constructor = _class.getConstructor(String.class);
+      } catch (Throwable t) {}
+      this.constructor = constructor;
+    }
+    ASObject.Builder create(String objectType) {
+      if (constructor != null) {
+        try {
+          return constructor.newInstance(objectType);
+        } catch (Throwable t) {}
+      }
+      return Discover.locate(_class, _class.getName());
+    }
+  }
+  
   public <X extends ASObject.Builder> void addObjectMap(Class<? extends X>... _class) {
     processType(objsmap,map,_class);
   }
@@ -203,6 +230,56 @@ final class BaseAdapter
     map.put(name,_class);
   }
   
+  /**
+   * Returns the class registered for the named property, or null if the
+   * property's value is not mapped to a specific class
+   */
+  Class<?> getPropertyClass(String name) {
+    return map.get(name);
+  }
+  
+  /**
+   * Select the builder for an object of the given type. When the type does
+   * not determine the builder, the objectType and the presence of the 
+   * activity and collection properties are used to pick one
+   */
+  ASBase.Builder<?,?> builder(
+    Type type, 
+    String objectType, 
+    boolean isActivity, 
+    boolean isCollection) {
+    ASBase.Builder<?,?> builder;
+    if (type == Collection.class)
+      builder = Collection.makeCollection();
+    else if (type == Activity.class)
+      builder = Activity.makeActivity();
+    else if (type == MediaLink.class)
+      builder = MediaLink.makeMediaLink();
+    else if (type == PlaceObject.class)
+      builder = PlaceObject.makePlace();
+    else if (type == Mood.class)
+      builder = Mood.makeMood();
+    else if (type == Address.class)
+      builder = Address.makeAddress();
+    else {
+      if (objectType != null) {
+        BuilderFactory factory = objsmap.get(objectType);
+        builder = factory != null ? 
+          factory.create(objectType) : 
+          ASObject.makeObject(objectType);
+      } else {
+        if (isActivity) {
+          builder = Activity.makeActivity();
+        } else if (isCollection) {
+          builder = Collection.makeCollection();
+        } else {
+          builder = ASObject.makeObject(); // anonymous
+        }
+      }
+    }
+    return builder;
+  }
+  
   public JsonElement serialize(
     ASBase asbase, 
     Type type,
@@ -231,41 +308,13 @@ final class BaseAdapter
     JsonDeserializationContext context) 
       throws JsonParseException {
     JsonObject obj = (JsonObject)el;
-    ASBase.Builder<?,?> builder;
-    if (type == Collection.class)
-      builder = Collection.makeCollection();
-    else if (type == Activity.class)
-      builder = Activity.makeActivity();
-    else if (type == MediaLink.class)
-      builder = MediaLink.makeMediaLink();
-    else if (type == PlaceObject.class)
-      builder = PlaceObject.makePlace();
-    else if (type == Mood.class)
-      builder = Mood.makeMood();
-    else if (type == Address.class)
-      builder = Address.makeAddress();
-    else {
-      JsonPrimitive ot = obj.getAsJsonPrimitive("objectType");
-      if (ot != null) {
-        String ots = ot.getAsString();
-        Class<? extends ASObject.Builder> _class = objsmap.get(ots);
-        if (_class != null) {
-          builder = Discover.locate(_class, _class.getName());
-          try {
-            builder = _class.getConstructor(String.class).newInstance(ots);
-          } catch (Throwable t) {}
-          
-        } else builder = ASObject.makeObject(ots);
-      } else {
-        if (obj.has("verb") && (obj.has("actor") || obj.has("object") || obj.has("target"))) {
-          builder = Activity.makeActivity();
-        } else if (obj.has("items")) {
-          builder = Collection.makeCollection();
-        } else {
-          builder = ASObject.makeObject(); // anonymous
-        }
-      }
-    }
+    JsonElement ot = obj.get("objectType");
+    ASBase.Builder<?,?> builder = 
+      builder(
+        type, 
+        ot != null && ot.isJsonPrimitive() ? ot.getAsString() : null,
+        obj.has("verb") && (obj.has("actor") || obj.has("object") || obj.has("target")),
+        obj.has("items"));
     for (Entry<String,JsonElement> entry : obj.entrySet()) {
       String name = entry.getKey();
       if (name.equalsIgnoreCase("objectType")) continue;
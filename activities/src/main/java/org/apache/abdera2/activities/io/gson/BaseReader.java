@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.activities.io.gson;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.abdera2.activities.model.ASBase;
+import org.apache.abdera2.activities.model.ASObject;
+import org.apache.abdera2.activities.model.Collection;
+import org.apache.abdera2.activities.model.IO;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Streaming deserialization of ASBase objects. Reads directly from a 
+ * JsonReader into the object builders rather than building an 
+ * intermediate JsonObject tree, producing the same objects as 
+ * BaseAdapter.deserialize. Values whose class is handled by some other
+ * type adapter are still passed through Gson.
+ */
+final class BaseReader {
+
+  private final Gson gson;
+  private final BaseAdapter asbs;
+  private final Set<Class<?>> adapted;
+  
+  /**
+   * @param adapted ASBase classes with type adapters of their own, which 
+   * must not be read by this reader
+   */
+  BaseReader(Gson gson, BaseAdapter asbs, Set<Class<?>> adapted) {
+    this.gson = gson;
+    this.asbs = asbs;
+    this.adapted = adapted;
+  }
+  
+  @SuppressWarnings("unchecked")
+  <T extends ASBase>T read(Reader reader, Type type) {
+    JsonReader json = new JsonReader(reader);
+    json.setLenient(true);
+    boolean empty = true;
+    try {
+      json.peek();
+      empty = false;
+      return (T)readValue(json, type);
+    } catch (EOFException e) {
+      // an empty document is read as null
+      if (empty) return null;
+      throw new JsonSyntaxException(e);
+    } catch (MalformedJsonException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    } catch (IllegalStateException e) {
+      throw new JsonSyntaxException(e);
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+  
+  /**
+   * Read the members of a collection document up to and including the 
+   * start of the items array, returning an iterator over the items. Each 
+   * item is read only when the iterator is advanced to it. The members 
+   * read along the way make up the iterator's header
+   */
+  <T extends ASObject>IO.ItemIterator<T> readItems(Reader reader, boolean autoclose) {
+    JsonReader json = new JsonReader(reader);
+    json.setLenient(true);
+    ItemIterator<T> items = new ItemIterator<T>(json, autoclose);
+    try {
+      json.beginObject();
+      while (json.hasNext()) {
+        String name = json.nextName();
+        if ("items".equals(name) && 
+            json.peek() == JsonToken.BEGIN_ARRAY) {
+          json.beginArray();
+          return items;
+        } else items.readHeader(name);
+      }
+      items.finish();
+      return items;
+    } catch (MalformedJsonException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    } catch (IllegalStateException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+  
+  private Object readValue(JsonReader reader, Type type) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    if (type instanceof Class && 
+        ASBase.class.isAssignableFrom((Class<?>)type) && 
+        !adapted.contains(type) && 
+        reader.peek() == JsonToken.BEGIN_OBJECT)
+      return readBase(reader, type);
+    return gson.fromJson(new JsonParser().parse(reader), type);
+  }
+  
+  private ASBase readBase(JsonReader reader, Type type) throws IOException {
+    List<String> names = new ArrayList<String>();
+    List<Object> values = new ArrayList<Object>();
+    String objectType = null;
+    boolean verb = false, actor = false, items = false;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (name.equalsIgnoreCase("objectType")) {
+        JsonToken token = reader.peek();
+        if (name.equals("objectType") && 
+            (token == JsonToken.STRING || 
+             token == JsonToken.NUMBER || 
+             token == JsonToken.BOOLEAN))
+          objectType = reader.nextString();
+        else reader.skipValue();
+        continue;
+      }
+      if ("verb".equals(name)) verb = true;
+      else if ("actor".equals(name) || 
+               "object".equals(name) || 
+               "target".equals(name)) actor = true;
+      else if ("items".equals(name)) items = true;
+      Object value = readProperty(reader, asbs.getPropertyClass(name));
+      if (value != null) {
+        names.add(name);
+        values.add(value);
+      }
+    }
+    reader.endObject();
+    ASBase.Builder<?,?> builder = 
+      asbs.builder(type, objectType, verb && actor, items);
+    for (int n = 0; n < names.size(); n++)
+      builder.set(names.get(n), values.get(n));
+    return builder.get();
+  }
+  
+  private Object readProperty(JsonReader reader, Class<?> _class) throws IOException {
+    switch(reader.peek()) {
+    case STRING:
+    case NUMBER:
+    case BOOLEAN:
+      return readPrimitive(reader, _class);
+    case BEGIN_ARRAY:
+      ImmutableList.Builder<Object> list = ImmutableList.builder();
+      readArray(reader, _class, list);
+      return list.build();
+    case BEGIN_OBJECT:
+      return readValue(reader, _class != null ? _class : ASObject.class);
+    default:
+      reader.skipValue();
+      return null;
+    }
+  }
+  
+  private void readArray(
+    JsonReader reader, 
+    Class<?> _class, 
+    ImmutableList.Builder<Object> list) 
+      throws IOException {
+    reader.beginArray();
+    while (reader.hasNext()) {
+      Object value = readProperty(reader, _class);
+      if (value != null)
+        list.add(value);
+    }
+    reader.endArray();
+  }
+  
+  private Object readPrimitive(JsonReader reader, Class<?> _class) throws IOException {
+    JsonPrimitive prim = null;
+    Object value = null;
+    switch(reader.peek()) {
+    case BOOLEAN:
+      value = reader.nextBoolean();
+      if (_class != null) 
+        prim = new JsonPrimitive((Boolean)value);
+      break;
+    case NUMBER:
+      value = toNumber(reader.nextString());
+      if (_class != null) 
+        prim = new JsonPrimitive((Number)value);
+      break;
+    default:
+      value = reader.nextString();
+      if (_class != null) 
+        prim = new JsonPrimitive((String)value);
+    }
+    return prim != null ? gson.fromJson(prim, _class) : value;
+  }
+  
+  /**
+   * Numbers are given the same types JsonPrimitive would give them
+   */
+  private static Number toNumber(String value) {
+    try {
+      long l = Long.parseLong(value);
+      if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE)
+        return Integer.valueOf((int)l);
+      return Long.valueOf(l);
+    } catch (NumberFormatException e) {}
+    try {
+      return new BigDecimal(value);
+    } catch (NumberFormatException e) {
+      return Double.valueOf(value);
+    }
+  }
+  
+  private final class ItemIterator<T extends ASObject> 
+    implements IO.ItemIterator<T> {
+    private final JsonReader reader;
+    private final boolean autoclose;
+    private final List<String> names = new ArrayList<String>();
+    private final List<Object> values = new ArrayList<Object>();
+    private Collection<T> header;
+    private boolean done;
+    ItemIterator(JsonReader reader, boolean autoclose) {
+      this.reader = reader;
+      this.autoclose = autoclose;
+    }
+    void readHeader(String name) throws IOException {
+      if (name.equalsIgnoreCase("objectType")) {
+        reader.skipValue();
+        return;
+      }
+      Object value = readProperty(reader, asbs.getPropertyClass(name));
+      if (value != null) {
+        names.add(name);
+        values.add(value);
+        header = null;
+      }
+    }
+    /**
+     * Read the members following the items, then the end of the 
+     * collection
+     */
+    void finish() throws IOException {
+      while (reader.hasNext())
+        readHeader(reader.nextName());
+      reader.endObject();
+      done = true;
+      if (autoclose) reader.close();
+    }
+    @SuppressWarnings("unchecked")
+    public Collection<T> getHeader() {
+      if (header == null) {
+        ASBase.Builder<?,?> builder = 
+          asbs.builder(Collection.class, null, false, true);
+        for (int n = 0; n < names.size(); n++)
+          builder.set(names.get(n), values.get(n));
+        header = (Collection<T>)builder.get();
+      }
+      return header;
+    }
+    public void close() {
+      done = true;
+      try {
+        reader.close();
+      } catch (IOException e) {
+        throw new JsonIOException(e);
+      }
+    }
+    public boolean hasNext() {
+      if (done) return false;
+      try {
+        while (reader.hasNext()) {
+          if (reader.peek() != JsonToken.NULL) 
+            return true;
+          reader.nextNull();
+        }
+        reader.endArray();
+        finish();
+        return false;
+      } catch (MalformedJsonException e) {
+        throw new JsonSyntaxException(e);
+      } catch (IOException e) {
+        throw new JsonIOException(e);
+      }
+    }
+    @SuppressWarnings("unchecked")
+    public T next() {
+      if (!hasNext()) 
+        throw new NoSuchElementException();
+      try {
+        return (T)readValue(reader, ASObject.class);
+      } catch (MalformedJsonException e) {
+        throw new JsonSyntaxException(e);
+      } catch (IOException e) {
+        throw new JsonIOException(e);
+      }
+    }
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
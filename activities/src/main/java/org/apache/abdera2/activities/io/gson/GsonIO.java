@@ -21,8 +21,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.util.Date;
+import java.util.Set;
 
 import javax.activation.MimeType;
 
@@ -48,6 +50,7 @@ import org.apache.abdera2.activities.model.objects.Address;
 import org.apache.abdera2.activities.model.objects.Mood;
 import org.apache.abdera2.activities.model.objects.PlaceObject;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -61,13 +64,16 @@ public class GsonIO extends IO {
     private final BaseAdapter asbs = new BaseAdapter();
     
     public IO get() {
+      Iterable<TypeAdapter<?>> adapters = 
+        this.adapters.build();
       return new GsonIO(
         this,
         asbs,
         gson(
           prettyprint,
           asbs,
-          adapters.build()));
+          adapters),
+        adapters);
     }
    
     public Builder property(String name, Class<?> _class) {
@@ -115,10 +121,29 @@ public class GsonIO extends IO {
   }
   
   private final Gson gson;
+  private final BaseReader reader;
   
-  GsonIO(Builder builder, BaseAdapter asbs, Gson gson) {
+  GsonIO(
+    Builder builder, 
+    BaseAdapter asbs, 
+    Gson gson, 
+    Iterable<TypeAdapter<?>> adapters) {
     super(builder);
     this.gson = gson;
+    this.reader = new BaseReader(gson, asbs, adapted(adapters));
+  }
+  
+  /**
+   * The ASBase classes that have been given type adapters of their own
+   */
+  private static Set<Class<?>> adapted(Iterable<TypeAdapter<?>> adapters) {
+    ImmutableSet.Builder<Class<?>> adapted = 
+      ImmutableSet.builder();
+    for (TypeAdapter<?> adapter : adapters)
+      if (adapter instanceof GsonTypeAdapter && 
+          ASBase.class.isAssignableFrom(adapter.getAdaptedClass()))
+        adapted.add(adapter.getAdaptedClass());
+    return adapted.build();
   }
   
   public String write(ASBase base) {
@@ -130,43 +155,47 @@ public class GsonIO extends IO {
   }
 
   public <T extends ASBase>T read(Reader reader) {
-    return gson.<T>fromJson(reader, ASBase.class);
+    return this.reader.<T>read(reader, ASBase.class);
   }
   
   public <T extends ASBase>T read(String json) {
-    return gson.<T>fromJson(json, ASBase.class);
+    return this.reader.<T>read(new StringReader(json), ASBase.class);
   }
   
   public Activity readActivity(Reader reader) {
-    return gson.fromJson(reader, Activity.class);
+    return this.reader.<Activity>read(reader, Activity.class);
   }
   
   public Activity readActivity(String json) {
-    return gson.fromJson(json, Activity.class);
+    return this.reader.<Activity>read(new StringReader(json), Activity.class);
   }
   
   public <T extends ASObject>Collection<T> readCollection(Reader reader) {
-    return gson.fromJson(reader, Collection.class);
+    return this.reader.<Collection<T>>read(reader, Collection.class);
   }
   
   public <T extends ASObject>Collection<T> readCollection(String json) {
-    return gson.fromJson(json, Collection.class);
+    return this.reader.<Collection<T>>read(new StringReader(json), Collection.class);
+  }
+  
+  public <T extends ASObject>ItemIterator<T> readCollectionItems(Reader reader) {
+    return this.reader.<T>readItems(reader, autoclose);
   }
   
   public <T extends ASObject>T readObject(Reader reader) {
-    return gson.<T>fromJson(reader, ASObject.class);
+    return this.reader.<T>read(reader, ASObject.class);
   }
   
   public <T extends ASObject>T readObject(String json) {
-    return gson.<T>fromJson(json, ASObject.class);
+    return this.reader.<T>read(new StringReader(json), ASObject.class);
   }
   
   public MediaLink readMediaLink(Reader reader) {
-    return gson.fromJson(reader, MediaLink.class);
+    return this.reader.<MediaLink>read(reader, MediaLink.class);
   }
   
   public MediaLink readMediaLink(String json) {
-    return gson.fromJson(json, MediaLink.class);
+    return this.reader.<MediaLink>read(new StringReader(json), MediaLink.class);
   }
   
   public void writeCollection(
@@ -17,6 +17,7 @@
  */
 package org.apache.abdera2.activities.model;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -25,9 +26,8 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Arrays;
-import java.util.Map;
+import java.util.Iterator;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
@@ -36,10 +36,14 @@ import org.apache.abdera2.common.anno.DefaultImplementation;
 import org.apache.abdera2.common.misc.ExceptionHelper;
 
 import com.google.common.base.Supplier;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Primary interface for serializing/deserializing Activity objects. 
@@ -210,6 +214,40 @@ public abstract class IO {
       throw new RuntimeException(t);
     }
   }
+  public <T extends ASObject>ItemIterator<T> readCollectionItems(InputStream in, String charset) {
+    try {
+      return readCollectionItems(new InputStreamReader(in,charset));
+    } catch (Throwable t) {
+      throw new RuntimeException(t);
+    }
+  }
+  
+  /**
+   * Read the items of a Collection one at a time. Each item is parsed 
+   * only when the iterator reaches it so the full collection is never
+   * held in memory. Properties of the collection itself are available
+   * from the iterator's header. The reader is closed once the items are 
+   * exhausted if the IO instance is set to autoclose
+   */
+  public abstract <T extends ASObject>ItemIterator<T> readCollectionItems(Reader reader);
+  
+  /**
+   * Iterates over the items of a Collection as they are read
+   */
+  public static interface ItemIterator<T extends ASObject> 
+    extends Iterator<T>, Closeable {
+    /**
+     * The properties of the collection other than its items: those that
+     * precede the items and, once iteration is complete, those that 
+     * follow them
+     */
+    Collection<T> getHeader();
+    /**
+     * Closes the underlying reader. Any remaining items are discarded
+     */
+    void close();
+  }
+  
   public abstract <T extends ASBase>T read(Reader reader);
   public abstract <T extends ASBase>T read(String json);
   public abstract Activity readActivity(Reader reader);
@@ -234,10 +272,16 @@ public abstract class IO {
     return readObject(json).as(_class);
   }
   
-  public static class CacheKey {
+  /**
+   * Identifies a cached IO instance by the exact set of type adapters
+   * it was built with
+   */
+  public static final class CacheKey {
+    private final TypeAdapter<?>[] adapters;
     private final int hash;
     public CacheKey(TypeAdapter<?>[] adapters) {
-      this.hash = Arrays.hashCode(adapters);
+      this.adapters = adapters != null ? adapters.clone() : new TypeAdapter<?>[0];
+      this.hash = Arrays.hashCode(this.adapters);
     }
     public int hashCode() {
       return hash;
@@ -252,32 +296,57 @@ public abstract class IO {
       CacheKey other = (CacheKey) obj;
       if (hash != other.hash)
         return false;
-      return true;
+      return Arrays.equals(adapters, other.adapters);
     }
   }
   
-  private static final Map<CacheKey,IO> map = 
-    new ConcurrentHashMap<CacheKey,IO>();
+  private static final CacheLoader<CacheKey,IO> loader = 
+    new CacheLoader<CacheKey,IO>() {
+      public IO load(CacheKey key) {
+        return new GsonIO.Builder().adapter(key.adapters).get();
+      }
+  };
+  
+  private static volatile LoadingCache<CacheKey,IO> cache = 
+    CacheBuilder.newBuilder().build(loader);
   
-  private static synchronized IO get_cached(TypeAdapter<?>... adapters) {
-    return map.get(new CacheKey(adapters));
+  /**
+   * The instance returned by get() when no type adapters are given, 
+   * created once when first needed
+   */
+  private static final class DefaultInstance {
+    static final IO io = new GsonIO.Builder().get();
   }
   
-  private static synchronized void set_cached(IO io, TypeAdapter<?>... adapters) {
-    map.put(new CacheKey(adapters),io);
+  /**
+   * Limits the number of IO instances retained for distinct sets of 
+   * type adapters. A value less than zero removes the limit. Changing 
+   * the limit discards the instances cached so far
+   */
+  public static void setMaxCached(long max) {
+    CacheBuilder<Object,Object> builder = 
+      CacheBuilder.newBuilder();
+    if (max >= 0)
+      builder.maximumSize(max);
+    cache = builder.build(loader);
   }
 
   public static Builder make() {
     return new GsonIO.Builder();
   }
   
+  /**
+   * Returns a shared IO instance configured with the given type adapters.
+   * Instances are built once per distinct set of adapters and reused
+   */
   public static IO get(TypeAdapter<?>... adapters) { 
-    IO io = get_cached(adapters);
-    if (io == null) {
-      io = new GsonIO.Builder().adapter(adapters).get();
-      set_cached(io,adapters);
+    if (adapters == null || adapters.length == 0)
+      return DefaultInstance.io;
+    try {
+      return cache.getUnchecked(new CacheKey(adapters));
+    } catch (UncheckedExecutionException e) {
+      throw ExceptionHelper.propogate(e.getCause());
     }
-    return io;
   }
   
   public void writeCollection(
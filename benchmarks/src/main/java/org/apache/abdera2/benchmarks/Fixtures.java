@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import org.apache.abdera2.Abdera;
+import org.apache.abdera2.activities.model.Activity;
+import org.apache.abdera2.activities.model.Collection;
+import org.apache.abdera2.activities.model.IO;
+import org.apache.abdera2.writer.StreamWriter;
+import org.joda.time.DateTime;
+
+import static org.apache.abdera2.activities.model.Activity.makeActivity;
+import static org.apache.abdera2.activities.model.Collection.makeCollection;
+import static org.apache.abdera2.activities.model.Verb.POST;
+import static org.apache.abdera2.activities.model.objects.NoteObject.makeNote;
+import static org.apache.abdera2.activities.model.objects.PersonObject.makePerson;
+
+/**
+ * Generates the Atom and Activity Streams documents used as input by the 
+ * benchmarks. The documents are deterministic for a given size so that 
+ * results can be compared across runs and across revisions of the code.
+ */
+public final class Fixtures {
+
+  public static final String BASE = "http://example.org/feeds/";
+  public static final String UPDATED = "2011-10-05T12:30:00Z";
+  
+  private static final DateTime PUBLISHED = new DateTime(UPDATED);
+  
+  private static final String HTML = 
+    "<div><p>This is <b>entry</b> " +
+    "content with <a href=\"related/%1$d\">a relative link</a> and a " +
+    "little bit of markup so the parser has real work to do.</p>" +
+    "<ul><li>one</li><li>two</li><li>three</li></ul></div>";
+  
+  private Fixtures() {}
+  
+  /**
+   * Write a complete Atom feed containing the given number of entries
+   * to the StreamWriter. Each entry carries the metadata typically seen
+   * in production feeds: id, title, dates, author, several links 
+   * (relative and absolute), categories, a summary and escaped html 
+   * content.
+   */
+  public static StreamWriter writeFeed(StreamWriter out, int entries) {
+    out.startDocument()
+       .startFeed()
+         .writeBase(BASE)
+         .writeLanguage("en-US")
+         .writeId("tag:example.org,2011:feed")
+         .writeTitle("Benchmark Feed")
+         .writeSubtitle("A feed of generated entries")
+         .writeUpdated(UPDATED)
+         .writeAuthor("James", "james@example.org", "http://example.org/~james")
+         .writeLink("feed", "self")
+         .writeLink("feed?page=2", "next")
+         .writeGenerator("2.0", "http://abdera.apache.org", "Abdera");
+    for (int n = 0; n < entries; n++) {
+      out.startEntry()
+           .writeId("tag:example.org,2011:entry/" + n)
+           .writeTitle("Entry #" + n)
+           .writeUpdated(UPDATED)
+           .writePublished(UPDATED)
+           .writeAuthor("Author " + (n % 10), null, null)
+           .writeLink("entries/" + n)
+           .writeLink("entries/" + n + "/edit", "edit")
+           .writeLink("http://example.org/media/" + n + ".png", "enclosure", "image/png")
+           .writeCategory("cat" + (n % 5), "http://example.org/categories")
+           .writeCategory("benchmark")
+           .writeSummary("Summary of entry number " + n)
+           .writeContent("html", String.format(HTML, n))
+         .endEntry();
+    }
+    return out.endFeed().endDocument().flush();
+  }
+  
+  public static StreamWriter writeFeed(Abdera abdera, OutputStream out, int entries) {
+    return writeFeed(
+      abdera.create(StreamWriter.class)
+        .setOutputStream(out, "UTF-8"),
+      entries);
+  }
+  
+  /**
+   * Return the serialized bytes of an Atom feed with the given number 
+   * of entries
+   */
+  public static byte[] atomFeed(Abdera abdera, int entries) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeFeed(abdera, out, entries);
+    return out.toByteArray();
+  }
+  
+  /**
+   * Create an Activity Streams collection with the given number of items
+   */
+  public static Collection<Activity> activityCollection(int items) {
+    Collection.CollectionBuilder<Activity> builder = 
+      makeCollection();
+    builder.totalItems(items);
+    for (int n = 0; n < items; n++) {
+      builder.item(
+        makeActivity()
+          .id("tag:example.org,2011:activity/" + n)
+          .actor(
+            makePerson("Person " + (n % 10))
+              .id("acct:person" + (n % 10) + "@example.org")
+              .email("person" + (n % 10) + "@example.org")
+              .get())
+          .verb(POST)
+          .object(
+            makeNote()
+              .id("tag:example.org,2011:note/" + n)
+              .content("This is note number " + n)
+              .url("http://example.org/notes/" + n)
+              .published(PUBLISHED)
+              .get())
+          .published(PUBLISHED)
+          .get());
+    }
+    return builder.get();
+  }
+  
+  /**
+   * Return the JSON serialization of an Activity Streams collection 
+   * with the given number of items
+   */
+  public static String activityJson(IO io, int items) {
+    return io.write(activityCollection(items));
+  }
+  
+}
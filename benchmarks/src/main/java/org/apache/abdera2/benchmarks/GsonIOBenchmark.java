@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.benchmarks;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.abdera2.activities.model.Activity;
+import org.apache.abdera2.activities.model.Collection;
+import org.apache.abdera2.activities.model.IO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Activity Streams parsing and serialization through the 
+ * default (Gson based) IO implementation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GsonIOBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int items;
+  
+  private IO io;
+  private String json;
+  private Collection<Activity> collection;
+  
+  @Setup
+  public void setup() {
+    io = IO.get();
+    collection = Fixtures.activityCollection(items);
+    json = io.write(collection);
+  }
+  
+  @Benchmark
+  public Collection<Activity> readCollection() {
+    return io.readCollection(new StringReader(json));
+  }
+  
+  @Benchmark
+  public int readCollectionItems() {
+    Iterator<Activity> i = io.readCollectionItems(new StringReader(json));
+    int n = 0;
+    while (i.hasNext()) {
+      i.next();
+      n++;
+    }
+    return n;
+  }
+  
+  @Benchmark
+  public Activity readActivity() {
+    return io.readActivity(new StringReader(json));
+  }
+  
+  @Benchmark
+  public String write() {
+    StringWriter writer = new StringWriter(json.length());
+    io.write(collection, writer);
+    return writer.toString();
+  }
+  
+  @Benchmark
+  public IO get() {
+    return IO.get();
+  }
+  
+}
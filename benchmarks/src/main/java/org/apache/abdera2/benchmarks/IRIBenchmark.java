@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.abdera2.common.iri.IRI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures IRI parsing and relative reference resolution, which is 
+ * performed for every link and xml:base in a feed
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IRIBenchmark {
+
+  private IRI base;
+  private IRI relative;
+  
+  @Setup
+  public void setup() {
+    base = new IRI(Fixtures.BASE + "archive/2011/index.atom");
+    relative = new IRI("../entries/123/edit?x=y#top");
+  }
+  
+  @Benchmark
+  public IRI parse() {
+    return new IRI("http://example.org/feeds/archive/2011/entries/123?x=y#top");
+  }
+  
+  @Benchmark
+  public IRI resolve() {
+    return base.resolve(relative);
+  }
+  
+  @Benchmark
+  public IRI resolveString() {
+    return base.resolve("../entries/123/edit?x=y#top");
+  }
+  
+  @Benchmark
+  public IRI resolveAbsolute() {
+    return base.resolve("http://example.org/media/123.png");
+  }
+  
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.abdera2.Abdera;
+import org.apache.abdera2.model.Document;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.parser.EntryIterator;
+import org.apache.abdera2.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures FOMParser.parse. Because the Feed Object Model is built 
+ * lazily, parse() alone only reads up to the root element; the 
+ * parseComplete and parseAndWalk benchmarks force the full tree to 
+ * be built, which is what most consumers end up doing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int entries;
+  
+  private Parser parser;
+  private byte[] feed;
+  
+  @Setup
+  public void setup() {
+    Abdera abdera = Abdera.getInstance();
+    parser = abdera.getParser();
+    feed = Fixtures.atomFeed(abdera, entries);
+  }
+  
+  @Benchmark
+  public Document<Feed> parse() {
+    return parser.parse(new ByteArrayInputStream(feed));
+  }
+  
+  @Benchmark
+  public Feed parseComplete() {
+    Document<Feed> doc = parser.parse(new ByteArrayInputStream(feed));
+    Feed root = doc.getRoot();
+    root.complete();
+    return root;
+  }
+  
+  @Benchmark
+  public void parseAndWalk(Blackhole bh) {
+    Document<Feed> doc = parser.parse(new ByteArrayInputStream(feed));
+    for (Entry entry : doc.getRoot().getEntries()) {
+      bh.consume(entry.getId());
+      bh.consume(entry.getTitle());
+      bh.consume(entry.getUpdated());
+    }
+  }
+  
+  @Benchmark
+  public void parseEntries(Blackhole bh) {
+    EntryIterator entries = 
+      parser.parseEntries(
+        new ByteArrayInputStream(feed), 
+        parser.getDefaultParserOptions());
+    try {
+      while (entries.hasNext()) {
+        Entry entry = entries.next();
+        bh.consume(entry.getId());
+        bh.consume(entry.getTitle());
+        bh.consume(entry.getUpdated());
+      }
+    } finally {
+      entries.close();
+    }
+  }
+  
+}
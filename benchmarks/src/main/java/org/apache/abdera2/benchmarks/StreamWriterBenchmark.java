@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.abdera2.Abdera;
+import org.apache.abdera2.model.Document;
+import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.writer.StreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Atom serialization, both through the StreamWriter and 
+ * by writing a previously parsed and fully built Feed Object Model
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamWriterBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int entries;
+  
+  private Abdera abdera;
+  private Feed feed;
+  private ByteArrayOutputStream out;
+  
+  @Setup
+  public void setup() throws Exception {
+    abdera = Abdera.getInstance();
+    out = new ByteArrayOutputStream(1024 * entries);
+    Document<Feed> doc = 
+      abdera.getParser().parse(
+        new java.io.ByteArrayInputStream(
+          Fixtures.atomFeed(abdera, entries)));
+    feed = doc.getRoot();
+    feed.complete();
+  }
+  
+  @Benchmark
+  public int streamWriter() {
+    out.reset();
+    Fixtures.writeFeed(abdera, out, entries);
+    return out.size();
+  }
+  
+  @Benchmark
+  public int writeTo() throws Exception {
+    out.reset();
+    feed.writeTo(out);
+    return out.size();
+  }
+  
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.abdera2.common.templates.Context;
+import org.apache.abdera2.common.templates.MapContext;
+import org.apache.abdera2.common.templates.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures URI Template expansion for the kind of paging links 
+ * generated for every page of a feed
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+  private static final String PAGING = 
+    "http://{host}/feeds{/collection,view}{?page,count,q,lang}{#frag}";
+  
+  private static final String SIMPLE = 
+    "tag:example.org,2011:{collection}/{id}";
+  
+  private Template paging;
+  private Template simple;
+  private Context context;
+  private Map<String,Object> map;
+  private StringBuilder buf;
+  
+  @Setup
+  public void setup() {
+    paging = new Template(PAGING);
+    simple = new Template(SIMPLE);
+    map = new HashMap<String,Object>();
+    map.put("host", "example.org");
+    map.put("collection", "entries");
+    map.put("view", "full");
+    map.put("page", 12);
+    map.put("count", 25);
+    map.put("q", "abdera and friends");
+    map.put("lang", "en-US");
+    map.put("frag", "top");
+    map.put("id", "abc123");
+    context = new MapContext(map);
+    buf = new StringBuilder();
+  }
+  
+  @Benchmark
+  public String expandPaging() {
+    return paging.expand(context);
+  }
+  
+  @Benchmark
+  public StringBuilder expandPagingReused() {
+    buf.setLength(0);
+    return paging.expand(context, buf);
+  }
+  
+  @Benchmark
+  public String expandSimple() {
+    return simple.expand(context);
+  }
+  
+  @Benchmark
+  public String expandMap() {
+    return paging.expand(map);
+  }
+  
+  @Benchmark
+  public String parseAndExpand() {
+    return Template.expand(PAGING, context);
+  }
+  
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.abdera2.Abdera;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.xpath.CompiledXPath;
+import org.apache.abdera2.xpath.XPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures XPath evaluation over a fully built feed, both across the 
+ * whole document and repeatedly against individual entries (the 
+ * typical routing/filtering use)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XPathBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int entries;
+  
+  private XPath xpath;
+  private Feed feed;
+  private Entry entry;
+  private CompiledXPath compiledValueOf;
+  
+  @Setup
+  public void setup() {
+    Abdera abdera = Abdera.getInstance();
+    xpath = abdera.getXPath();
+    feed = abdera.getParser().<Feed>parse(
+      new ByteArrayInputStream(
+        Fixtures.atomFeed(abdera, entries))).getRoot();
+    feed.complete();
+    entry = feed.getEntries().get(entries / 2);
+    compiledValueOf = xpath.compile("a:id");
+  }
+  
+  @Benchmark
+  public List<?> selectNodes() {
+    return xpath.selectNodes("//a:entry/a:link[@rel='edit']", feed);
+  }
+  
+  @Benchmark
+  public String valueOf() {
+    return xpath.valueOf("a:id", entry);
+  }
+  
+  @Benchmark
+  public boolean booleanValueOf() {
+    return xpath.booleanValueOf("a:category[@term='benchmark']", entry);
+  }
+  
+  @Benchmark
+  public String compiledValueOf() {
+    return compiledValueOf.valueOf(entry);
+  }
+  
+}
@@ -21,21 +21,31 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
 import org.apache.abdera2.common.anno.AnnoUtil;
 import org.apache.abdera2.common.misc.ExceptionHelper;
-import org.apache.abdera2.common.misc.MoreFunctions;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 
 @SuppressWarnings("unchecked")
@@ -44,6 +54,102 @@ public final class Discover {
     private final static Log log = LogFactory.getLog(Discover.class);
     private Discover() {}
 
+    /**
+     * Service registries, one per ClassLoader. Each registry reads a 
+     * META-INF/services resource the first time it is asked for it and 
+     * keeps the resolved implementation classes and constructors from 
+     * then on. Use refresh() to pick up classpath changes. Registries only
+     * hold weak references to the classes they load so that they do not
+     * keep their ClassLoader reachable
+     */
+    private static final LoadingCache<ClassLoader,Registry> registries = 
+      CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(new CacheLoader<ClassLoader,Registry>() {
+          public Registry load(ClassLoader loader) {
+            return new Registry();
+          }
+        });
+
+    /**
+     * Drops every cached service registry so that subsequent lookups 
+     * scan the META-INF/services resources again
+     */
+    public static void refresh() {
+      registries.invalidateAll();
+    }
+
+    /**
+     * Drops the cached service registry of the given ClassLoader. Should 
+     * be called when a ClassLoader is discarded, since the registry holds 
+     * on to the classes it has loaded
+     */
+    public static void refresh(ClassLoader loader) {
+      registries.invalidate(checkLoader(loader));
+    }
+
+    private static ClassLoader checkLoader(@Nullable ClassLoader loader) {
+      return loader != null ? loader : Discover.class.getClassLoader();
+    }
+
+    private static Registry registry(@Nullable ClassLoader loader) {
+      return registries.getUnchecked(checkLoader(loader));
+    }
+
+    /**
+     * Returns a Supplier that creates a new instance of the implementation 
+     * locate(_class, defaultImpl, args) would select each time it is 
+     * called. The implementation class and constructor are resolved once, 
+     * so the Supplier is cheap to call repeatedly. If the implementation 
+     * cannot be instantiated the Supplier falls back on the next one that
+     * can, as locate does. The Supplier only holds a weak reference to 
+     * the ClassLoader
+     */
+    public static <T> Supplier<T> factory(
+      Class<T> _class, 
+      @Nullable String defaultImpl, 
+      Object... args) {
+        return factory(
+          _class, 
+          defaultImpl, 
+          getLoader(), 
+          args);
+    }
+
+    public static <T> Supplier<T> factory(
+      Class<T> _class, 
+      @Nullable String defaultImpl, 
+      ClassLoader loader, 
+      Object... args) {
+      loader = checkLoader(loader);
+      if (defaultImpl == null)
+        defaultImpl = AnnoUtil.getDefaultImplementation(_class);
+      Registry registry = registry(loader);
+      // candidates in the order locate tries them: the default 
+      // implementation if it is registered, every registered 
+      // implementation, then the default implementation by name
+      Set<Service<?>> candidates = new LinkedHashSet<Service<?>>();
+      Iterable<Service<?>> services = 
+        registry.services(loader, _class.getName());
+      if (defaultImpl != null)
+        for (Service<?> service : services)
+          if (defaultImpl.equals(service.spec))
+            candidates.add(service);
+      for (Service<?> service : services)
+        candidates.add(service);
+      if (candidates.isEmpty() || defaultImpl != null)
+        candidates.add(registry.service(checkImpl(defaultImpl, _class)));
+      return new ServiceSupplier<T>(
+        ImmutableList.copyOf(candidates), loader, args);
+    }
+
+    private static String checkImpl(String defaultImpl, Class<?> _class) {
+      if (defaultImpl == null)
+        throw new IllegalArgumentException(
+          "No implementation found for " + _class.getName());
+      return defaultImpl;
+    }
+
     public static <T> T locate(
       Class<T> _class, 
       @Nullable String defaultImpl, 
@@ -72,21 +178,24 @@ public final class Discover {
       ClassLoader loader, 
       Object... args) {
       try {
-        T instance = null, first = null;
-        Iterable<T> items = 
-          locate(_class, loader, args);
-        Iterator<T> is = items.iterator();
+        loader = checkLoader(loader);
         if (defaultImpl == null)
           defaultImpl = AnnoUtil.getDefaultImplementation(_class);
-        while (instance == null && is.hasNext()) {
-          T i = is.next();
-          if (defaultImpl != null && defaultImpl.equals(i.getClass().getName())) {
-            instance = i; 
-            break;
-          } else if (first == null)
-            first = i;
-        }
-        instance = instance != null ? instance : first;
+        Iterable<Service<?>> services = 
+          registry(loader).services(loader, _class.getName());
+        T instance = null;
+        // prefer the default implementation if it is registered, otherwise
+        // fall back on the first registered implementation that can be created
+        if (defaultImpl != null)
+          for (Service<?> service : services)
+            if (defaultImpl.equals(service.spec)) {
+              instance = (T)service.tryCreate(loader, args);
+              break;
+            }
+        if (instance == null)
+          for (Service<?> service : services)
+            if ((instance = (T)service.tryCreate(loader, args)) != null)
+              break;
         return instance != null ? 
           instance :
           (T)load(loader, defaultImpl, false, args);
@@ -101,13 +210,11 @@ public final class Discover {
       ClassLoader loader, 
       Object... args) {
         try {
+            loader = checkLoader(loader);
             T instance = null;
-            Iterable<T> items = 
-              locate(id, loader, args);
-            for (T i : items) {
-                instance = i;
+            for (Service<?> service : registry(loader).services(loader, id))
+              if ((instance = (T)service.tryCreate(loader, args)) != null)
                 break;
-            }
             return instance != null ? 
               instance :
               (T)load(loader, defaultImpl, false, args);
@@ -139,10 +246,8 @@ public final class Discover {
       boolean classesonly, 
       @Nullable ClassLoader cl, 
       Object... args) {
-      return locate(
-        _class, 
-        classesonly, 
-        new DefaultLoader<T>(
+      return Discover.<T>locate(
+        (Iterable<T>)new DefaultLoader<T>(
           _class, 
           classesonly, 
           args, 
@@ -154,10 +259,8 @@ public final class Discover {
       boolean classesonly, 
       @Nullable ClassLoader cl, 
       Object... args) {
-        return locate(
-          id, 
-          classesonly, 
-          new DefaultLoader<T>(
+        return Discover.<T>locate(
+          (Iterable<T>)new DefaultLoader<T>(
             id, 
             classesonly, 
             args, 
@@ -267,26 +370,17 @@ public final class Discover {
               args);
         }
         
-        private Iterator<T> init(boolean classesonly) {
-          try {
-            Set<Iterator<T>> list = new HashSet<Iterator<T>>();
-            Enumeration<URL> e = locateResources(
-              "META-INF/services/" + id, //$NON-NLS-1$ 
-              loader,
-              Discover.class);
-              while (e.hasMoreElements()) {
-                Iterator<T> i =
-                  new DefaultLoaderIterator<T>(
-                    loader, 
-                    e.nextElement().openStream(), 
-                    classesonly, 
-                    args);
-                list.add(i);
+        private Iterator<T> init(final boolean classesonly) {
+          final ClassLoader loader = checkLoader(this.loader);
+          return Iterators.transform(
+            registry(loader).services(loader, id).iterator(),
+            new Function<Service<?>,T>() {
+              public T apply(Service<?> service) {
+                return classesonly ? 
+                  (T)service.getServiceClass(loader) : 
+                  (T)service.tryCreate(loader, args);
               }
-            return Iterators.concat(list.iterator());
-          } catch (Throwable t) {
-            throw ExceptionHelper.propogate(t);
-          }
+            });
         }
         public Iterator<T> iterator() {
           return iterator;
@@ -330,15 +424,11 @@ public final class Discover {
       boolean classesonly, 
       Object[] args) 
         throws Exception {
-        if (classesonly)
-          return (T)getClass(loader, spec);
-        else {
-          Class<T> _class = 
-            getClass(loader, spec);
-          return MoreFunctions
-            .<T>createInstance(_class)
-            .apply(args);
-        }
+        loader = checkLoader(loader);
+        Service<T> service = registry(loader).service(spec);
+        return classesonly ?
+          (T)service.loadServiceClass(loader) :
+          service.create(loader, args);
     }
 
     private static <T> Class<T> getClass(
@@ -418,6 +508,207 @@ public final class Discover {
         public void remove() {}
     }
 
+    /**
+     * The services known to a single ClassLoader, keyed by service id, and 
+     * the implementation classes they name, keyed by class name
+     */
+    private static final class Registry {
+      private final ConcurrentMap<String,ImmutableList<Service<?>>> services = 
+        new ConcurrentHashMap<String,ImmutableList<Service<?>>>();
+      private final ConcurrentMap<String,Service<?>> classes = 
+        new ConcurrentHashMap<String,Service<?>>();
+
+      ImmutableList<Service<?>> services(ClassLoader loader, String id) {
+        ImmutableList<Service<?>> list = services.get(id);
+        if (list == null) {
+          list = scan(loader, id);
+          ImmutableList<Service<?>> existing = services.putIfAbsent(id, list);
+          if (existing != null)
+            list = existing;
+        }
+        return list;
+      }
+
+      <T>Service<T> service(String spec) {
+        Service<?> service = classes.get(spec);
+        if (service == null) {
+          service = new Service<T>(spec);
+          Service<?> existing = classes.putIfAbsent(spec, service);
+          if (existing != null)
+            service = existing;
+        }
+        return (Service<T>)service;
+      }
+
+      private ImmutableList<Service<?>> scan(ClassLoader loader, String id) {
+        Set<String> specs = new LinkedHashSet<String>();
+        try {
+          Enumeration<URL> e = locateResources(
+            "META-INF/services/" + id, //$NON-NLS-1$ 
+            loader,
+            Discover.class);
+          while (e != null && e.hasMoreElements()) {
+            BufferedReader reader = 
+              new BufferedReader(
+                new InputStreamReader(
+                  e.nextElement().openStream(), "UTF-8"));
+            try {
+              String line = null;
+              while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#")) //$NON-NLS-1$
+                  specs.add(line);
+              }
+            } finally {
+              reader.close();
+            }
+          }
+        } catch (Throwable t) {
+          throw ExceptionHelper.propogate(t);
+        }
+        ImmutableList.Builder<Service<?>> list = ImmutableList.builder();
+        for (String spec : specs)
+          list.add(service(spec));
+        return list.build();
+      }
+    }
+
+    /**
+     * A single implementation class named by a service file. The class is 
+     * loaded the first time it is needed; the last constructor used is 
+     * kept so that repeated instantiation with the same argument types 
+     * skips the reflective lookup. Nothing else references the constructor, 
+     * so it is held softly: a weak reference would be cleared by every 
+     * collection, and a strong one would keep the ClassLoader the registry 
+     * is keyed by reachable
+     */
+    private static final class Service<T> {
+      final String spec;
+      private volatile WeakReference<Class<T>> _class;
+      private volatile boolean failed;
+      private volatile SoftReference<Ctor<T>> ctor;
+
+      Service(String spec) {
+        this.spec = spec;
+      }
+
+      Class<T> loadServiceClass(ClassLoader loader) {
+        WeakReference<Class<T>> ref = _class;
+        Class<T> c = ref != null ? ref.get() : null;
+        if (c == null) {
+          try {
+            c = Discover.<T>getClass(loader, spec);
+            _class = new WeakReference<Class<T>>(c);
+          } catch (Throwable t) {
+            failed = true;
+            throw ExceptionHelper.propogate(t);
+          }
+        }
+        return c;
+      }
+
+      /**
+       * Returns the implementation class or null if it cannot be loaded
+       */
+      Class<T> getServiceClass(ClassLoader loader) {
+        if (failed)
+          return null;
+        try {
+          return loadServiceClass(loader);
+        } catch (Throwable t) {
+          return null;
+        }
+      }
+
+      T create(ClassLoader loader, Object[] args) {
+        Class<T> c = loadServiceClass(loader);
+        try {
+          if (args == null)
+            return c.newInstance();
+          Class<?>[] types = new Class<?>[args.length];
+          for (int n = 0; n < args.length; n++)
+            types[n] = args[n].getClass();
+          SoftReference<Ctor<T>> ref = this.ctor;
+          Ctor<T> ctor = ref != null ? ref.get() : null;
+          if (ctor == null || !Arrays.equals(ctor.types, types)) {
+            ctor = new Ctor<T>(types, c.getConstructor(types));
+            this.ctor = new SoftReference<Ctor<T>>(ctor);
+          }
+          return ctor.constructor.newInstance(args);
+        } catch (Throwable t) {
+          throw ExceptionHelper.propogate(t);
+        }
+      }
+
+      /**
+       * Returns a new instance or null if the implementation cannot be 
+       * loaded or instantiated
+       */
+      T tryCreate(ClassLoader loader, Object[] args) {
+        if (getServiceClass(loader) == null)
+          return null;
+        try {
+          return create(loader, args);
+        } catch (Throwable t) {
+          return null;
+        }
+      }
+    }
+
+    private static final class Ctor<T> {
+      final Class<?>[] types;
+      final Constructor<T> constructor;
+      Ctor(Class<?>[] types, Constructor<T> constructor) {
+        this.types = types;
+        this.constructor = constructor;
+      }
+    }
+
+    /**
+     * Creates instances of the first candidate that can be instantiated. 
+     * The candidate that last worked is tried first, the others are only 
+     * tried again if it fails
+     */
+    private static final class ServiceSupplier<T> 
+      implements Supplier<T> {
+      private final ImmutableList<Service<?>> candidates;
+      private final WeakReference<ClassLoader> loader;
+      private final Object[] args;
+      private volatile Service<T> selected;
+      ServiceSupplier(
+        ImmutableList<Service<?>> candidates, 
+        ClassLoader loader, 
+        Object[] args) {
+        this.candidates = candidates;
+        this.loader = new WeakReference<ClassLoader>(loader);
+        this.args = args;
+        for (Service<?> service : candidates)
+          if (service.getServiceClass(loader) != null) {
+            selected = (Service<T>)service;
+            break;
+          }
+        if (selected == null)
+          selected = (Service<T>)candidates.get(candidates.size() - 1);
+      }
+      public T get() {
+        ClassLoader loader = this.loader.get();
+        if (loader == null)
+          throw new IllegalStateException("ClassLoader has been discarded");
+        try {
+          return selected.create(loader, args);
+        } catch (Throwable t) {
+          for (Service<?> service : candidates) {
+            T instance = (T)service.tryCreate(loader, args);
+            if (instance != null) {
+              selected = (Service<T>)service;
+              return instance;
+            }
+          }
+          throw ExceptionHelper.propogate(t);
+        }
+      }
+    }
+
     public static URL locateResource(
       String id, 
       ClassLoader loader, 
@@ -22,10 +22,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.abdera2.common.misc.ExceptionHelper;
 import org.apache.abdera2.common.text.CharUtils.Profile;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 
 /**
  * A reader implementation that profiles out unwanted characters By default, unwanted characters are simply removed from
@@ -39,6 +41,7 @@ public class FilteredCharReader extends FilterReader {
      */
     private final Profile profile;
     private final char replacement;
+    private final long[] table;
 
     public FilteredCharReader(
       InputStream in, 
@@ -96,6 +99,7 @@ public class FilteredCharReader extends FilterReader {
       super(in);
       this.profile = profile;
       this.replacement = replacement;
+      this.table = table(profile);
       checkArgument(
         replacement == 0 ||
         Character.isValidCodePoint(replacement) ||
@@ -107,27 +111,74 @@ public class FilteredCharReader extends FilterReader {
     public int read() throws IOException {
       int c = -1;
       if (replacement == 0)
-        while (((c = super.read()) != -1 && profile.apply(c))) {}
+        while (((c = super.read()) != -1 && isFiltered(c))) {}
       else {
         c = super.read();
-        if (c != -1 && profile.apply(c))
+        if (c != -1 && isFiltered(c))
           c = replacement;
       }
       return c;
     }
 
+    /**
+     * Reads a block from the underlying reader and filters it in place. 
+     * A block with no unwanted characters is returned as read; otherwise
+     * unwanted characters are replaced or the block is compacted over 
+     * them. A block consisting entirely of unwanted characters causes the 
+     * next block to be read so that a non-zero read never returns empty.
+     */
     @Override
     public int read(char[] cbuf, int off, int len) throws IOException {
-      int n = off;
-      for (; n < Math.min(len, cbuf.length - off); n++) {
-        int r = read();
-        if (r != -1)
-            cbuf[n] = (char)r;
-        else
-            break;
+      checkPositionIndexes(off, off + len, cbuf.length);
+      if (len == 0)
+        return 0;
+      for(;;) {
+        int n = in.read(cbuf, off, len);
+        if (n <= 0)
+          return n;
+        int end = off + n;
+        int i = off;
+        while (i < end && !isFiltered(cbuf[i])) i++;
+        if (i == end)
+          return n;
+        if (replacement != 0) {
+          for (; i < end; i++)
+            if (isFiltered(cbuf[i]))
+              cbuf[i] = replacement;
+          return n;
+        }
+        int w = i;
+        for (i++; i < end; i++) {
+          char c = cbuf[i];
+          if (!isFiltered(c))
+            cbuf[w++] = c;
+        }
+        if (w > off)
+          return w - off;
+      }
+    }
+
+    private boolean isFiltered(int c) {
+      return (table[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * Profile.apply evaluated once for every UTF-16 code unit, one bit per
+     * unit, built on first use of each profile
+     */
+    private static final AtomicReferenceArray<long[]> tables = 
+      new AtomicReferenceArray<long[]>(Profile.values().length);
+    
+    private static long[] table(Profile profile) {
+      long[] table = tables.get(profile.ordinal());
+      if (table == null) {
+        table = new long[(Character.MAX_VALUE + 1) >>> 6];
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++)
+          if (profile.apply(c))
+            table[c >>> 6] |= 1L << c;
+        tables.compareAndSet(profile.ordinal(), null, table);
       }
-      n -= off;
-      return n <= 0 ? -1 : n;
+      return table;
     }
 
 }
@@ -20,42 +20,83 @@ package org.apache.abdera2.common.io;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 
 /**
- * InputStream that reads a given inputStream and skips the boundary tokens.
+ * InputStream that reads a given inputStream and skips the boundary tokens. 
+ * Each occurrence of the boundary ends the current part: the bytes before 
+ * it are returned, then read returns -1 once and subsequent reads continue 
+ * with the bytes following the boundary.
+ * 
+ * Input is read into a single scan buffer allocated when the stream is 
+ * created and searched for the boundary with Boyer-Moore-Horspool; reads 
+ * do not allocate.
  */
 public class MultipartInputStream extends FilterInputStream {
 
-    private InputStream input;
-    private byte[] boundary;
-    private byte[] storedBuffer;
-    private int storedBufferPosition;
-    private boolean fakeEof;
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final InputStream input;
+    private final byte[] boundary;
+    private final int[] lastTable = new int[256];
+    private final byte[] buf;
+    private final byte[] single = new byte[1];
+    private int pos;
+    private int limit;
+    private int match = -1;
+    private int searchFrom;
     private boolean realEof;
-    private boolean bufferEnd;
-    private int[] lastTable = new int[256];
 
     public MultipartInputStream(InputStream input, byte[] boundary) {
+        this(input, boundary, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize The size of the scan buffer. It is enlarged if it 
+     *                   cannot hold at least twice the boundary 
+     */
+    public MultipartInputStream(InputStream input, byte[] boundary, int bufferSize) {
         super(input);
+        if (boundary == null || boundary.length == 0)
+            throw new IllegalArgumentException();
         this.input = input;
         this.boundary = boundary;
+        this.buf = new byte[Math.max(bufferSize, boundary.length * 2)];
         computeLastTable();
     }
 
+    /**
+     * Skip the remainder of the current part and the boundary that ends it
+     */
     public void skipBoundary() throws IOException {
-        byte[] buffer = new byte[256];
-        while (read(buffer) != -1) {
+        int n;
+        while ((n = next()) != -1)
+            pos += n;
+    }
+
+    /**
+     * Write the remainder of the current part directly from the scan buffer 
+     * to the given stream, consuming the boundary that ends it. Returns the 
+     * number of bytes written
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        long count = 0;
+        int n;
+        while ((n = next()) != -1) {
+            out.write(buf, pos, n);
+            pos += n;
+            count += n;
         }
+        return count;
     }
 
     @Override
     public int read() throws IOException {
-        byte[] b = new byte[1];
-        if (read(b) == -1) {
+        if (read(single, 0, 1) == -1) {
             return -1;
         }
-        return b[0] & 0xff;
+        return single[0] & 0xff;
     }
 
     @Override
@@ -65,123 +106,112 @@ public class MultipartInputStream extends FilterInputStream {
 
     @Override
     public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > buffer.length)
+            throw new IndexOutOfBoundsException();
         if (length == 0) {
             return 0;
         }
-
-        int bytesReaded = -1;
-        if (!checkEndOfFile()) {
-            int bufferLength =
-                Math.max(boundary.length * 3/* number of tokens into the stream */, length + boundary.length);
-
-            byte[] newBuffer = new byte[bufferLength];
-
-            int position = cleanStoredBuffer(newBuffer, 0, bufferLength);
-            if (bufferLength >= position) {
-                position += readBuffer(newBuffer, position, bufferLength - position);
-            }
-
-            if (realEof && position == 0) {
-                return -1;
-            }
-
-            bytesReaded = getBytesReaded(buffer, newBuffer, offset, position, length);
-        }
-        return bytesReaded != 0 ? bytesReaded : -1;
+        int n = next();
+        if (n == -1)
+            return -1;
+        n = Math.min(n, length);
+        System.arraycopy(buf, pos, buffer, offset, n);
+        pos += n;
+        return n;
     }
 
-    private int readBuffer(byte[] buffer, int offset, int length) throws IOException {
-        int count = 0;
-        int read = 0;
-
-        do {
-            read = input.read(buffer, offset + count, length - count);
-            if (read > 0) {
-                count += read;
-            }
-        } while (read > 0 && count < length);
-
-        if (read < 0) {
-            realEof = true;
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            int r = next();
+            if (r == -1)
+                break;
+            r = (int)Math.min(r, n - skipped);
+            pos += r;
+            skipped += r;
         }
-
-        return count;
+        return skipped;
     }
 
-    private boolean checkEndOfFile() {
-        if (fakeEof) {
-            fakeEof = false;
-            return true;
-        }
-
-        if (realEof && storedBuffer == null) {
-            return true;
-        }
-        if (realEof && !bufferEnd) {
-            bufferEnd = true;
-        }
+    @Override
+    public int available() throws IOException {
+        return (match != -1 ? match : safeLimit()) - pos;
+    }
 
+    @Override
+    public boolean markSupported() {
         return false;
     }
 
-    private int getBytesReaded(byte[] buffer, byte[] newBuffer, int offSet, int position, int length) {
-        int boundaryPosition = locateBoundary(newBuffer, boundary.length - 1, position);
-        int bytesReaded;
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
 
-        if (length < boundaryPosition || boundaryPosition == -1) {// boundary not found
-            bytesReaded = Math.min(length, position);
-            createStoredBuffer(newBuffer, bytesReaded, position);
-        } else {
-            bytesReaded = boundaryPosition;
-            createStoredBuffer(newBuffer, bytesReaded + boundary.length, position);
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
 
-            if (bytesReaded == 0) {
+    /**
+     * Returns the number of bytes of the current part that can be consumed 
+     * from buf starting at pos, or -1 at the end of the part or stream. 
+     * Once the bytes preceding a boundary have been consumed, the boundary 
+     * is skipped and -1 is returned exactly once
+     */
+    private int next() throws IOException {
+        while (true) {
+            if (match == -1)
+                search();
+            if (match == pos) {
+                pos += boundary.length;
+                match = -1;
+                searchFrom = pos;
                 return -1;
             }
-
-            fakeEof = true;
+            if (match != -1)
+                return match - pos;
+            int safe = safeLimit();
+            if (safe > pos)
+                return safe - pos;
+            if (realEof)
+                return -1;
+            fill();
         }
-
-        System.arraycopy(newBuffer, 0, buffer, offSet, bytesReaded);
-        return bytesReaded;
     }
 
-    private void createStoredBuffer(byte[] buffer, int start, int end) {
-        int length = end - start;
-
-        if (length > 0) {
-            if (bufferEnd && storedBuffer != null) {
-                storedBufferPosition -= length;
-            } else {
-                int bufferLength = (storedBuffer == null ? 0 : storedBuffer.length - storedBufferPosition);
-                byte[] newBuffer = new byte[length + bufferLength];
-                System.arraycopy(buffer, start, newBuffer, 0, length);
-
-                if (storedBuffer != null) {
-                    System.arraycopy(storedBuffer, storedBufferPosition, newBuffer, length, bufferLength);
-                }
-
-                storedBuffer = newBuffer;
-                storedBufferPosition = 0;
-            }
-        }
+    /**
+     * The end of the bytes that cannot be the start of a boundary
+     */
+    private int safeLimit() {
+        return realEof ? limit : Math.max(pos, limit - boundary.length + 1);
     }
 
-    private int cleanStoredBuffer(byte[] buffer, int offset, int length) {
-        int i = 0;
-
-        if (storedBuffer != null) {
-            for (i = 0; i < length && storedBufferPosition < storedBuffer.length; i++) {
-                buffer[offset + i] = storedBuffer[storedBufferPosition++];
-            }
+    private void search() {
+        int from = Math.max(pos, searchFrom);
+        match = locateBoundary(from, limit);
+        if (match == -1)
+            searchFrom = Math.max(from, limit - boundary.length + 1);
+    }
 
-            if (storedBufferPosition >= storedBuffer.length) {
-                storedBuffer = null;
-                storedBufferPosition = 0;
+    private void fill() throws IOException {
+        if (pos > 0) {
+            int remaining = limit - pos;
+            System.arraycopy(buf, pos, buf, 0, remaining);
+            searchFrom = Math.max(0, searchFrom - pos);
+            limit = remaining;
+            pos = 0;
+        }
+        while (limit < buf.length) {
+            int r = input.read(buf, limit, buf.length - limit);
+            if (r < 0) {
+                realEof = true;
+                break;
             }
+            limit += r;
+            if (r > 0 && limit - pos >= boundary.length)
+                break;
         }
-
-        return i;
     }
 
     /* computation of the last table */
@@ -192,22 +222,17 @@ public class MultipartInputStream extends FilterInputStream {
         }
     }
 
-    /* simplified boyer-moore algorithm */
-    private int locateBoundary(byte[] bytes, int start, int end) {
-        int position = -1;
-        if (end > boundary.length) {
-            int j = 0;
-            int k = 0;
-            for (int i = start; i < end; i += lastTable[bytes[i] & 0xff]) {
-                for (k = i, j = boundary.length - 1; j >= 0 && boundary[j] == bytes[k]; j--) {
-                    k--;
-                }
-                if (j == -1) {
-                    position = k + 1;
-                }
-            }
+    /* boyer-moore-horspool search for the first boundary in buf[start,end) */
+    private int locateBoundary(int start, int end) {
+        int m = boundary.length;
+        for (int i = start; i + m <= end; i += lastTable[buf[i + m - 1] & 0xff]) {
+            int j = m - 1;
+            while (j >= 0 && boundary[j] == buf[i + j])
+                j--;
+            if (j < 0)
+                return i;
         }
-        return position;
+        return -1;
     }
 
 }
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An OutputStream that keeps its content in memory, in fixed size chunks 
+ * taken from a shared pool, until a threshold is reached. Beyond that the 
+ * content is moved to a temporary file. Once written, the content can be 
+ * read back any number of times until release() is called, which returns 
+ * the chunks to the pool and deletes the file. A buffer that is never 
+ * released still has its file deleted once it is garbage collected.
+ * 
+ * Instances are not threadsafe.
+ */
+public class SpillBuffer 
+  extends OutputStream {
+
+    public static final int CHUNK_SIZE = 8 * 1024;
+    public static final int DEFAULT_THRESHOLD = 256 * 1024;
+    private static final int MAX_POOLED_CHUNKS = 256;
+
+    private static final BlockingQueue<byte[]> pool = 
+      new ArrayBlockingQueue<byte[]>(MAX_POOLED_CHUNKS);
+
+    private final int threshold;
+    private final File dir;
+    private final List<byte[]> chunks = new ArrayList<byte[]>();
+    private int pos = CHUNK_SIZE;
+    private long length;
+    private File file;
+    private OutputStream fileOut;
+    private boolean closed;
+    private boolean released;
+
+    public SpillBuffer() {
+        this(DEFAULT_THRESHOLD, null);
+    }
+
+    public SpillBuffer(int threshold) {
+        this(threshold, null);
+    }
+
+    /**
+     * @param threshold The number of bytes kept in memory before spilling to disk
+     * @param dir The directory for the temporary file, or null for the default temporary directory
+     */
+    public SpillBuffer(int threshold, File dir) {
+        if (threshold < 0)
+            throw new IllegalArgumentException();
+        this.threshold = threshold;
+        this.dir = dir;
+    }
+
+    private static byte[] allocate() {
+        byte[] chunk = pool.poll();
+        return chunk != null ? chunk : new byte[CHUNK_SIZE];
+    }
+
+    private static void recycle(List<byte[]> chunks) {
+        for (byte[] chunk : chunks)
+            if (!pool.offer(chunk))
+                break;
+        chunks.clear();
+    }
+
+    private void checkWritable() throws IOException {
+        if (closed || released)
+            throw new IOException("Buffer is closed");
+    }
+
+    private void spill() throws IOException {
+        file = File.createTempFile("abdera", ".buf", dir);
+        fileOut = new BufferedOutputStream(new FileOutputStream(file), CHUNK_SIZE);
+        long remaining = length;
+        for (byte[] chunk : chunks) {
+            int n = (int)Math.min(remaining, CHUNK_SIZE);
+            fileOut.write(chunk, 0, n);
+            remaining -= n;
+        }
+        recycle(chunks);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkWritable();
+        if (file == null && length + 1 > threshold)
+            spill();
+        if (file != null) {
+            fileOut.write(b);
+        } else {
+            if (pos == CHUNK_SIZE) {
+                chunks.add(allocate());
+                pos = 0;
+            }
+            chunks.get(chunks.size() - 1)[pos++] = (byte)b;
+        }
+        length++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkWritable();
+        if (off < 0 || len < 0 || off + len > b.length)
+            throw new IndexOutOfBoundsException();
+        if (file == null && length + len > threshold)
+            spill();
+        if (file != null) {
+            fileOut.write(b, off, len);
+        } else {
+            int remaining = len;
+            while (remaining > 0) {
+                if (pos == CHUNK_SIZE) {
+                    chunks.add(allocate());
+                    pos = 0;
+                }
+                int n = Math.min(remaining, CHUNK_SIZE - pos);
+                System.arraycopy(b, off, chunks.get(chunks.size() - 1), pos, n);
+                pos += n;
+                off += n;
+                remaining -= n;
+            }
+        }
+        length += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null && !closed)
+            fileOut.flush();
+    }
+
+    /**
+     * Closing the buffer ends writing. The content remains available 
+     * until release() is called
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (fileOut != null)
+                fileOut.close();
+        }
+    }
+
+    /**
+     * The number of bytes written to the buffer
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * True if the content has been moved to a temporary file
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Returns a new stream over the content of the buffer. Closes the 
+     * buffer for writing if it is still open
+     */
+    public InputStream getInputStream() throws IOException {
+        return getInputStream(false);
+    }
+
+    /**
+     * Returns a new stream over the content of the buffer. If release is 
+     * true, the buffer is released when the returned stream is closed
+     */
+    public InputStream getInputStream(boolean release) throws IOException {
+        if (released)
+            throw new IOException("Buffer has been released");
+        close();
+        InputStream in = 
+          file != null ? 
+            new FileInputStream(file) : 
+            new ChunkInputStream(chunks, length);
+        return release ? new ReleasingInputStream(in, this) : in;
+    }
+
+    /**
+     * Copies the content of the buffer to the given stream
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (released)
+            throw new IOException("Buffer has been released");
+        close();
+        if (file != null) {
+            InputStream in = new FileInputStream(file);
+            try {
+                byte[] buf = new byte[CHUNK_SIZE];
+                int r;
+                while ((r = in.read(buf)) != -1)
+                    out.write(buf, 0, r);
+            } finally {
+                in.close();
+            }
+        } else {
+            long remaining = length;
+            for (byte[] chunk : chunks) {
+                int n = (int)Math.min(remaining, CHUNK_SIZE);
+                out.write(chunk, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * Discards the content, returning the memory chunks to the pool and 
+     * deleting the temporary file. Streams previously returned by 
+     * getInputStream must not be used afterwards
+     */
+    public void release() {
+        if (released)
+            return;
+        released = true;
+        closed = true;
+        recycle(chunks);
+        if (file != null) {
+            try {
+                if (fileOut != null)
+                    fileOut.close();
+            } catch (IOException e) {
+            }
+            file.delete();
+        }
+    }
+
+    /**
+     * Deletes the temporary file of a buffer that was never released. 
+     * The chunks are not recycled since streams over them may still be 
+     * in use
+     */
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            if (!released && file != null) {
+                try {
+                    if (fileOut != null)
+                        fileOut.close();
+                } catch (IOException e) {
+                }
+                file.delete();
+            }
+        } finally {
+            super.finalize();
+        }
+    }
+
+    private static final class ChunkInputStream 
+      extends InputStream {
+        private final List<byte[]> chunks;
+        private final long length;
+        private long read;
+
+        ChunkInputStream(List<byte[]> chunks, long length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (read >= length)
+                return -1;
+            byte b = chunks.get((int)(read / CHUNK_SIZE))[(int)(read % CHUNK_SIZE)];
+            read++;
+            return b & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || off + len > b.length)
+                throw new IndexOutOfBoundsException();
+            if (len == 0)
+                return 0;
+            if (read >= length)
+                return -1;
+            int total = 0;
+            while (len > 0 && read < length) {
+                int offset = (int)(read % CHUNK_SIZE);
+                int n = (int)Math.min(Math.min(len, CHUNK_SIZE - offset), length - read);
+                System.arraycopy(chunks.get((int)(read / CHUNK_SIZE)), offset, b, off, n);
+                read += n;
+                off += n;
+                len -= n;
+                total += n;
+            }
+            return total;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long s = Math.max(0, Math.min(n, length - read));
+            read += s;
+            return s;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int)Math.min(Integer.MAX_VALUE, length - read);
+        }
+    }
+
+    private static final class ReleasingInputStream 
+      extends FilterInputStream {
+        private final SpillBuffer buffer;
+
+        ReleasingInputStream(InputStream in, SpillBuffer buffer) {
+            super(in);
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+}
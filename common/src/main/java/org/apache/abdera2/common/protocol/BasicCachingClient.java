@@ -17,26 +17,61 @@
  */
 package org.apache.abdera2.common.protocol;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.cache.HeaderConstants;
 import org.apache.http.client.cache.HttpCacheStorage;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.client.cache.CacheConfig;
 import org.apache.http.impl.client.cache.CachingHttpClient;
+import org.apache.http.protocol.HttpContext;
 
 /**
  * Alternative implementation of the Abdera Client that uses client-side 
  * Caching. This is intended to be used as a drop-in replacement to the 
- * base Client when caching capabilities are desired.
+ * base Client when caching capabilities are desired. The cache storage
+ * is pluggable, see LruHeapCacheStorage for a byte-bounded on-heap 
+ * cache and MappedFileCacheStorage for a cache that lives off-heap and
+ * survives restarts.
  */
 public class BasicCachingClient extends BasicClient implements CachingClient {
 
+  private static final String REVALIDATION = 
+    "org.apache.abdera2.common.protocol.revalidation";
+
   private DefaultHttpClient inner;
   private HttpCacheStorage store;
+  private CacheConfig config;
+  private final AtomicLong revalidations = new AtomicLong();
+  private final AtomicLong notModified = new AtomicLong();
+  private final ThreadLocal<Boolean> conditional = new ThreadLocal<Boolean>();
     
   public BasicCachingClient(HttpCacheStorage store) {
     this(DEFAULT_USER_AGENT, store);
   }
   
+  public BasicCachingClient(HttpCacheStorage store, CacheConfig config) {
+    this(DEFAULT_USER_AGENT, store, config);
+  }
+  
+  public BasicCachingClient(
+    String useragent, 
+    HttpCacheStorage store, 
+    CacheConfig config) {
+      this.store = store;
+      this.config = config;
+      this.client = initClient(useragent);
+  }
+  
   public BasicCachingClient(String useragent, HttpCacheStorage store) {
       this.store = store;
       this.client = initClient(useragent);
@@ -67,14 +102,44 @@ public class BasicCachingClient extends BasicClient implements CachingClient {
   
   protected HttpClient initClient(String useragent, DefaultHttpClient client) {
     inner = client != null? client : (DefaultHttpClient) super.initClient(useragent);
+    CacheConfig cacheConfig = config != null ? config : initCacheConfig();
+    boolean counting = false;
+    for (int n = 0; n < inner.getRequestInterceptorCount(); n++)
+      counting |= inner.getRequestInterceptor(n) instanceof RevalidationCounter;
+    if (!counting) {
+      RevalidationCounter counter = new RevalidationCounter();
+      inner.addRequestInterceptor(counter);
+      inner.addResponseInterceptor(counter);
+    }
+    return store != null ? 
+        new MeteredCachingHttpClient(inner,store,cacheConfig):
+        new MeteredCachingHttpClient(inner, cacheConfig);
+  }
+  
+  /**
+   * Default cache configuration used when one is not passed in to
+   * the constructor, subclasses may overload this to customize the
+   * cache configuration. Note that the max cache entries setting 
+   * only applies to the default storage, pass in a HttpCacheStorage
+   * such as LruHeapCacheStorage to bound the cache by size. The max
+   * object size is 8 KB for the default storage and the largest entry
+   * the storage will hold for a MeteredCacheStorage
+   */
+  protected CacheConfig initCacheConfig() {
     CacheConfig cacheConfig = new CacheConfig();  
     cacheConfig.setMaxCacheEntries(1000);
-    cacheConfig.setMaxObjectSizeBytes(8192);
+    cacheConfig.setMaxObjectSizeBytes(
+      store instanceof MeteredCacheStorage ?
+        (int)Math.min(
+          Integer.MAX_VALUE, 
+          ((MeteredCacheStorage)store).getMaxEntrySize()) :
+        8192);
     cacheConfig.setHeuristicCachingEnabled(true);
-
-    return store != null ? 
-        new CachingHttpClient(inner,store,cacheConfig):
-        new CachingHttpClient(inner, cacheConfig);
+    return cacheConfig;
+  }
+  
+  public HttpCacheStorage getCacheStorage() {
+    return store;
   }
   
   public DefaultHttpClient getDefaultHttpClient() {
@@ -92,4 +157,86 @@ public class BasicCachingClient extends BasicClient implements CachingClient {
   public long cacheUpdates() {
     return ((CachingHttpClient)getClient()).getCacheUpdates();
   }
+  
+  public CacheStats getCacheStats() {
+    CachingHttpClient client = (CachingHttpClient)getClient();
+    MeteredCacheStorage metered = 
+      store instanceof MeteredCacheStorage ? 
+        (MeteredCacheStorage)store : null;
+    return new CacheStats(
+      client.getCacheHits(),
+      client.getCacheMisses(),
+      client.getCacheUpdates(),
+      revalidations.get(),
+      notModified.get(),
+      metered != null ? metered.getEntryCount() : -1,
+      metered != null ? metered.getBytesCached() : -1,
+      metered != null ? metered.getEvictionCount() : -1);
+  }
+  
+  private static boolean isConditional(HttpRequest request) {
+    return request.containsHeader(HeaderConstants.IF_NONE_MATCH) || 
+           request.containsHeader(HeaderConstants.IF_MODIFIED_SINCE);
+  }
+  
+  /**
+   * Notes, for the RevalidationCounter, whether the request the caller 
+   * handed to the cache was already conditional
+   */
+  private class MeteredCachingHttpClient 
+    extends CachingHttpClient {
+    MeteredCachingHttpClient(
+      HttpClient backend, 
+      HttpCacheStorage store, 
+      CacheConfig config) {
+        super(backend, store, config);
+    }
+    MeteredCachingHttpClient(
+      HttpClient backend, 
+      CacheConfig config) {
+        super(backend, config);
+    }
+    @Override
+    public HttpResponse execute(
+      HttpHost target, 
+      HttpRequest request, 
+      HttpContext context) 
+        throws IOException {
+      Boolean previous = conditional.get();
+      conditional.set(isConditional(request));
+      try {
+        return super.execute(target, request, context);
+      } finally {
+        conditional.set(previous);
+      }
+    }
+  }
+  
+  /**
+   * Counts the conditional requests the cache itself sends to the 
+   * origin server and the 304 responses it gets back. Requests that 
+   * were conditional when the caller made them are not counted
+   */
+  private class RevalidationCounter 
+    implements HttpRequestInterceptor, 
+               HttpResponseInterceptor {
+    public void process(
+      HttpRequest request, 
+      HttpContext context)
+        throws HttpException, IOException {
+      if (isConditional(request) && 
+          !Boolean.TRUE.equals(conditional.get())) {
+        revalidations.incrementAndGet();
+        context.setAttribute(REVALIDATION, Boolean.TRUE);
+      }
+    }
+    public void process(
+      HttpResponse response, 
+      HttpContext context)
+        throws HttpException, IOException {
+      if (response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED &&
+          context.removeAttribute(REVALIDATION) != null)
+        notModified.incrementAndGet();
+    }
+  }
 }
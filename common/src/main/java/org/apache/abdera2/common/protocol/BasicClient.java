@@ -24,9 +24,12 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.abdera2.common.anno.AnnoUtil;
 import org.apache.abdera2.common.anno.Version;
+import org.apache.abdera2.common.misc.MoreExecutors2;
 import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
@@ -42,6 +45,7 @@ import org.apache.http.client.params.ClientPNames;
 import org.apache.http.client.params.CookiePolicy;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.params.ConnRoutePNames;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -59,6 +63,11 @@ import org.apache.http.params.CoreProtocolPNames;
 import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.HttpContext;
 
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import static com.google.common.base.Preconditions.*;
+
 @Version(value="v2.0-SNAPSHOT",
     name="Abdera",
     uri="http://abdera.apache.org")
@@ -66,16 +75,34 @@ import org.apache.http.protocol.HttpContext;
 public class BasicClient implements Client {
 
   protected HttpClient client;
+  protected final ConnectionPoolOptions poolOptions;
+  private volatile ListeningExecutorService executor;
+  private volatile boolean shutdown;
   
   public BasicClient() {
     this(DEFAULT_USER_AGENT);
   }
   
   public BasicClient(String useragent) {
-      this.client = initClient(useragent);
+    this(useragent, null);
+  }
+  
+  public BasicClient(ConnectionPoolOptions poolOptions) {
+    this(DEFAULT_USER_AGENT, poolOptions);
+  }
+  
+  /**
+   * Create a client whose connection pool is configured using the 
+   * given options. If poolOptions is null, the pool is sized using
+   * initDefaultMaxConnectionsPerRoute and initDefaultMaxTotalConnections
+   */
+  public BasicClient(String useragent, ConnectionPoolOptions poolOptions) {
+    this.poolOptions = poolOptions;
+    this.client = initClient(useragent);
   }
   
   public BasicClient(DefaultHttpClient client) {
+    this.poolOptions = null;
     this.client = client;
   }
     
@@ -105,11 +132,14 @@ public class BasicClient implements Client {
    * manager configuration
    */
   protected ClientConnectionManager initConnectionManager(SchemeRegistry sr) {
-    ThreadSafeClientConnManager cm = 
-      new ThreadSafeClientConnManager(sr);
-    cm.setDefaultMaxPerRoute(initDefaultMaxConnectionsPerRoute());
-    cm.setMaxTotal(initDefaultMaxTotalConnections());    
-    return cm;
+    ConnectionPoolOptions options = 
+      poolOptions != null ? 
+        poolOptions : 
+        ConnectionPoolOptions.make()
+          .maxPerRoute(initDefaultMaxConnectionsPerRoute())
+          .maxTotal(initDefaultMaxTotalConnections())
+          .get();
+    return new PoolingClientConnManager(sr, options);
   }
   
   protected int initDefaultMaxConnectionsPerRoute() {
@@ -322,6 +352,77 @@ public class BasicClient implements Client {
     } return -1;
   }
 
+  /**
+   * Set the maximum number of connections allowed for a specific route. 
+   * Only effective if the Connection Manager implementation used is a
+   * ThreadSafeClientConnManager, otherwise an IllegalStateException is
+   * thrown.
+   */
+  public <T extends Client>T setMaxConnectionsForRoute(HttpRoute route, int max) {
+    ClientConnectionManager ccm = 
+      client.getConnectionManager();
+    if (ccm instanceof ThreadSafeClientConnManager) {
+      ThreadSafeClientConnManager cm = 
+        (ThreadSafeClientConnManager) ccm;
+      cm.setMaxForRoute(route, max);
+    } else {
+      throw new IllegalStateException();
+    }
+    return (T)this;
+  }
+  
+  /**
+   * Set the maximum number of connections allowed for all routes to the
+   * given host. Only effective if the Connection Manager implementation 
+   * used is a PoolingClientConnManager, otherwise an IllegalStateException
+   * is thrown.
+   */
+  public <T extends Client>T setMaxConnectionsForHost(String host, int max) {
+    ClientConnectionManager ccm = 
+      client.getConnectionManager();
+    if (ccm instanceof PoolingClientConnManager) {
+      ((PoolingClientConnManager)ccm).setMaxForHost(host, max);
+    } else {
+      throw new IllegalStateException();
+    }
+    return (T)this;
+  }
+  
+  /**
+   * Return a snapshot of the connection pool usage. Returns null if the
+   * Connection Manager implementation is not a PoolingClientConnManager
+   */
+  public ConnectionPoolStats getPoolStats() {
+    ClientConnectionManager ccm = 
+      client.getConnectionManager();
+    return ccm instanceof PoolingClientConnManager ? 
+      ((PoolingClientConnManager)ccm).getStats() : null;
+  }
+  
+  /**
+   * Return a snapshot of the connection pool usage for a single route. 
+   * Returns null if the Connection Manager implementation is not a
+   * PoolingClientConnManager
+   */
+  public ConnectionPoolStats getPoolStats(HttpRoute route) {
+    ClientConnectionManager ccm = 
+      client.getConnectionManager();
+    return ccm instanceof PoolingClientConnManager ? 
+      ((PoolingClientConnManager)ccm).getStats(route) : null;
+  }
+  
+  /**
+   * Close expired pooled connections and those that have been idle
+   * for longer than the given time
+   */
+  public <T extends Client>T closeIdleConnections(long idle, TimeUnit unit) {
+    ClientConnectionManager ccm = 
+      client.getConnectionManager();
+    ccm.closeExpiredConnections();
+    ccm.closeIdleConnections(idle, unit);
+    return (T)this;
+  }
+
   /**
    * Configure the client to use the specified proxy
    */
@@ -573,7 +674,45 @@ public class BasicClient implements Client {
     return (T)new Session(this);
   }
   
+  /**
+   * Return the executor used to process asynchronous requests, creating
+   * it if necessary. Fails once the client has been shut down
+   */
+  public ListeningExecutorService getExecutor() {
+    ListeningExecutorService exec = executor;
+    if (exec == null) {
+      synchronized(this) {
+        checkState(!shutdown, "Client has been shut down");
+        exec = executor;
+        if (exec == null)
+          executor = exec = 
+            MoreExecutors.listeningDecorator(initExecutor());
+      }
+    }
+    return exec;
+  }
+  
+  /**
+   * Default initialization of the asynchronous request executor. Sized
+   * to the connection pool so that queued requests wait for a thread 
+   * rather than holding one while waiting for a connection. Subclasses
+   * may overload this to customize the executor
+   */
+  protected ExecutorService initExecutor() {
+    int max = getMaxConnectionsTotal();
+    return MoreExecutors2.getExitingFixedExecutor(
+      max > 0 ? max : DEFAULT_MAX_TOTAL_CONNECTIONS);
+  }
+  
   public void shutdown() {
+    ListeningExecutorService exec;
+    synchronized(this) {
+      shutdown = true;
+      exec = executor;
+      executor = null;
+    }
+    if (exec != null)
+      exec.shutdown();
     client.getConnectionManager().shutdown();
   }
 
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.protocol;
+
+/**
+ * A point-in-time snapshot of client-side cache activity. The storage
+ * figures (entries, bytes and evictions) are only available when the
+ * cache storage is a MeteredCacheStorage, otherwise they are -1.
+ */
+public final class CacheStats {
+
+  private final long hits;
+  private final long misses;
+  private final long updates;
+  private final long revalidations;
+  private final long notModified;
+  private final long entries;
+  private final long bytes;
+  private final long evictions;
+  
+  CacheStats(
+    long hits, 
+    long misses, 
+    long updates, 
+    long revalidations, 
+    long notModified, 
+    long entries, 
+    long bytes, 
+    long evictions) {
+      this.hits = hits;
+      this.misses = misses;
+      this.updates = updates;
+      this.revalidations = revalidations;
+      this.notModified = notModified;
+      this.entries = entries;
+      this.bytes = bytes;
+      this.evictions = evictions;
+  }
+  
+  public long getHits() {
+    return hits;
+  }
+  
+  public long getMisses() {
+    return misses;
+  }
+  
+  public long getUpdates() {
+    return updates;
+  }
+  
+  /**
+   * The number of conditional requests the cache sent to the origin 
+   * server to revalidate its entries. Requests that were already 
+   * conditional when the caller made them are not included
+   */
+  public long getRevalidations() {
+    return revalidations;
+  }
+  
+  /**
+   * The number of cache revalidations answered with 304 Not Modified
+   */
+  public long getNotModified() {
+    return notModified;
+  }
+  
+  public long getEntryCount() {
+    return entries;
+  }
+  
+  public long getBytesCached() {
+    return bytes;
+  }
+  
+  public long getEvictionCount() {
+    return evictions;
+  }
+  
+  public long getRequestCount() {
+    return hits + misses;
+  }
+  
+  /**
+   * The fraction of requests answered from the cache
+   */
+  public double getHitRate() {
+    return rate(hits, hits + misses);
+  }
+  
+  /**
+   * The fraction of requests for which the cache revalidated an entry
+   * with the origin server
+   */
+  public double getRevalidationRate() {
+    return rate(revalidations, hits + misses);
+  }
+  
+  /**
+   * The fraction of revalidations answered with 304 Not Modified
+   */
+  public double getNotModifiedRate() {
+    return rate(notModified, revalidations);
+  }
+  
+  private static double rate(long n, long total) {
+    return total > 0 ? (double)n / total : 0;
+  }
+  
+  public String toString() {
+    return String.format(
+      "[hits: %d; misses: %d; updates: %d; revalidations: %d; not modified: %d; entries: %d; bytes: %d; evictions: %d]",
+      hits, misses, updates, revalidations, notModified, entries, bytes, evictions);
+  }
+}
@@ -25,4 +25,9 @@ public interface CachingClient extends Client {
 
   long cacheUpdates();
 
+  /**
+   * Return a snapshot of the cache activity and storage usage
+   */
+  CacheStats getCacheStats();
+
 }
\ No newline at end of file
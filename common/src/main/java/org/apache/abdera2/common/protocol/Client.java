@@ -19,17 +19,21 @@ package org.apache.abdera2.common.protocol;
 
 import java.net.URISyntaxException;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.auth.Credentials;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.scheme.SchemeSocketFactory;
 import org.apache.http.cookie.Cookie;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.params.HttpParams;
 
+import com.google.common.util.concurrent.ListeningExecutorService;
+
 public interface Client {
 
   public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
@@ -119,6 +123,34 @@ public interface Client {
    */
   int getMaxConnectionsTotal();
 
+  /**
+   * Set the maximum number of connections allowed for a specific route
+   */
+  <T extends Client>T setMaxConnectionsForRoute(HttpRoute route, int max);
+
+  /**
+   * Set the maximum number of connections allowed for all routes to a host
+   */
+  <T extends Client>T setMaxConnectionsForHost(String host, int max);
+
+  /**
+   * Return a snapshot of the connection pool usage, or null if the
+   * Connection Manager implementation does not support it
+   */
+  ConnectionPoolStats getPoolStats();
+
+  /**
+   * Return a snapshot of the connection pool usage for a single route, 
+   * or null if the Connection Manager implementation does not support it
+   */
+  ConnectionPoolStats getPoolStats(HttpRoute route);
+
+  /**
+   * Close expired pooled connections and those that have been idle
+   * for longer than the given time
+   */
+  <T extends Client>T closeIdleConnections(long idle, TimeUnit unit);
+
   /**
    * Configure the client to use the specified proxy
    */
@@ -250,6 +282,11 @@ public interface Client {
 
   <T extends Session>T newSession();
 
+  /**
+   * Return the executor used to process asynchronous requests
+   */
+  ListeningExecutorService getExecutor();
+
   void shutdown();
   
   /**
@@ -19,17 +19,21 @@ package org.apache.abdera2.common.protocol;
 
 import java.net.URISyntaxException;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.auth.Credentials;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.scheme.SchemeSocketFactory;
 import org.apache.http.cookie.Cookie;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.params.HttpParams;
 
+import com.google.common.util.concurrent.ListeningExecutorService;
+
 @SuppressWarnings("unchecked")
 public abstract class ClientWrapper 
   implements Client {
@@ -114,6 +118,29 @@ public abstract class ClientWrapper
     return internal.getMaxConnectionsTotal();
   }
 
+  public <T extends Client>T  setMaxConnectionsForRoute(HttpRoute route, int max) {
+    internal.setMaxConnectionsForRoute(route, max);
+    return (T)this;
+  }
+
+  public <T extends Client>T  setMaxConnectionsForHost(String host, int max) {
+    internal.setMaxConnectionsForHost(host, max);
+    return (T)this;
+  }
+
+  public ConnectionPoolStats getPoolStats() {
+    return internal.getPoolStats();
+  }
+
+  public ConnectionPoolStats getPoolStats(HttpRoute route) {
+    return internal.getPoolStats(route);
+  }
+
+  public <T extends Client>T  closeIdleConnections(long idle, TimeUnit unit) {
+    internal.closeIdleConnections(idle, unit);
+    return (T)this;
+  }
+
   public <T extends Client>T  setProxy(String host, int port) {
     internal.setProxy(host,port);
     return (T)this;
@@ -228,6 +255,10 @@ public abstract class ClientWrapper
     return (T)new Session(this);
   }
 
+  public ListeningExecutorService getExecutor() {
+    return internal.getExecutor();
+  }
+
   public void shutdown() {
     internal.shutdown();
   }
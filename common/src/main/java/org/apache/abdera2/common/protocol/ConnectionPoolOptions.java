@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.protocol;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.routing.HttpRoute;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Tuning options for the connection pool used by BasicClient. Limits may
+ * be set for the pool as a whole, per route by default, per route for 
+ * specific hosts and for specific routes. Pooled connections can be given a maximum time
+ * to live and, when an eviction interval is set, idle and expired 
+ * connections are closed periodically by a background thread.
+ */
+public final class ConnectionPoolOptions {
+
+  public static Builder make() {
+    return new Builder();
+  }
+  
+  public static final class Builder 
+    implements Supplier<ConnectionPoolOptions> {
+    
+    private int maxTotal = Client.DEFAULT_MAX_TOTAL_CONNECTIONS;
+    private int maxPerRoute = Client.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private final Map<String,Integer> hosts = 
+      new LinkedHashMap<String,Integer>();
+    private final Map<HttpRoute,Integer> routes = 
+      new LinkedHashMap<HttpRoute,Integer>();
+    private long ttl = -1;
+    private long idle = -1;
+    private long evictInterval = -1;
+    
+    Builder() {}
+    
+    /**
+     * The maximum number of connections for the entire pool
+     */
+    public Builder maxTotal(int max) {
+      checkArgument(max > 0);
+      this.maxTotal = max;
+      return this;
+    }
+    
+    /**
+     * The default maximum number of connections per route
+     */
+    public Builder maxPerRoute(int max) {
+      checkArgument(max > 0);
+      this.maxPerRoute = max;
+      return this;
+    }
+    
+    /**
+     * The maximum number of connections for each route to the given host. 
+     * The limit applies to every route separately, so plain, secure and 
+     * proxied routes to the host each get the full number. Setting the 
+     * same host again replaces its limit
+     */
+    public Builder maxForHost(String host, int max) {
+      checkArgument(max > 0);
+      this.hosts.put(checkNotNull(host).toLowerCase(), max);
+      return this;
+    }
+    
+    /**
+     * The maximum number of connections for a specific route. Setting the 
+     * same route again replaces its limit
+     */
+    public Builder maxForRoute(HttpRoute route, int max) {
+      checkArgument(max > 0);
+      this.routes.put(checkNotNull(route), max);
+      return this;
+    }
+    
+    /**
+     * The maximum time a pooled connection may be reused, after which
+     * it is considered expired
+     */
+    public Builder timeToLive(long time, TimeUnit unit) {
+      this.ttl = checkNotNull(unit).toMillis(time);
+      return this;
+    }
+    
+    /**
+     * Connections that have been idle longer than this are closed by
+     * the evictor. Has no effect unless an eviction interval is set
+     */
+    public Builder idleTimeout(long time, TimeUnit unit) {
+      this.idle = checkNotNull(unit).toMillis(time);
+      return this;
+    }
+    
+    /**
+     * How often to close expired and idle connections. If not set, 
+     * no background eviction is performed
+     */
+    public Builder evictEvery(long time, TimeUnit unit) {
+      this.evictInterval = checkNotNull(unit).toMillis(time);
+      return this;
+    }
+    
+    public ConnectionPoolOptions get() {
+      return new ConnectionPoolOptions(this);
+    }
+  }
+  
+  private final int maxTotal;
+  private final int maxPerRoute;
+  private final ImmutableMap<String,Integer> hosts;
+  private final ImmutableMap<HttpRoute,Integer> routes;
+  private final long ttl;
+  private final long idle;
+  private final long evictInterval;
+  
+  private ConnectionPoolOptions(Builder builder) {
+    this.maxTotal = builder.maxTotal;
+    this.maxPerRoute = builder.maxPerRoute;
+    this.hosts = ImmutableMap.copyOf(builder.hosts);
+    this.routes = ImmutableMap.copyOf(builder.routes);
+    this.ttl = builder.ttl;
+    this.idle = builder.idle;
+    this.evictInterval = builder.evictInterval;
+  }
+
+  public int getMaxTotal() {
+    return maxTotal;
+  }
+
+  public int getMaxPerRoute() {
+    return maxPerRoute;
+  }
+
+  public ImmutableMap<String,Integer> getMaxForHosts() {
+    return hosts;
+  }
+
+  public ImmutableMap<HttpRoute,Integer> getMaxForRoutes() {
+    return routes;
+  }
+
+  /**
+   * The connection time to live in milliseconds, or -1 if connections
+   * do not expire
+   */
+  public long getTimeToLive() {
+    return ttl;
+  }
+
+  /**
+   * The idle timeout in milliseconds, or -1 if idle connections are
+   * not evicted
+   */
+  public long getIdleTimeout() {
+    return idle;
+  }
+
+  /**
+   * The eviction interval in milliseconds, or -1 if there is no 
+   * background eviction
+   */
+  public long getEvictionInterval() {
+    return evictInterval;
+  }
+  
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.protocol;
+
+/**
+ * A point-in-time snapshot of connection pool usage, either for the
+ * pool as a whole or for a single route.
+ */
+public final class ConnectionPoolStats {
+
+  private final int leased;
+  private final int pending;
+  private final int available;
+  private final int max;
+  
+  ConnectionPoolStats(
+    int leased, 
+    int pending, 
+    int available, 
+    int max) {
+      this.leased = leased;
+      this.pending = pending;
+      this.available = available;
+      this.max = max;
+  }
+  
+  /**
+   * The number of connections currently in use
+   */
+  public int getLeased() {
+    return leased;
+  }
+  
+  /**
+   * The number of requests waiting for a connection
+   */
+  public int getPending() {
+    return pending;
+  }
+  
+  /**
+   * The number of idle connections kept alive in the pool
+   */
+  public int getAvailable() {
+    return available;
+  }
+  
+  /**
+   * The maximum number of connections allowed
+   */
+  public int getMax() {
+    return max;
+  }
+  
+  public String toString() {
+    return String.format(
+      "[leased: %d; pending: %d; available: %d; max: %d]",
+      leased, pending, available, max);
+  }
+}
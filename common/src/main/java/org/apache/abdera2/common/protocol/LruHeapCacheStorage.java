@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.protocol;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * On-heap HttpCacheStorage bounded by the total size of the cached
+ * entries rather than by their number. When the bound is exceeded, 
+ * the least recently used entries are evicted. Entries that are larger
+ * than the bound on their own are not stored.
+ * 
+ * BasicCachingClient limits the size of cached responses to the bound. 
+ * A CacheConfig passed to the client replaces that limit with its own 
+ * max object size, which defaults to only 8 KB.
+ */
+public class LruHeapCacheStorage 
+  extends MeteredCacheStorage {
+
+  public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+  
+  private final long maxBytes;
+  private final LinkedHashMap<String,Slot> entries = 
+    new LinkedHashMap<String,Slot>(16, 0.75f, true);
+  private long bytes;
+  private long evictions;
+  
+  public LruHeapCacheStorage() {
+    this(DEFAULT_MAX_BYTES);
+  }
+  
+  public LruHeapCacheStorage(long maxBytes) {
+    checkArgument(maxBytes > 0);
+    this.maxBytes = maxBytes;
+  }
+  
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+  
+  public long getMaxEntrySize() {
+    return maxBytes;
+  }
+  
+  public synchronized void putEntry(
+    String key, 
+    HttpCacheEntry entry) 
+      throws IOException {
+    remove(key);
+    long size = sizeOf(entry);
+    if (size > maxBytes) return;
+    entries.put(key, new Slot(entry, size));
+    bytes += size;
+    Iterator<Slot> i = entries.values().iterator();
+    while (bytes > maxBytes && i.hasNext()) {
+      bytes -= i.next().size;
+      i.remove();
+      evictions++;
+    }
+  }
+
+  public synchronized HttpCacheEntry getEntry(
+    String key) 
+      throws IOException {
+    Slot slot = entries.get(key);
+    return slot != null ? slot.entry : null;
+  }
+
+  public synchronized void removeEntry(
+    String key) 
+      throws IOException {
+    remove(key);
+  }
+  
+  private void remove(String key) {
+    Slot slot = entries.remove(key);
+    if (slot != null) 
+      bytes -= slot.size;
+  }
+
+  public synchronized void updateEntry(
+    String key, 
+    HttpCacheUpdateCallback callback)
+      throws IOException {
+    HttpCacheEntry entry = callback.update(getEntry(key));
+    if (entry != null)
+      putEntry(key, entry);
+    else remove(key);
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  public synchronized long getBytesCached() {
+    return bytes;
+  }
+
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+  private static final class Slot {
+    final HttpCacheEntry entry;
+    final long size;
+    Slot(HttpCacheEntry entry, long size) {
+      this.entry = entry;
+      this.size = size;
+    }
+  }
+}
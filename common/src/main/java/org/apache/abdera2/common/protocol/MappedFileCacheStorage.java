@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializer;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.impl.client.cache.DefaultHttpCacheEntrySerializer;
+
+import com.google.common.base.Charsets;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * HttpCacheStorage backed by a fixed size memory-mapped file. Cached 
+ * entries live outside of the Java heap and, because the file is reopened
+ * as-is, survive restarts of the application.
+ * 
+ * The file is a simple append log of records, each made up of a status
+ * byte, the key length, the data length, the UTF-8 key and the serialized
+ * entry. Replaced and removed records are marked dead in place. When the
+ * log reaches the end of the file, live records are compacted to the 
+ * front and, if there is still not enough room, the least recently used
+ * entries are evicted. The in-memory index is rebuilt by scanning the log
+ * when the file is opened.
+ * 
+ * Callers should close the storage when it is no longer needed so that
+ * pending changes are forced to disk.
+ * 
+ * BasicCachingClient limits the size of cached responses to what fits 
+ * in the file. A CacheConfig passed to the client replaces that limit 
+ * with its own max object size, which defaults to only 8 KB.
+ */
+public class MappedFileCacheStorage 
+  extends MeteredCacheStorage
+  implements Closeable {
+
+  public static final int DEFAULT_CAPACITY = 64 * 1024 * 1024;
+  
+  private static final int MAGIC = 0xAB2CAC11;
+  private static final int HEADER = 8;
+  private static final int RECORD_HEADER = 9;
+  private static final byte DEAD = 0;
+  private static final byte LIVE = 1;
+  
+  private final RandomAccessFile raf;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final int capacity;
+  private final HttpCacheEntrySerializer serializer;
+  private final LinkedHashMap<String,Slot> index = 
+    new LinkedHashMap<String,Slot>(16, 0.75f, true);
+  private int end;
+  private long bytes;
+  private long evictions;
+  private boolean closed;
+  
+  public MappedFileCacheStorage(File file) throws IOException {
+    this(file, DEFAULT_CAPACITY);
+  }
+  
+  public MappedFileCacheStorage(File file, int capacity) throws IOException {
+    this(file, capacity, new DefaultHttpCacheEntrySerializer());
+  }
+  
+  public MappedFileCacheStorage(
+    File file, 
+    int capacity, 
+    HttpCacheEntrySerializer serializer) 
+      throws IOException {
+    checkNotNull(file);
+    checkArgument(capacity > HEADER + RECORD_HEADER);
+    this.capacity = capacity;
+    this.serializer = checkNotNull(serializer);
+    this.raf = new RandomAccessFile(file, "rw");
+    this.channel = raf.getChannel();
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    if (buffer.getInt(0) == MAGIC) 
+      load();
+    else reset();
+  }
+  
+  public int getCapacity() {
+    return capacity;
+  }
+  
+  public long getMaxEntrySize() {
+    return capacity - HEADER - RECORD_HEADER;
+  }
+  
+  private void reset() {
+    index.clear();
+    bytes = 0;
+    buffer.putInt(0, MAGIC);
+    setEnd(HEADER);
+  }
+  
+  private void setEnd(int end) {
+    this.end = end;
+    buffer.putInt(4, end);
+  }
+  
+  private void load() {
+    int limit = buffer.getInt(4);
+    if (limit < HEADER || limit > capacity) {
+      reset();
+      return;
+    }
+    int pos = HEADER;
+    while (pos < limit) {
+      if (limit - pos < RECORD_HEADER) break;
+      byte status = buffer.get(pos);
+      int klen = buffer.getInt(pos + 1);
+      int dlen = buffer.getInt(pos + 5);
+      if (klen < 0 || dlen < 0 || 
+          (long)pos + RECORD_HEADER + klen + dlen > limit)
+        break; // truncated record, drop it and anything after it
+      int len = RECORD_HEADER + klen + dlen;
+      if (status == LIVE) {
+        Slot prev = index.put(readKey(pos, klen), new Slot(pos, len));
+        if (prev != null) 
+          kill(prev);
+        bytes += len;
+      }
+      pos += len;
+    }
+    setEnd(pos);
+  }
+  
+  private String readKey(int pos, int klen) {
+    byte[] key = new byte[klen];
+    read(pos + RECORD_HEADER, key);
+    return new String(key, Charsets.UTF_8);
+  }
+  
+  private void read(int pos, byte[] dst) {
+    ByteBuffer buf = buffer.duplicate();
+    buf.position(pos);
+    buf.get(dst);
+  }
+  
+  private void write(int pos, byte[] src) {
+    ByteBuffer buf = buffer.duplicate();
+    buf.position(pos);
+    buf.put(src);
+  }
+  
+  private void kill(Slot slot) {
+    buffer.put(slot.offset, DEAD);
+    bytes -= slot.length;
+  }
+  
+  private void checkOpen() throws IOException {
+    if (closed) 
+      throw new IOException("Cache storage is closed");
+  }
+
+  public synchronized void putEntry(
+    String key, 
+    HttpCacheEntry entry) 
+      throws IOException {
+    checkOpen();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializer.writeTo(entry, out);
+    byte[] data = out.toByteArray();
+    byte[] kdata = key.getBytes(Charsets.UTF_8);
+    remove(key);
+    long len = (long)RECORD_HEADER + kdata.length + data.length;
+    if (len > capacity - HEADER) return;
+    if (end + len > capacity) {
+      Iterator<Slot> i = index.values().iterator();
+      while (bytes + len > capacity - HEADER && i.hasNext()) {
+        kill(i.next());
+        i.remove();
+        evictions++;
+      }
+      compact();
+    }
+    int pos = end;
+    buffer.put(pos, LIVE);
+    buffer.putInt(pos + 1, kdata.length);
+    buffer.putInt(pos + 5, data.length);
+    write(pos + RECORD_HEADER, kdata);
+    write(pos + RECORD_HEADER + kdata.length, data);
+    index.put(key, new Slot(pos, (int)len));
+    bytes += len;
+    setEnd(pos + (int)len);
+  }
+  
+  /**
+   * Moves all live records to the front of the file, preserving
+   * their order and the recency order of the index
+   */
+  private void compact() {
+    Map<Integer,Slot> slots = new HashMap<Integer,Slot>(index.size());
+    for (Slot slot : index.values())
+      slots.put(slot.offset, slot);
+    int pos = HEADER, dst = HEADER;
+    while (pos < end) {
+      int len = RECORD_HEADER + 
+        buffer.getInt(pos + 1) + 
+        buffer.getInt(pos + 5);
+      Slot slot = slots.get(pos);
+      if (slot != null) {
+        if (dst != pos) {
+          byte[] record = new byte[len];
+          read(pos, record);
+          write(dst, record);
+          slot.offset = dst;
+        }
+        dst += len;
+      }
+      pos += len;
+    }
+    setEnd(dst);
+  }
+
+  public synchronized HttpCacheEntry getEntry(
+    String key) 
+      throws IOException {
+    checkOpen();
+    Slot slot = index.get(key);
+    if (slot == null) return null;
+    int klen = buffer.getInt(slot.offset + 1);
+    byte[] data = new byte[buffer.getInt(slot.offset + 5)];
+    read(slot.offset + RECORD_HEADER + klen, data);
+    try {
+      return serializer.readFrom(new ByteArrayInputStream(data));
+    } catch (IOException e) {
+      // most likely written by an incompatible version, 
+      // treat it as a cache miss
+      remove(key);
+      return null;
+    }
+  }
+
+  public synchronized void removeEntry(
+    String key) 
+      throws IOException {
+    checkOpen();
+    remove(key);
+  }
+  
+  private void remove(String key) {
+    Slot slot = index.remove(key);
+    if (slot != null) 
+      kill(slot);
+  }
+
+  public synchronized void updateEntry(
+    String key, 
+    HttpCacheUpdateCallback callback)
+      throws IOException {
+    HttpCacheEntry entry = callback.update(getEntry(key));
+    if (entry != null)
+      putEntry(key, entry);
+    else remove(key);
+  }
+
+  public synchronized int getEntryCount() {
+    return index.size();
+  }
+
+  public synchronized long getBytesCached() {
+    return bytes;
+  }
+
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+  
+  /**
+   * Forces any pending changes to disk
+   */
+  public synchronized void flush() {
+    if (!closed)
+      buffer.force();
+  }
+
+  public synchronized void close() throws IOException {
+    if (closed) return;
+    buffer.force();
+    closed = true;
+    channel.close();
+    raf.close();
+  }
+  
+  private static final class Slot {
+    int offset;
+    final int length;
+    Slot(int offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.protocol;
+
+import org.apache.http.Header;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheStorage;
+
+/**
+ * Base class for HttpCacheStorage implementations that keep track of 
+ * how much they hold and how many entries they have had to evict. 
+ * BasicCachingClient reports these figures through its CacheStats
+ */
+public abstract class MeteredCacheStorage 
+  implements HttpCacheStorage {
+
+  /**
+   * The number of entries currently held
+   */
+  public abstract int getEntryCount();
+  
+  /**
+   * The approximate number of bytes currently held
+   */
+  public abstract long getBytesCached();
+  
+  /**
+   * The number of entries removed to make room for new ones
+   */
+  public abstract long getEvictionCount();
+  
+  /**
+   * The size of the largest entry the storage will hold. Unless given 
+   * a CacheConfig, BasicCachingClient uses this as the maximum object size
+   */
+  public abstract long getMaxEntrySize();
+  
+  /**
+   * Estimates the in-memory size of a cache entry as the length of
+   * the cached content plus that of the status line and headers
+   */
+  protected static long sizeOf(HttpCacheEntry entry) {
+    long size = 
+      entry.getResource() != null ? 
+        entry.getResource().length() : 0;
+    size += entry.getStatusLine().toString().length();
+    for (Header header : entry.getAllHeaders())
+      size += header.getName().length() + 
+              header.getValue().length() + 4;
+    return size;
+  }
+}
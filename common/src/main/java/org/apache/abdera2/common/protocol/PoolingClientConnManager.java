@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.common.protocol;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.params.ConnPerRoute;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.tsccm.ConnPoolByRoute;
+import org.apache.http.impl.conn.tsccm.RouteSpecificPool;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * ThreadSafeClientConnManager that adds per-host limits, periodic
+ * eviction of expired and idle connections and usage statistics 
+ * for the pool as a whole and for individual routes. Per-route limits
+ * take precedence over per-host limits, which take precedence over 
+ * the default maximum per route. A per-host limit is applied to each 
+ * route to the host on its own rather than shared between them, so 
+ * plain, secure and proxied routes to a host each get the full limit.
+ */
+public class PoolingClientConnManager 
+  extends ThreadSafeClientConnManager {
+
+  private final ConcurrentMap<HttpRoute,Integer> routeMax = 
+    new ConcurrentHashMap<HttpRoute,Integer>();
+  private final ConcurrentMap<String,Integer> hostMax = 
+    new ConcurrentHashMap<String,Integer>();
+  private final long idleTimeout;
+  private final ScheduledFuture<?> evictor;
+  
+  /**
+   * Runs the eviction of every connection manager. A single daemon 
+   * thread is shared so that managers that are never shut down do not 
+   * leave threads behind
+   */
+  private static final class Evictions {
+    static final ScheduledExecutorService scheduler = 
+      Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("abdera-connection-evictor-%d")
+          .build());
+  }
+  
+  public PoolingClientConnManager(SchemeRegistry sr) {
+    this(sr, ConnectionPoolOptions.make().get());
+  }
+  
+  public PoolingClientConnManager(
+    SchemeRegistry sr, 
+    ConnectionPoolOptions options) {
+      super(sr, checkNotNull(options).getTimeToLive(), TimeUnit.MILLISECONDS);
+      setMaxTotal(options.getMaxTotal());
+      setDefaultMaxPerRoute(options.getMaxPerRoute());
+      hostMax.putAll(options.getMaxForHosts());
+      routeMax.putAll(options.getMaxForRoutes());
+      this.idleTimeout = options.getIdleTimeout();
+      long interval = options.getEvictionInterval();
+      evictor = interval > 0 ?
+        Evictions.scheduler.scheduleWithFixedDelay(
+          new Evictor(this), 
+          interval, 
+          interval, 
+          TimeUnit.MILLISECONDS) : 
+        null;
+  }
+
+  @Override
+  protected ConnPoolByRoute createConnectionPool(
+    long connTTL,
+    TimeUnit connTTLTimeUnit) {
+      // called from the super constructor, the ConnPerRoute only 
+      // consults the limits once requests start coming in
+      return new MeteredPool(
+        connOperator, 
+        new ConnPerRoute() {
+          public int getMaxForRoute(HttpRoute route) {
+            return maxFor(route);
+          }
+        }, 
+        20, 
+        connTTL, 
+        connTTLTimeUnit);
+  }
+  
+  private int maxFor(HttpRoute route) {
+    Integer max = routeMax.get(route);
+    if (max == null && route.getTargetHost() != null)
+      max = hostMax.get(route.getTargetHost().getHostName().toLowerCase());
+    return max != null ? max : connPerRoute.getMaxForRoute(route);
+  }
+  
+  @Override
+  public int getMaxForRoute(HttpRoute route) {
+    return maxFor(checkNotNull(route));
+  }
+
+  @Override
+  public void setMaxForRoute(HttpRoute route, int max) {
+    checkArgument(max > 0);
+    routeMax.put(checkNotNull(route), max);
+  }
+  
+  /**
+   * Return the maximum number of connections for each route to the given
+   * host, or -1 if no host specific limit has been set
+   */
+  public int getMaxForHost(String host) {
+    Integer max = hostMax.get(checkNotNull(host).toLowerCase());
+    return max != null ? max : -1;
+  }
+  
+  /**
+   * Set the maximum number of connections for each route to the given 
+   * host. Routes to the host do not share the limit, each may open up to
+   * max connections
+   */
+  public void setMaxForHost(String host, int max) {
+    checkArgument(max > 0);
+    hostMax.put(checkNotNull(host).toLowerCase(), max);
+  }
+
+  /**
+   * Return a snapshot of the usage of the entire pool
+   */
+  public ConnectionPoolStats getStats() {
+    return ((MeteredPool)pool).stats();
+  }
+  
+  /**
+   * Return a snapshot of the usage of a single route
+   */
+  public ConnectionPoolStats getStats(HttpRoute route) {
+    return ((MeteredPool)pool).stats(checkNotNull(route));
+  }
+  
+  /**
+   * Close expired connections and, if an idle timeout has been configured,
+   * connections that have been idle for longer than the timeout. This is
+   * called periodically when an eviction interval has been set.
+   */
+  public void evict() {
+    closeExpiredConnections();
+    if (idleTimeout > 0)
+      closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+  }
+  
+  @Override
+  public void shutdown() {
+    if (evictor != null)
+      evictor.cancel(false);
+    super.shutdown();
+  }
+  
+  /**
+   * Only weakly references the connection manager so that a client 
+   * that is discarded without being shutdown can be collected, at which
+   * point its eviction is no longer scheduled
+   */
+  private static final class Evictor implements Runnable {
+    private final WeakReference<PoolingClientConnManager> ref;
+    Evictor(PoolingClientConnManager cm) {
+      this.ref = new WeakReference<PoolingClientConnManager>(cm);
+    }
+    public void run() {
+      PoolingClientConnManager cm = ref.get();
+      if (cm == null) 
+        throw new IllegalStateException(); // cancels the schedule
+      cm.evict();
+    }
+  }
+  
+  private static final class MeteredPool 
+    extends ConnPoolByRoute {
+    
+    MeteredPool(
+      ClientConnectionOperator operator,
+      ConnPerRoute connPerRoute, 
+      int maxTotalConnections, 
+      long connTTL,
+      TimeUnit connTTLTimeUnit) {
+      super(
+        operator, 
+        connPerRoute, 
+        maxTotalConnections, 
+        connTTL, 
+        connTTLTimeUnit);
+    }
+
+    @Override
+    protected RouteSpecificPool newRouteSpecificPool(HttpRoute route) {
+      return new MeteredRoutePool(route, connPerRoute);
+    }
+    
+    ConnectionPoolStats stats() {
+      getLock().lock();
+      try {
+        return new ConnectionPoolStats(
+          leasedConnections.size(), 
+          waitingThreads.size(), 
+          freeConnections.size(), 
+          maxTotalConnections);
+      } finally {
+        getLock().unlock();
+      }
+    }
+    
+    ConnectionPoolStats stats(HttpRoute route) {
+      getLock().lock();
+      try {
+        MeteredRoutePool rp = 
+          (MeteredRoutePool) getRoutePool(route, false);
+        int max = connPerRoute.getMaxForRoute(route);
+        return rp != null ? 
+          new ConnectionPoolStats(
+            rp.leased(),
+            rp.pending(),
+            rp.available(),
+            max) : 
+          new ConnectionPoolStats(0,0,0,max);
+      } finally {
+        getLock().unlock();
+      }
+    }
+  }
+  
+  private static final class MeteredRoutePool 
+    extends RouteSpecificPool {
+    MeteredRoutePool(HttpRoute route, ConnPerRoute connPerRoute) {
+      super(route, connPerRoute);
+    }
+    int leased() {
+      return numEntries - freeEntries.size();
+    }
+    int pending() {
+      return waitingThreads.size();
+    }
+    int available() {
+      return freeEntries.size();
+    }
+  }
+}
@@ -23,7 +23,6 @@ import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import org.apache.abdera2.common.http.Method;
 import org.apache.abdera2.common.http.ResponseType;
@@ -43,6 +42,7 @@ import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.DefaultedHttpContext;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
@@ -463,6 +463,19 @@ public class Session {
         String uri, 
         HttpEntity entity, 
         RequestOptions options) {
+      return (T)execute(method, uri, entity, options, localContext);
+    }
+    
+    /**
+     * Sends the request using the given HttpContext rather than the 
+     * session's own context
+     */
+    protected <T extends ClientResponse>T execute(
+        String method, 
+        String uri, 
+        HttpEntity entity, 
+        RequestOptions options,
+        HttpContext context) {
         options =
           options != null ? 
             options : 
@@ -473,10 +486,10 @@ public class Session {
             RequestHelper.createRequest(
                 method, uri, entity, options);
           HttpResponse response = 
-            getClient().execute(request, localContext);
+            getClient().execute(request, context);
           ClientResponse resp = 
             wrap(new ClientResponseImpl(
-              this, response, method, localContext));
+              this, response, method, context));
           return (T)checkRequestException(resp, options);
         } catch (RuntimeException r) {
             throw r;
@@ -497,6 +510,51 @@ public class Session {
         };
     }
     
+    /**
+     * Sends the request asynchronously using the client's executor. The 
+     * returned future can be composed using Guava's Futures utilities. 
+     * Unlike the other asynchronous methods, each request gets its own 
+     * HttpContext that falls back to the session context for anything 
+     * it does not set itself (e.g. the preemptive authentication cache), 
+     * so multiple asynchronous requests may be in flight on the same 
+     * session at once. The caller is responsible for releasing the 
+     * response.
+     */
+    public <T extends ClientResponse>ListenableFuture<T> executeAsync(
+      final String method, 
+      final String uri, 
+      final HttpEntity entity, 
+      final RequestOptions options) {
+        return client.getExecutor().submit(
+          new Callable<T>() {
+            public T call() throws Exception {
+              HttpContext context = 
+                new DefaultedHttpContext(
+                  new BasicHttpContext(), 
+                  localContext);
+              return (T) execute(method,uri,entity,options,context);
+            }
+          });
+    }
+    
+    public <T extends ClientResponse>ListenableFuture<T> executeAsync(
+      Method method, 
+      String uri, 
+      HttpEntity entity, 
+      RequestOptions options) {
+        return executeAsync(method.name(),uri,entity,options);
+    }
+    
+    public <T extends ClientResponse>ListenableFuture<T> getAsync(
+      String uri, 
+      RequestOptions options) {
+        return executeAsync("GET",uri,(HttpEntity)null,options);
+    }
+    
+    public <T extends ClientResponse>ListenableFuture<T> getAsync(String uri) {
+      return getAsync(uri, getDefaultRequestOptions().get());
+    }
+    
     protected <T extends ClientResponse>T checkRequestException(ClientResponse response, RequestOptions options) {
       if (response == null)
           return (T)response;
@@ -589,7 +647,7 @@ public class Session {
    * Processes requests asynchronously.. will return a Future
    * whose value will be set once the call completes
    */
-  public <X extends ClientResponse>Future<X> process(
+  public <X extends ClientResponse>ListenableFuture<X> process(
     ExecutorService executor, 
     Callable<X> resp) {
       ListeningExecutorService exec = 
@@ -639,13 +697,13 @@ public class Session {
     process(exec,this.<T>getTask(uri,options),listener);
   }
   
-  public <T extends ClientResponse>Future<T> get(
+  public <T extends ClientResponse>ListenableFuture<T> get(
     String uri, 
     ExecutorService exec) {
       return process(exec,this.<T>getTask(uri));
   }
   
-  public <T extends ClientResponse>Future<T> get(
+  public <T extends ClientResponse>ListenableFuture<T> get(
     String uri, 
     RequestOptions options,
     ExecutorService exec) {
@@ -669,14 +727,14 @@ public class Session {
     process(exec,this.<T>postTask(uri,in,options),listener);
   }
   
-  public <T extends ClientResponse>Future<T> post(
+  public <T extends ClientResponse>ListenableFuture<T> post(
     String uri, 
     InputStream in,
     ExecutorService exec) {
       return process(exec,this.<T>postTask(uri,in));
   }
   
-  public <T extends ClientResponse>Future<T> post(
+  public <T extends ClientResponse>ListenableFuture<T> post(
     String uri, 
     InputStream in,
     RequestOptions options,
@@ -701,14 +759,14 @@ public class Session {
     process(exec,this.<T>postTask(uri,in,options),listener);
   }
   
-  public <T extends ClientResponse>Future<T> post(
+  public <T extends ClientResponse>ListenableFuture<T> post(
     String uri, 
     HttpEntity in,
     ExecutorService exec) {
       return process(exec,this.<T>postTask(uri,in));
   }
   
-  public <T extends ClientResponse>Future<T> post(
+  public <T extends ClientResponse>ListenableFuture<T> post(
     String uri, 
     HttpEntity in,
     RequestOptions options,
@@ -734,14 +792,14 @@ public class Session {
       process(exec,this.<T>putTask(uri,in,options),listener);
     }
     
-    public <T extends ClientResponse>Future<T> put(
+    public <T extends ClientResponse>ListenableFuture<T> put(
       String uri, 
       InputStream in,
       ExecutorService exec) {
         return process(exec,this.<T>putTask(uri,in));
     }
     
-    public <T extends ClientResponse>Future<T> put(
+    public <T extends ClientResponse>ListenableFuture<T> put(
       String uri, 
       InputStream in,
       RequestOptions options,
@@ -766,14 +824,14 @@ public class Session {
       process(exec,this.<T>putTask(uri,in,options),listener);
     }
     
-    public <T extends ClientResponse>Future<T> put(
+    public <T extends ClientResponse>ListenableFuture<T> put(
       String uri, 
       HttpEntity in,
       ExecutorService exec) {
         return process(exec,this.<T>putTask(uri,in));
     }
     
-    public <T extends ClientResponse>Future<T> put(
+    public <T extends ClientResponse>ListenableFuture<T> put(
       String uri, 
       HttpEntity in,
       RequestOptions options,
@@ -796,13 +854,13 @@ public class Session {
       process(exec,this.<T>deleteTask(uri,options),listener);
     }
     
-    public <T extends ClientResponse>Future<T> delete(
+    public <T extends ClientResponse>ListenableFuture<T> delete(
       String uri, 
       ExecutorService exec) {
         return process(exec,this.<T>deleteTask(uri));
     }
     
-    public <T extends ClientResponse>Future<T> delete(
+    public <T extends ClientResponse>ListenableFuture<T> delete(
       String uri, 
       RequestOptions options,
       ExecutorService exec) {
@@ -824,13 +882,13 @@ public class Session {
       process(exec,this.<T>headTask(uri,options),listener);
     }
     
-    public <T extends ClientResponse>Future<T> head(
+    public <T extends ClientResponse>ListenableFuture<T> head(
       String uri, 
       ExecutorService exec) {
         return process(exec,this.<T>headTask(uri));
     }
     
-    public <T extends ClientResponse>Future<T> head(
+    public <T extends ClientResponse>ListenableFuture<T> head(
       String uri, 
       RequestOptions options,
       ExecutorService exec) {
@@ -858,7 +916,7 @@ public class Session {
       process(exec,this.<T>executeTask(method,uri,in,options),listener);
     }
     
-    public <T extends ClientResponse>Future<T> execute(
+    public <T extends ClientResponse>ListenableFuture<T> execute(
       String method, 
       String uri, 
       InputStream in, 
@@ -867,7 +925,7 @@ public class Session {
         return process(exec,this.<T>executeTask(method,uri,in,options));
     }
     
-    public <T extends ClientResponse>Future<T> execute(
+    public <T extends ClientResponse>ListenableFuture<T> execute(
       String method, 
       String uri, 
       HttpEntity in, 
@@ -896,7 +954,7 @@ public class Session {
       process(exec,this.<T>executeTask(method,uri,in,options),listener);
     }
     
-    public <T extends ClientResponse>Future<T> execute(
+    public <T extends ClientResponse>ListenableFuture<T> execute(
       Method method, 
       String uri, 
       InputStream in, 
@@ -905,7 +963,7 @@ public class Session {
         return process(exec,this.<T>executeTask(method,uri,in,options));
     }
     
-    public <T extends ClientResponse>Future<T> execute(
+    public <T extends ClientResponse>ListenableFuture<T> execute(
       Method method, 
       String uri, 
       HttpEntity in, 
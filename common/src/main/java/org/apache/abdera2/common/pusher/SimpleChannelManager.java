@@ -17,12 +17,40 @@
  */
 package org.apache.abdera2.common.pusher;
 
+import java.util.Map;
+
+/**
+ * ChannelManager that creates a SimplePusher for each channel. The 
+ * "workers", "capacity" and "batchSize" properties passed to init 
+ * configure the pushers created for new channels
+ */
 public class SimpleChannelManager 
   extends MapChannelManager {
 
+  private int workers = SimplePusher.DEFAULT_WORKERS;
+  private int capacity = SimplePusher.DEFAULT_CAPACITY;
+  private int batchSize = SimplePusher.DEFAULT_BATCH_SIZE;
+  
+  @Override
+  public void init(Map<String,Object> properties) {
+    super.init(properties);
+    if (properties == null) return;
+    workers = intValue(properties.get("workers"), workers);
+    capacity = intValue(properties.get("capacity"), capacity);
+    batchSize = intValue(properties.get("batchSize"), batchSize);
+  }
+  
+  private static int intValue(Object value, int def) {
+    return value instanceof Number ? 
+      ((Number)value).intValue() : 
+      value != null ? 
+        Integer.parseInt(value.toString()) : 
+        def;
+  }
+  
   @SuppressWarnings("rawtypes")
   protected Channel createChannel() {
-    final SimplePusher<?> sp = new SimplePusher();
+    final SimplePusher<?> sp = new SimplePusher(workers,capacity,batchSize);
     return new Channel(sp,sp) {
       protected void shutdown() {
         sp.shutdown();
@@ -17,89 +17,463 @@
  */
 package org.apache.abdera2.common.pusher;
 
-
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.abdera2.common.misc.ExceptionHelper;
 import org.apache.abdera2.common.misc.MoreExecutors2;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Pusher/Receiver implementation that delivers items to listeners in
+ * process. Pushed items are held in a bounded buffer; once the buffer is
+ * full, push blocks until listeners catch up. A single dispatcher thread
+ * drains the buffer in batches and hands each batch to every registered 
+ * listener. Items pushed while there are no listeners are held until
+ * one registers, but push never waits for a listener: once the buffer is
+ * full the oldest held item is dropped to make room for the new one. 
+ * Listeners are run on a fixed pool of worker threads and each listener
+ * sees items in the order they were pushed. A slow listener does not
+ * delay deliveries to the others, but the buffer is shared: an item's 
+ * capacity is only returned once every listener has received it, so a 
+ * listener that stalls eventually blocks push for everyone.
+ */
 public class SimplePusher<T> 
   extends AbstractPusher<T> implements Pusher<T>, Receiver<T> {
 
   final static Log log = LogFactory.getLog(SimplePusher.class);
   
-  final Queue<T> queue = new ConcurrentLinkedQueue<T>();
-  final ExecutorService exec = MoreExecutors2.getExitingExecutor();
-  final Set<Listener<T>> listeners = 
-    new HashSet<Listener<T>>();
+  public static final int DEFAULT_WORKERS = 
+    Runtime.getRuntime().availableProcessors();
+  public static final int DEFAULT_CAPACITY = 10000;
+  public static final int DEFAULT_BATCH_SIZE = 100;
+  
+  // how often a blocked push checks whether the last listener has gone
+  private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  
+  private final int capacity;
+  private final int batchSize;
+  private final BlockingQueue<Item<T>> queue = 
+    new LinkedBlockingQueue<Item<T>>();
+  private final Semaphore permits;
+  private final ExecutorService dispatcher = 
+    MoreExecutors2.getExitingFixedExecutor(1);
+  private final ExecutorService workers;
+  private final Set<ListenerQueue<T>> listeners = 
+    new CopyOnWriteArraySet<ListenerQueue<T>>();
+  private volatile boolean running = true;
+  // the items the dispatcher has taken from the queue while it waits for
+  // a listener, guarded by listeners
+  private List<Item<T>> held;
+  
+  private final AtomicLong pushed = new AtomicLong();
+  private final AtomicLong dispatched = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong deliveries = new AtomicLong();
+  private final AtomicLong totalLatency = new AtomicLong();
+  private final AtomicLong maxLatency = new AtomicLong();
+  
+  public SimplePusher() {
+    this(DEFAULT_WORKERS, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+  }
+  
+  /**
+   * @param workers The number of threads used to deliver items to listeners
+   * @param capacity The maximum number of items that may be pending delivery
+   * before push blocks
+   * @param batchSize The maximum number of items handed to a listener at once
+   */
+  public SimplePusher(int workers, int capacity, int batchSize) {
+    checkArgument(workers > 0, "Worker count must be positive");
+    checkArgument(capacity > 0, "Capacity must be positive");
+    checkArgument(batchSize > 0, "Batch size must be positive");
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.permits = new Semaphore(capacity);
+    this.workers = MoreExecutors2.getExitingFixedExecutor(workers);
+    dispatcher.execute(new Dispatcher());
+  }
   
   public void startListening(Listener<T> listener) {
     listener.beforeItems();
-    listeners.add(listener);
+    synchronized(listeners) {
+      listeners.add(new ListenerQueue<T>(this,listener));
+      listeners.notifyAll();
+    }
   }
   
   public void stopListening(Listener<T> listener) {
-    listener.afterItems();
-    listeners.remove(listener);
+    ListenerQueue<T> queue = null;
+    for (ListenerQueue<T> q : listeners) {
+      if (q.listener.equals(listener)) {
+        queue = q;
+        break;
+      }
+    }
+    // only notify the listener once, even if afterItems calls
+    // stopListening in turn
+    if (queue != null && listeners.remove(queue)) {
+      queue.close();
+      listener.afterItems();
+    }
   }
   
+  /**
+   * Push the item, blocking while the pusher is at capacity. If there
+   * are no listeners the call does not block; the oldest held item is
+   * dropped instead
+   */
   public void push(T entry) {
-    queue.add(entry);    
+    checkNotNull(entry);
+    checkState(running, "Pusher has been shut down");
+    try {
+      if (!acquire(-1)) {
+        dropped.incrementAndGet();
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw ExceptionHelper.propogate(e);
+    }
+    enqueue(entry);
+  }
+  
+  /**
+   * Push the item, waiting up to the given timeout for capacity to 
+   * become available. Returns false if the item was not accepted
+   */
+  public boolean offer(T entry, long timeout, TimeUnit unit) 
+    throws InterruptedException {
+      checkNotNull(entry);
+      checkState(running, "Pusher has been shut down");
+      if (!acquire(unit.toNanos(timeout)))
+        return false;
+      enqueue(entry);
+      return true;
+  }
+  
+  /**
+   * Take a unit of capacity, waiting up to the given number of nanos
+   * (forever if negative). Nobody drains the buffer while there are no
+   * listeners, so rather than wait in that case the slot held by the 
+   * oldest undispatched item, whether still queued or already taken by
+   * the dispatcher, is reused. Returns false if no capacity could be had
+   */
+  private boolean acquire(long nanos) throws InterruptedException {
+    long deadline = System.nanoTime() + nanos;
+    for(;;) {
+      if (permits.tryAcquire())
+        return true;
+      if (reclaim()) {
+        dropped.incrementAndGet();
+        return true;
+      }
+      long wait = RECHECK_NANOS;
+      if (nanos >= 0) {
+        wait = Math.min(wait, deadline - System.nanoTime());
+        if (wait <= 0)
+          return false;
+      }
+      if (permits.tryAcquire(wait, TimeUnit.NANOSECONDS))
+        return true;
+    }
+  }
+  
+  /**
+   * Discard the oldest undispatched item if nobody is listening. Its 
+   * slot passes to the caller. The dispatcher's items are older than 
+   * those still queued
+   */
+  private boolean reclaim() {
+    synchronized(listeners) {
+      if (!listeners.isEmpty())
+        return false;
+      if (held != null && !held.isEmpty()) {
+        held.remove(0);
+        return true;
+      }
+      return queue.poll() != null;
+    }
+  }
+  
+  private void enqueue(T entry) {
+    if (!running) {
+      // shut down while waiting for capacity
+      permits.release();
+      throw new IllegalStateException("Pusher has been shut down");
+    }
+    pushed.incrementAndGet();
+    queue.add(new Item<T>(entry));
   }
  
   public boolean isRunning() {
-    return !exec.isShutdown() && 
-           !exec.isTerminated();
+    return running;
   }
   
-  public SimplePusher() {
-    exec.execute(
-      new Runnable() {
-        public void run() {
-          while(isRunning()) {
-            if (!queue.isEmpty()) {
-              final T el = queue.poll();
-              if (el != null) {
-                log.info("Processing item...");
+  /**
+   * The number of items that have been pushed but not yet delivered to
+   * every listener
+   */
+  public int getQueueDepth() {
+    return capacity - permits.availablePermits();
+  }
+  
+  public int getCapacity() {
+    return capacity;
+  }
+  
+  /**
+   * The total number of items accepted by push
+   */
+  public long getPushedCount() {
+    return pushed.get();
+  }
+  
+  /**
+   * The total number of items dropped because they were pushed while
+   * the pusher was full and nobody was listening
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+  
+  /**
+   * The total number of items the dispatcher has handed to listeners
+   */
+  public long getDispatchedCount() {
+    return dispatched.get();
+  }
+  
+  /**
+   * The average time between an item being pushed and a listener 
+   * receiving it
+   */
+  public long getAverageDispatchLatency(TimeUnit unit) {
+    long count = deliveries.get();
+    return count > 0 ? 
+      unit.convert(totalLatency.get() / count, TimeUnit.NANOSECONDS) : 0;
+  }
+  
+  /**
+   * The longest time between an item being pushed and a listener 
+   * receiving it
+   */
+  public long getMaxDispatchLatency(TimeUnit unit) {
+    return unit.convert(maxLatency.get(), TimeUnit.NANOSECONDS);
+  }
+  
+  private void recordLatency(long nanos) {
+    deliveries.incrementAndGet();
+    totalLatency.addAndGet(nanos);
+    long max = maxLatency.get();
+    while (nanos > max && !maxLatency.compareAndSet(max, nanos))
+      max = maxLatency.get();
+  }
+  
+  public void shutdown() {
+    running = false;
+    dispatcher.shutdownNow();
+    workers.shutdown();
+    // wake any pushers blocked waiting for capacity
+    permits.release(capacity);
+    for (ListenerQueue<T> listener : listeners)
+      stopListening(listener.listener);
+  }
+  
+  private static final class Item<T> {
+    final T item;
+    final long pushed = System.nanoTime();
+    Item(T item) {
+      this.item = item;
+    }
+  }
+  
+  /**
+   * A batch of items that is handed to each listener. The batch's
+   * capacity is returned to the pusher once all listeners are done with it
+   */
+  private static final class Batch<T> {
+    final List<Item<T>> items;
+    final AtomicInteger remaining;
+    Batch(List<Item<T>> items, int listeners) {
+      this.items = items;
+      this.remaining = new AtomicInteger(listeners);
+    }
+  }
+  
+  private final class Dispatcher implements Runnable {
+    public void run() {
+      List<Item<T>> items = new ArrayList<Item<T>>(batchSize);
+      while(running) {
+        try {
+          items.add(queue.take());
+        } catch (InterruptedException e) {
+          break;
+        }
+        queue.drainTo(items, batchSize - 1);
+        try {
+          awaitListeners(items);
+        } catch (InterruptedException e) {
+          break;
+        }
+        // pushers may have reclaimed every item while nobody listened
+        if (!items.isEmpty())
+          dispatch(new ArrayList<Item<T>>(items));
+        items.clear();
+      }
+    }
+    
+    /**
+     * Items pushed before anyone is listening are held (subject to the
+     * pusher's capacity) until the first listener arrives. While waiting
+     * the items are exposed to reclaim
+     */
+    private void awaitListeners(List<Item<T>> items) 
+      throws InterruptedException {
+        synchronized(listeners) {
+          held = items;
+          try {
+            while (running && listeners.isEmpty())
+              listeners.wait();
+          } finally {
+            held = null;
+          }
+        }
+    }
+    
+    private void dispatch(List<Item<T>> items) {
+      dispatched.addAndGet(items.size());
+      // hold a reference while fanning out so the batch cannot be
+      // released before it has been handed to every listener
+      Batch<T> batch = new Batch<T>(items, 1);
+      for (ListenerQueue<T> listener : listeners) {
+        batch.remaining.incrementAndGet();
+        try {
+          listener.enqueue(batch);
+        } catch (Throwable t) {
+          log.error(t);
+          release(batch);
+        }
+      }
+      release(batch);
+    }
+  }
+  
+  private void release(Batch<T> batch) {
+    if (batch.remaining.decrementAndGet() == 0)
+      permits.release(batch.items.size());
+  }
+  
+  /**
+   * Serializes the delivery of batches to a single listener. At most one
+   * worker is draining a given listener's queue at any time, which 
+   * preserves the order of items for that listener
+   */
+  private static final class ListenerQueue<T> implements Runnable {
+    final SimplePusher<T> pusher;
+    final Listener<T> listener;
+    final Queue<Batch<T>> pending = 
+      new ConcurrentLinkedQueue<Batch<T>>();
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    volatile boolean closed;
+    
+    ListenerQueue(SimplePusher<T> pusher, Listener<T> listener) {
+      this.pusher = pusher;
+      this.listener = listener;
+    }
+    
+    void enqueue(Batch<T> batch) {
+      pending.add(batch);
+      // the dispatcher may still be fanning out to a listener that 
+      // has just been removed
+      if (closed)
+        discard();
+      else
+        schedule();
+    }
+    
+    /**
+     * Stop delivering to the listener. Pending batches are discarded and
+     * an onItem call already in progress is allowed to finish first, so 
+     * the listener sees no items once this returns
+     */
+    void close() {
+      closed = true;
+      synchronized(this) {
+        discard();
+      }
+    }
+    
+    private void discard() {
+      Batch<T> batch;
+      while((batch = pending.poll()) != null)
+        pusher.release(batch);
+    }
+    
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        try {
+          pusher.workers.execute(this);
+        } catch (Throwable t) {
+          scheduled.set(false);
+          throw ExceptionHelper.propogate(t);
+        }
+      }
+    }
+    
+    public void run() {
+      try {
+        Batch<T> batch;
+        while(!closed && (batch = pending.poll()) != null) {
+          try {
+            for (Item<T> item : batch.items) {
+              synchronized(this) {
+                if (closed) break;
+                pusher.recordLatency(System.nanoTime() - item.pushed);
                 try {
-                  exec.execute(new Runnable() {
-                    public void run() {
-                      for (final Listener<T> l : listeners) {
-                        try {
-                          exec.execute(new Runnable() {
-                            public void run() { 
-                              try {
-                                l.onItem(el);
-                              } catch (Throwable t) {
-                                log.error(t);
-                              }
-                            }
-                          });
-                        } catch (Throwable t) {
-                          log.error(t);
-                        }
-                      }
-                    }
-                  });
+                  listener.onItem(item.item);
                 } catch (Throwable t) {
                   log.error(t);
                 }
               }
             }
+          } finally {
+            pusher.release(batch);
           }
         }
+      } finally {
+        scheduled.set(false);
       }
-    );
-  }
-  
-  public void shutdown() {
-    for (Listener<?> listener : listeners)
-      listener.afterItems();
-    listeners.clear(); // remove all the listeners
+      // a batch may have been added after the queue was drained but 
+      // before the flag was cleared
+      if (!closed && !pending.isEmpty())
+        schedule();
+    }
+    
+    @Override
+    public int hashCode() {
+      return listener.hashCode();
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ListenerQueue && 
+        ((ListenerQueue<?>)obj).listener.equals(listener);
+    }
   }
 }
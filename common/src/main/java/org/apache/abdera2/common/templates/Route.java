@@ -47,6 +47,12 @@ public class Route<T> implements Iterable<String>, Cloneable, Serializable {
     private final String[] variables;
     private final Pattern regexMatch;
     private final Pattern regexParse;
+    // the pattern is compiled once into the literal text surrounding each
+    // variable token, the expression used to evaluate the token and the
+    // variable name used to look up its default value
+    private final String[] literals;
+    private final Expression[] slots;
+    private final String[] slotVariables;
 
     private Map<String, String> requirements;
 
@@ -65,6 +71,21 @@ public class Route<T> implements Iterable<String>, Cloneable, Serializable {
         this.requirements = requirements;
         this.regexMatch = initRegexMatch();
         this.regexParse = initRegexParse();
+        ArrayBuilder<String> literals = ArrayBuilder.list(String.class);
+        ArrayBuilder<String> slotVariables = ArrayBuilder.list(String.class);
+        Matcher matcher = VARIABLE.matcher(pattern);
+        int pos = 0;
+        while (matcher.find()) {
+          literals.add(pattern.substring(pos, matcher.start()));
+          slotVariables.add(var(matcher.group()));
+          pos = matcher.end();
+        }
+        literals.add(pattern.substring(pos));
+        this.literals = literals.build();
+        this.slotVariables = slotVariables.build();
+        this.slots = new Expression[this.slotVariables.length];
+        for (int n = 0; n < slots.length; n++)
+          slots[n] = new Expression(this.slotVariables[n]);
     }
 
     private String[] initTokens() {
@@ -131,17 +152,25 @@ public class Route<T> implements Iterable<String>, Cloneable, Serializable {
      * Expand the route pattern given the specified context
      */
     public String expand(Context context) {
-        String pattern = this.pattern;
+        return expand(context, new StringBuilder(pattern.length() + 32)).toString();
+    }
+
+    /**
+     * Expand the route pattern given the specified context, appending the result to the given buffer
+     */
+    public StringBuilder expand(Context context, StringBuilder buf) {
         if (this.defaultValues != null) {
           context = new DefaultingContext(context,this.defaultValues);
         }
-        for (String token : this) {
-            String var = var(token);
-            Expression exp = new Expression(var);
-            String val = exp.evaluate(context);
-            pattern = replace(pattern, token, val!=null?val:getDefaultValue(var));
+        for (int n = 0; n < slots.length; n++) {
+            buf.append(literals[n]);
+            String val = slots[n].evaluate(context);
+            if (val == null)
+                val = getDefaultValue(slotVariables[n]);
+            if (val != null)
+                buf.append(val);
         }
-        StringBuffer buf = new StringBuffer(pattern);
+        buf.append(literals[slots.length]);
         boolean qs = false;
         for (String var : context) {
             if (Arrays.binarySearch(variables, var) < 0) {
@@ -157,8 +186,7 @@ public class Route<T> implements Iterable<String>, Cloneable, Serializable {
                   buf.append(var).append("=").append(val);
             }
         }
-
-        return buf.toString();
+        return buf;
     }
 
     public String getDefaultValue(String var) {
@@ -200,10 +228,6 @@ public class Route<T> implements Iterable<String>, Cloneable, Serializable {
             ? new MapContext((Map)object, isiri) : new ObjectContext(object, isiri));
     }
 
-    private String replace(String pattern, String token, String value) {
-        return pattern.replace(token, value);
-    }
-
     public T getKey() {
         return key;
     }
@@ -36,6 +36,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 
 import static com.google.common.base.Preconditions.*;
@@ -72,10 +73,13 @@ public final class Template
     private static final long serialVersionUID = -613907262632631896L;
 
     private static final Pattern EXPRESSION = Pattern.compile("\\{[^{}]+\\}");
-    private static final String EXP_START = "\\{";
-    private static final String EXP_STOP = "\\}";
 
     private final String pattern;
+    // the template is compiled into the literal text surrounding each
+    // expression, so literals[n] precedes slots[n] and the final literal
+    // follows the last expression
+    private final String[] literals;
+    private final Expression[] slots;
     private final Iterable<Expression> expressions;
     private final Iterable<String> variables;
 
@@ -85,7 +89,14 @@ public final class Template
     public Template(String pattern) {
       checkNotNull(pattern, "Template pattern must not be null");
       this.pattern = pattern;
-      this.expressions = initExpressions();
+      ImmutableList.Builder<String> literals = 
+        ImmutableList.builder();
+      ImmutableList.Builder<Expression> slots = 
+        ImmutableList.builder();
+      compile(pattern, literals, slots);
+      this.literals = Iterables.toArray(literals.build(), String.class);
+      this.expressions = slots.build();
+      this.slots = Iterables.toArray(expressions, Expression.class);
       this.variables = initVariables(expressions);
     }
     
@@ -129,19 +140,21 @@ public final class Template
     }
 
     /**
-     * Return the array of template variables
+     * Split the pattern into the literal text and the expressions that
+     * will be evaluated in its place
      */
-    private Iterable<Expression> initExpressions() {
-      ImmutableList.Builder<Expression> expressions = 
-        ImmutableList.builder();
+    private static void compile(
+      String pattern, 
+      ImmutableList.Builder<String> literals, 
+      ImmutableList.Builder<Expression> slots) {
       Matcher matcher = EXPRESSION.matcher(pattern);
+      int pos = 0;
       while (matcher.find()) {
-        String token = matcher.group();
-        token = token.substring(1, token.length() - 1);
-        Expression exp = new Expression(token);
-        expressions.add(exp);
+        literals.add(pattern.substring(pos, matcher.start()));
+        slots.add(new Expression(pattern.substring(matcher.start() + 1, matcher.end() - 1)));
+        pos = matcher.end();
       }
-      return expressions.build();
+      literals.add(pattern.substring(pos));
     }
 
     /**
@@ -158,14 +171,28 @@ public final class Template
      * @return An expanded URI
      */
     public String expand(Context context) {
-      String pattern = this.pattern;
-      for (Expression exp : this)
-          pattern = 
-            replace(
-              pattern, 
-              exp, 
-              exp.evaluate(context));
-      return pattern;
+      return expand(context, new StringBuilder(pattern.length() + 32)).toString();
+    }
+    
+    /**
+     * Expand the URI Template using the specified Context, appending the 
+     * result to the given buffer. Callers that generate many links can 
+     * reuse a single buffer across expansions by resetting its length
+     * 
+     * @param context The Context impl used to resolve variable values
+     * @param buf The buffer the expanded URI is appended to
+     * @return The buffer
+     */
+    public StringBuilder expand(Context context, StringBuilder buf) {
+      checkNotNull(context);
+      checkNotNull(buf);
+      for (int n = 0; n < slots.length; n++) {
+        buf.append(literals[n]);
+        String value = slots[n].evaluate(context);
+        if (value != null)
+          buf.append(value);
+      }
+      return buf.append(literals[slots.length]);
     }
     
     public String expand(Supplier<Context> context) {
@@ -195,10 +222,6 @@ public final class Template
       return expand(asContext(object,isiri));
     }
 
-    private String replace(String pattern, Expression exp, String value) {
-        return pattern.replaceAll(EXP_START + Pattern.quote(exp.toString()) + EXP_STOP, value);
-    }
-
     @Override
     public int hashCode() {
       return MoreFunctions.genHashCode(1, pattern);
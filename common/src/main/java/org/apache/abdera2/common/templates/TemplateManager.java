@@ -178,12 +178,26 @@ public class TemplateManager<T>
   public String expand(T key, Object object) {
     checkNotNull(key);
     checkNotNull(object);
-    if (!templates.containsKey(key))
-      return null;
     Template template = templates.get(key);
+    if (template == null)
+      return null;
     return template.expand(_wrap(_innerContext(object,isiri),contextDefaults));
   }
   
+  /**
+   * Expand the template registered for the key, appending the result to
+   * the given buffer. Returns null if there is no template for the key
+   */
+  public StringBuilder expand(T key, Object object, StringBuilder buf) {
+    checkNotNull(key);
+    checkNotNull(object);
+    checkNotNull(buf);
+    Template template = templates.get(key);
+    if (template == null)
+      return null;
+    return template.expand(_wrap(_innerContext(object,isiri),contextDefaults),buf);
+  }
+  
   public String expand(T key) {
     checkNotNull(key);
     checkNotNull(contextDefaults);
@@ -193,12 +207,22 @@ public class TemplateManager<T>
   public String expand(T key, Context context) {
     checkNotNull(key);
     checkNotNull(context);
-    if (!templates.containsKey(key))
-      return null;
     Template template = templates.get(key);
+    if (template == null)
+      return null;
     return template.expand(_wrap(context,contextDefaults));
   }
   
+  public StringBuilder expand(T key, Context context, StringBuilder buf) {
+    checkNotNull(key);
+    checkNotNull(context);
+    checkNotNull(buf);
+    Template template = templates.get(key);
+    if (template == null)
+      return null;
+    return template.expand(_wrap(context,contextDefaults),buf);
+  }
+  
   private static Context _innerContext(Object object, boolean isiri) {
     return object instanceof Context ? (Context)object : object instanceof Map
         ? new MapContext((Map<String,Object>)object, isiri) : new ObjectContext(object, isiri);
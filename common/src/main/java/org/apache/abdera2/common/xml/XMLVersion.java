@@ -17,23 +17,27 @@
  */
 package org.apache.abdera2.common.xml;
 
-import org.apache.abdera2.common.text.CharUtils;
 import org.apache.abdera2.common.text.CharUtils.Profile;
 
 public enum XMLVersion {
-    XML10("1.0",CharUtils.Profile.XML1RESTRICTED), 
-    XML11("1.1",CharUtils.Profile.XML11RESTRICTED);
+    XML10("1.0"), 
+    XML11("1.1");
     
-    private final Profile profile;
     private final String label;
     
-    XMLVersion(String label, Profile profile) {
-      this.profile = profile;
+    XMLVersion(String label) {
       this.label = label;
     }
     
+    /**
+     * Resolved on each call rather than held in a field: Profile's own 
+     * initialization refers back to XMLVersion, so a field captured while
+     * either enum is initializing can be left null
+     */
     public Profile profile() {
-      return profile;
+      return this == XML10 ? 
+        Profile.XML1RESTRICTED : 
+        Profile.XML11RESTRICTED;
     }
     
     public String label() {
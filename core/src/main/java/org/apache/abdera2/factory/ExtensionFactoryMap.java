@@ -17,9 +17,17 @@
  */
 package org.apache.abdera2.factory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.namespace.QName;
 
@@ -30,16 +38,29 @@ import org.apache.abdera2.model.Element;
 /**
  * A utility implementation of ExtensionFactory used internally by Abdera. It maintains the collection ExtensionFactory
  * instances discovered on the classpath and a cache of Internal-Wrapper mappings.
+ * 
+ * <p>Factories are indexed by the namespaces they declare when they are 
+ * added, so elements in namespaces no factory handles are returned 
+ * without consulting any factory. The factory that produced a wrapper for
+ * a given QName is remembered and asked first the next time.</p>
  */
 public class ExtensionFactoryMap 
   implements ExtensionFactory, Iterable<ExtensionFactory> {
 
+    private static final ExtensionFactory[] NONE = new ExtensionFactory[0];
+  
     private final Set<ExtensionFactory> factories = 
-      new HashSet<ExtensionFactory>();
+      new LinkedHashSet<ExtensionFactory>();
     
     private final Set<String> namespaces = 
       new HashSet<String>();
     
+    private volatile Map<String,ExtensionFactory[]> index = 
+      Collections.emptyMap();
+    
+    private final ConcurrentMap<QName,ExtensionFactory> owners = 
+      new ConcurrentHashMap<QName,ExtensionFactory>();
+    
     public ExtensionFactoryMap(Iterable<ExtensionFactory> factories) {
       for (ExtensionFactory factory : factories)
         addFactory(factory);
@@ -52,38 +73,72 @@ public class ExtensionFactoryMap
         T t = null;
         QName qname = internal.getQName();
         String ns = qname.getNamespaceURI();
-        for (ExtensionFactory factory : factories) {
-            if (ns == null || factory.handlesNamespace(ns)) {
-              t = (T)factory.getElementWrapper(internal);
-              if (t != null && t != internal)
-                  return t;
+        ExtensionFactory[] handlers = factoriesFor(ns);
+        if (handlers.length == 0)
+            return (T)internal;
+        ExtensionFactory owner = owners.get(qname);
+        if (owner != null) {
+            t = (T)owner.getElementWrapper(internal);
+            if (t != null && t != internal)
+                return t;
+        }
+        for (ExtensionFactory factory : handlers) {
+            if (factory == owner) continue;
+            t = (T)factory.getElementWrapper(internal);
+            if (t != null && t != internal) {
+                owners.put(qname, factory);
+                return t;
             }
         }
         return (t != null) ? t : (T)internal;
     }
 
+    private ExtensionFactory[] factoriesFor(String ns) {
+        if (ns == null) {
+            synchronized(factories) {
+              return factories.toArray(new ExtensionFactory[factories.size()]);
+            }
+        }
+        ExtensionFactory[] handlers = index.get(ns);
+        return handlers != null ? handlers : NONE;
+    }
+    
     public Iterable<String> getNamespaces() {
         return namespaces;
     }
 
     public boolean handlesNamespace(String namespace) {
-        return namespaces.contains(namespace);
+        return index.containsKey(namespace);
     }
 
     public ExtensionFactoryMap addFactory(ExtensionFactory factory) {
+      synchronized(factories) {
         factories.add(factory);
         for (String ns : factory.getNamespaces())
           namespaces.add(ns);
-        return this;
+        Map<String,ExtensionFactory[]> index = 
+          new HashMap<String,ExtensionFactory[]>();
+        for (String ns : namespaces) {
+          List<ExtensionFactory> list = 
+            new ArrayList<ExtensionFactory>();
+          for (ExtensionFactory f : factories)
+            if (f.handlesNamespace(ns))
+              list.add(f);
+          index.put(ns, list.toArray(new ExtensionFactory[list.size()]));
+        }
+        this.index = index;
+        owners.clear();
+      }
+      return this;
     }
 
     public <T extends Base> String getMimeType(T base) {
         Element element = base instanceof Element ? (Element)base : ((Document<?>)base).getRoot();
         String namespace = element.getQName().getNamespaceURI();
-        for (ExtensionFactory factory : factories)
-            if (factory.handlesNamespace(namespace))
-                return factory.getMimeType(base);
-        return null;
+        ExtensionFactory[] handlers = 
+          namespace != null ? factoriesFor(namespace) : NONE;
+        return handlers.length > 0 ? 
+          handlers[0].getMimeType(base) : null;
     }
 
     public Iterator<ExtensionFactory> iterator() {
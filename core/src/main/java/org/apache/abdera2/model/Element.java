@@ -232,6 +232,17 @@ public interface Element extends Base, Iterable<Element> {
      */
     void discard();
 
+    /**
+     * Moves this element, with its complete subtree, to the end of the given 
+     * parent, which may belong to a different document. Unlike adding a clone,
+     * nothing is copied: the element is removed from its current parent. 
+     * Namespace prefixes declared by its former ancestors are declared on the
+     * element itself
+     * 
+     * @param parent The new parent element
+     */
+    <T extends Element> T moveTo(Element parent);
+
     /**
      * Returns the Text value of this element
      * 
@@ -76,6 +76,11 @@ public abstract class ElementWrapper implements Element {
         internal.discard();
     }
 
+    public <T extends Element> T moveTo(Element parent) {
+        internal.moveTo(parent);
+        return (T)this;
+    }
+
     public List<QName> getAttributes() {
         return internal.getAttributes();
     }
@@ -116,6 +116,22 @@ public interface Feed extends Source {
     
     List<Entry> getEntries(Selector selector);
 
+    /**
+     * Returns the number of atom:entry elements in this feed without 
+     * creating a listing of the entries
+     */
+    int getEntryCount();
+
+    /**
+     * Returns up to count entries starting at the given zero-based offset. 
+     * Entries preceding the offset are skipped without being wrapped
+     * 
+     * @param offset The index of the first entry to return
+     * @param count The maximum number of entries to return
+     * @return A listing of atom:entry elements
+     */
+    List<Entry> getEntries(int offset, int count);
+
     /**
      * Adds a new Entry to the <i>end</i> of the Feeds collection of entries
      * 
@@ -171,7 +187,9 @@ public interface Feed extends Source {
     Feed sortEntries(Comparator<Entry> comparator);
 
     /**
-     * Retrieves the first entry in the feed with the given atom:id value
+     * Retrieves the first entry in the feed with the given atom:id value. 
+     * Lookups are served from an index that is built on first use and 
+     * rebuilt after the entries of the feed change
      * 
      * @param id The id to retrieve
      * @return The matching atom:entry
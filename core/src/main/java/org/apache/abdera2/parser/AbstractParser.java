@@ -23,6 +23,9 @@ import java.io.Reader;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.xml.stream.XMLStreamReader;
@@ -32,6 +35,10 @@ import org.apache.abdera2.common.mediatype.MimeTypeHelper;
 import org.apache.abdera2.factory.Factory;
 import org.apache.abdera2.model.Document;
 import org.apache.abdera2.model.Element;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
+
+import com.google.common.collect.ImmutableList;
 
 /**
  * Abstract base implementation of Abdera Parser.
@@ -123,6 +130,27 @@ public abstract class AbstractParser implements Parser {
         return parse(buf, null, getDefaultParserOptions());
     }
     
+    public EntryIterator parseEntries(InputStream in, ParserOptions options) throws ParseException {
+        return parseEntries(in, null, options);
+    }
+
+    /**
+     * Default implementation that parses the complete document and detaches the entries from it. Parsers that are
+     * able to parse incrementally should override this.
+     */
+    public EntryIterator parseEntries(InputStream in, String base, ParserOptions options) throws ParseException {
+        return new DocumentEntryIterator(this.<Element>parse(in, base, options));
+    }
+
+    /**
+     * Default implementation that parses the complete document and detaches the entries from it. Parsers that are
+     * able to parse incrementally should override this.
+     */
+    public EntryIterator parseEntries(XMLStreamReader reader, String base, ParserOptions options)
+        throws ParseException {
+        return new DocumentEntryIterator(this.<Element>parse(reader, base, options));
+    }
+
     public ParserOptions.Builder makeDefaultParserOptions() {
       return initDefaultParserOptions();
     }
@@ -151,4 +179,41 @@ public abstract class AbstractParser implements Parser {
       }
       return false;
   }
+
+  private static final class DocumentEntryIterator 
+    implements EntryIterator {
+      private final Feed header;
+      private final Iterator<Entry> entries;
+      DocumentEntryIterator(Document<Element> doc) {
+        Element root = doc.getRoot();
+        if (root instanceof Feed) {
+          header = (Feed)root;
+          header.complete();
+          List<Entry> list = ImmutableList.copyOf(header.getEntries());
+          for (Entry entry : list)
+            entry.discard();
+          entries = list.iterator();
+        } else {
+          header = null;
+          entries = root instanceof Entry ? 
+            ImmutableList.of((Entry)root).iterator() : 
+            ImmutableList.<Entry>of().iterator();
+        }
+      }
+      public Feed getHeader() {
+        return header;
+      }
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+      public Entry next() {
+        if (!entries.hasNext())
+          throw new NoSuchElementException();
+        return entries.next();
+      }
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+      public void close() {}
+  }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.parser;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
+
+/**
+ * Iterates over the entries of a feed as they are parsed. Each Entry returned is fully built and is the root of its
+ * own Document; it holds no reference to the feed or to any previously returned entry, so callers that do not retain
+ * the entries can process feeds of any size in memory bounded by the largest entry. Relative references and the
+ * language context inherited from the feed are preserved: the entry Document's base URI is set to the resolved base
+ * of the feed and xml:lang is copied to entries that do not specify their own.
+ * 
+ * Instances are not threadsafe and should be closed when no longer needed. Closing the iterator releases the
+ * underlying XML stream reader but does not close the original input.
+ */
+public interface EntryIterator 
+  extends Iterator<Entry>, 
+          Closeable {
+
+    /**
+     * Return the feed level metadata. The header is a Feed element containing all of the feed's child elements other
+     * than atom:entry. Before the first entry has been read it contains the metadata that precedes the first entry;
+     * once iteration is complete it also contains any metadata appearing after the last entry. Returns null if the
+     * document is a standalone atom:entry
+     */
+    Feed getHeader();
+
+    /**
+     * Release the underlying parser. Any remaining entries are discarded.
+     */
+    void close();
+
+}
@@ -188,6 +188,46 @@ public interface Parser {
      */
     <T extends Element> Document<T> parse(ReadableByteChannel buf, ParserOptions options) throws ParseException;
 
+    /**
+     * Incrementally parse an Atom feed one entry at a time. Unlike parse(), the returned iterator does not build or
+     * retain the complete document. Each atom:entry is fully built and returned as the root of its own Document,
+     * detached from the feed, so memory use is bounded by the size of the largest entry rather than the size of the
+     * feed. Feed level metadata is available separately from EntryIterator.getHeader(). If the document is a
+     * standalone atom:entry, the iterator returns that single entry and there is no header.
+     * 
+     * @param in The input stream to parse
+     * @param options The Parse Options
+     * @return An iterator over the entries in the feed
+     * @throws ParseException if the parse failed
+     */
+    EntryIterator parseEntries(InputStream in, ParserOptions options) throws ParseException;
+
+    /**
+     * Incrementally parse an Atom feed one entry at a time. The specified Base URI is used to resolve relative
+     * references contained in the document
+     * 
+     * @param in The input stream to parse
+     * @param base The Base URI of the document
+     * @param options The Parse Options
+     * @return An iterator over the entries in the feed
+     * @throws ParseException if the parse failed
+     * @see #parseEntries(InputStream, ParserOptions)
+     */
+    EntryIterator parseEntries(InputStream in, String base, ParserOptions options) throws ParseException;
+
+    /**
+     * Incrementally parse an Atom feed one entry at a time. The specified Base URI is used to resolve relative
+     * references contained in the document
+     * 
+     * @param reader The XMLStreamReader to use to parse
+     * @param base The Base URI of the document
+     * @param options The Parse Options
+     * @return An iterator over the entries in the feed
+     * @throws ParseException if the parse failed
+     * @see #parseEntries(InputStream, ParserOptions)
+     */
+    EntryIterator parseEntries(XMLStreamReader reader, String base, ParserOptions options) throws ParseException;
+
     /**
      * Return the default parser options for this Parser. This method returns a copy of the default options. Changes to
      * this instance will not affect the defaults returned by subsequent requests.
@@ -26,6 +26,7 @@ import org.apache.abdera2.common.io.Compression.CompressionCodec;
 import org.apache.abdera2.factory.Factory;
 import org.apache.abdera2.parser.axiom.FOMFactory;
 import org.apache.abdera2.parser.filter.ParseFilter;
+import org.apache.abdera2.parser.filter.ProjectionParseFilter;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
@@ -103,6 +104,19 @@ public class ParserOptions {
       return this;
     }
     
+    /**
+     * Parse only the given paths, e.g. "entry/id" or "link[@rel]". This 
+     * replaces any previously set ParseFilter. See ProjectionParseFilter
+     */
+    public Builder project(String... paths) {
+      this.parseFilter = 
+        ProjectionParseFilter
+          .make()
+          .path(paths)
+          .get();
+      return this;
+    }
+    
     public Builder autodetectCharset() {
       this.detect = true;
       return this;
@@ -517,6 +531,15 @@ public class ParserOptions {
       return parseFilter;
     }
 
+    /**
+     * Returns the projection the parser should apply, or null if the parse
+     * filter is not a ProjectionParseFilter
+     */
+    public ProjectionParseFilter getProjection() {
+      return parseFilter instanceof ProjectionParseFilter ?
+        (ProjectionParseFilter)parseFilter : null;
+    }
+
     /**
      * Returns true if the parser should attempt to automatically detect the character encoding from the stream
      */
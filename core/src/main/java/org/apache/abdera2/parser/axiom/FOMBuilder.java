@@ -17,6 +17,10 @@
  */
 package org.apache.abdera2.parser.axiom;
 
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -30,6 +34,8 @@ import org.apache.abdera2.model.Text;
 import org.apache.abdera2.parser.ParseException;
 import org.apache.abdera2.parser.ParserOptions;
 import org.apache.abdera2.parser.filter.ParseFilter;
+import org.apache.abdera2.parser.filter.ProjectionParseFilter;
+import org.apache.abdera2.parser.filter.ProjectionParseFilter.Step;
 import org.apache.axiom.om.OMConstants;
 import org.apache.axiom.om.OMContainer;
 import org.apache.axiom.om.OMDocument;
@@ -51,12 +57,27 @@ public class FOMBuilder extends StAXOMBuilder implements Constants {
     private final ParserOptions parserOptions;
     private boolean indoc = false;
     private int depth = 0;
-    private int depthInSkipElement = 0;
+    private long skippedElements = 0;
+    private long skippedBytes = 0;
+    private final ProjectionParseFilter projection;
+    private final LinkedList<Frame> frames = new LinkedList<Frame>();
+    private final int contextDepth;
+    private boolean finishElement = false;
     private boolean ignoreWhitespace = false;
     private boolean ignoreComments = false;
     private boolean ignorePI = false;
 
     public FOMBuilder(FOMFactory factory, XMLStreamReader parser, ParserOptions parserOptions) {
+        this(factory, parser, parserOptions, new QName[0]);
+    }
+
+    /**
+     * The context lists the names of the ancestors of the element being 
+     * parsed, outermost first, when the parser is given only a fragment of 
+     * a larger document. Projection paths are applied as though the 
+     * fragment were still in place.
+     */
+    FOMBuilder(FOMFactory factory, XMLStreamReader parser, ParserOptions parserOptions, QName... context) {
         super(factory, parser);
         this.document = (OMDocument)factory.newDocument();
         this.parserOptions = parserOptions;
@@ -73,6 +94,14 @@ public class FOMBuilder extends StAXOMBuilder implements Constants {
                 ignorePI = parseFilter.getIgnoreProcessingInstructions();
             }
         }
+        this.projection = parserOptions != null ? parserOptions.getProjection() : null;
+        if (projection != null) {
+            for (QName qname : context) {
+                Frame frame = project(qname);
+                frames.push(frame != null ? frame : Frame.REJECT);
+            }
+        }
+        this.contextDepth = frames.size();
     }
 
     public ParserOptions getParserOptions() {
@@ -145,18 +174,153 @@ public class FOMBuilder extends StAXOMBuilder implements Constants {
     }
 
     private int getNextElementToParse() throws XMLStreamException {
+        if (projection != null)
+            return getNextProjectedElementToParse();
         int token = parser.next();
-        if (depthInSkipElement == 0 && token != XMLStreamConstants.START_ELEMENT) {
-            return token;
-        } else if (token == XMLStreamConstants.START_ELEMENT && isAcceptableToParse(parser.getName(), false)
-            && depthInSkipElement == 0) {
-            return token;
-        } else if (token == XMLStreamConstants.START_ELEMENT) {
-            depthInSkipElement++;
-        } else if (token == XMLStreamConstants.END_ELEMENT) { // otherwise skip like crazy
-            depthInSkipElement--;
+        while (token == XMLStreamConstants.START_ELEMENT && !isAcceptableToParse(parser.getName(), false)) {
+            skipElement();
+            token = parser.next();
+        }
+        return token;
+    }
+
+    /**
+     * With a projection, an element is built only if it lies along one of
+     * the projected paths, and once every child step of an element has been
+     * seen the remainder of the element is skipped through to its end tag
+     */
+    private int getNextProjectedElementToParse() throws XMLStreamException {
+        int token = finishElement ? skipRemainder() : parser.next();
+        finishElement = false;
+        while (token == XMLStreamConstants.START_ELEMENT) {
+            Frame frame = project(parser.getName());
+            if (frame != null) {
+                frames.push(frame);
+                return token;
+            }
+            skipElement();
+            token = parser.next();
         }
-        return getNextElementToParse();
+        if (token == XMLStreamConstants.END_ELEMENT && frames.size() > contextDepth) {
+            Frame frame = frames.pop();
+            if (frames.size() > contextDepth)
+                finishElement = frames.peek().see(frame);
+        }
+        return token;
+    }
+
+    private Frame project(QName qname) {
+        if (frames.isEmpty())
+            return new Frame(projection.getDocumentStep(qname));
+        Frame parent = frames.peek();
+        if (parent == Frame.REJECT)
+            return null;
+        if (parent.step == null || parent.step.isLeaf())
+            return Frame.WHOLE;
+        Step step = parent.step.getChild(qname);
+        return step != null ? new Frame(step) : null;
+    }
+
+    /**
+     * Skip the rest of the current element, leaving the parser on its end tag
+     */
+    private int skipRemainder() throws XMLStreamException {
+        long start = parser.getLocation().getCharacterOffset();
+        int level = 0;
+        for (;;) {
+            switch (parser.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (level++ == 0)
+                        skippedElements++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (level-- == 0) {
+                        long end = parser.getLocation().getCharacterOffset();
+                        if (start >= 0 && end > start)
+                            skippedBytes += end - start;
+                        return XMLStreamConstants.END_ELEMENT;
+                    }
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new ParseException("Unexpected end of document");
+            }
+        }
+    }
+
+    /**
+     * The projection state of an open element
+     */
+    private static final class Frame {
+        /** Any element beneath a rejected context element is rejected **/
+        static final Frame REJECT = new Frame(null);
+        /** Everything beneath a leaf step is kept **/
+        static final Frame WHOLE = new Frame(null);
+        final Step step;
+        private Set<QName> seen;
+
+        Frame(Step step) {
+            this.step = step;
+        }
+
+        boolean acceptsAttribute(QName attribute) {
+            return step == null || step.acceptsAttribute(attribute);
+        }
+
+        /**
+         * Record that a child has been completed, returning true once every 
+         * child step of this element has been seen
+         */
+        boolean see(Frame child) {
+            if (step == null || child.step == null || step.getRequired() < 0)
+                return false;
+            if (seen == null)
+                seen = new HashSet<QName>();
+            seen.add(child.step.getName());
+            return seen.size() >= step.getRequired();
+        }
+    }
+
+    /**
+     * Skip past the end of the element whose start tag the parser is 
+     * currently positioned on. Nested elements are not run through the 
+     * parse filter and no nodes are created for anything in between.
+     */
+    private void skipElement() throws XMLStreamException {
+        long start = parser.getLocation().getCharacterOffset();
+        int level = 1;
+        while (level > 0) {
+            switch (parser.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    level++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    level--;
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new ParseException("Unexpected end of document");
+            }
+        }
+        long end = parser.getLocation().getCharacterOffset();
+        skippedElements++;
+        if (start >= 0 && end > start)
+            skippedBytes += end - start;
+    }
+
+    /**
+     * The number of elements rejected by the ParseFilter. Descendants of
+     * a rejected element are skipped with it and are not counted separately
+     */
+    public long getSkippedElements() {
+        return skippedElements;
+    }
+
+    /**
+     * The amount of input consumed by rejected elements, as reported by 
+     * the StAX Location character offset: bytes when parsing from an 
+     * InputStream, characters when parsing from a Reader
+     */
+    public long getSkippedBytes() {
+        return skippedBytes;
     }
 
     /**
@@ -274,7 +438,7 @@ public class FOMBuilder extends StAXOMBuilder implements Constants {
         int attribCount = parser.getAttributeCount();
         for (int i = 0; i < attribCount; i++) {
             QName attr = parser.getAttributeName(i);
-            if (isAcceptableToParse(attr, true)) {
+            if (projection != null ? frames.peek().acceptsAttribute(attr) : isAcceptableToParse(attr, true)) {
                 String uri = parser.getAttributeNamespace(i);
                 String prefix = parser.getAttributePrefix(i);
                 OMNamespace namespace = null;
@@ -65,6 +65,7 @@ public class FOMDocument<T extends Element> extends OMDocumentImpl implements Do
     protected String language = null;
     protected String slug = null;
     protected boolean preserve = true;
+    final FOMElement.BaseScope baseScope = new FOMElement.BaseScope();
 
     public FOMDocument() {
         super(new FOMFactory());
@@ -110,6 +111,7 @@ public class FOMDocument<T extends Element> extends OMDocumentImpl implements Do
 
     public Document<T> setBaseUri(String base) {
         this.base = new IRI(base);
+        baseScope.invalidate();
         return this;
     }
 
@@ -26,10 +26,12 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.activation.DataHandler;
@@ -80,6 +82,38 @@ public class FOMElement extends OMElementImpl implements Element, OMElement, Con
 
     private static final long serialVersionUID = 8024257594220911953L;
 
+    /**
+     * Resolved base URIs are memoized per element. A memo is only valid for
+     * the epoch of its scope (the document, or the detached tree, it was 
+     * computed in) at the time it was computed. The scope's epoch advances
+     * whenever an element in it with a memo changes its xml:base or its 
+     * parent, or the document's base changes, which discards every memo 
+     * in that scope that could depend on the change.
+     */
+    private transient ResolvedBase resolvedBase;
+
+    static final class BaseScope implements java.io.Serializable {
+        private static final long serialVersionUID = -2829417018389562133L;
+        volatile int epoch;
+        void invalidate() {
+            epoch++;
+        }
+    }
+
+    private static final class ResolvedBase {
+        final IRI uri;
+        final BaseScope scope;
+        final int epoch;
+        ResolvedBase(IRI uri, BaseScope scope) {
+            this.uri = uri;
+            this.scope = scope;
+            this.epoch = scope.epoch;
+        }
+        boolean isCurrent() {
+            return epoch == scope.epoch;
+        }
+    }
+
     public FOMElement(QName qname) {
         super(qname, null, null);
     }
@@ -214,20 +248,78 @@ public class FOMElement extends OMElementImpl implements Element, OMElement, Con
     }
 
     public IRI getResolvedBaseUri() {
+        ResolvedBase memo = resolvedBase;
+        if (memo != null && memo.isCurrent())
+            return memo.uri;
         IRI baseUri = null;
+        BaseScope scope = null;
         IRI uri = _getUriValue(getAttributeValue(BASE));
-        if (parent instanceof Element)
+        if (parent instanceof Element) {
             baseUri = ((Element)parent).getResolvedBaseUri();
-        else if (parent instanceof Document)
+            if (parent instanceof FOMElement) {
+                ResolvedBase parentBase = ((FOMElement)parent).resolvedBase;
+                if (parentBase != null)
+                    scope = parentBase.scope;
+            }
+        } else if (parent instanceof Document) {
             baseUri = ((Document<?>)parent).getBaseUri();
+            if (parent instanceof FOMDocument)
+                scope = ((FOMDocument<?>)parent).baseScope;
+        } else if (parent == null) {
+            // the root of a detached tree; invalidating it discards the
+            // memos of the whole tree
+            scope = new BaseScope();
+        }
         if (uri != null && baseUri != null) {
             uri = baseUri.resolve(uri);
         } else if (uri == null) {
             uri = baseUri;
         }
+        if (scope != null)
+            resolvedBase = new ResolvedBase(uri, scope);
         return uri;
     }
 
+    /**
+     * Discard the memoized resolved base URIs of this element and its 
+     * descendants. A descendant can only hold a current memo if this element
+     * does, so nothing needs to be discarded if this element has none
+     */
+    protected void _invalidateResolvedBaseUri() {
+        ResolvedBase memo = resolvedBase;
+        if (memo != null) {
+            resolvedBase = null;
+            memo.scope.invalidate();
+        }
+    }
+
+    @Override
+    public void setParent(OMContainer parent) {
+        if (parent != this.parent)
+            _invalidateResolvedBaseUri();
+        super.setParent(parent);
+    }
+
+    @Override
+    public OMNode detach() throws OMException {
+        _invalidateResolvedBaseUri();
+        return super.detach();
+    }
+
+    @Override
+    public OMAttribute addAttribute(OMAttribute attr) {
+        if (BASE.equals(attr.getQName()))
+            _invalidateResolvedBaseUri();
+        return super.addAttribute(attr);
+    }
+
+    @Override
+    public void removeAttribute(OMAttribute attr) {
+        if (BASE.equals(attr.getQName()))
+            _invalidateResolvedBaseUri();
+        super.removeAttribute(attr);
+    }
+
     public <T extends Element> T setBaseUri(IRI base) {
       complete();
         return (T)setAttributeValue(BASE, _getStringValue(base));
@@ -245,6 +337,8 @@ public class FOMElement extends OMElementImpl implements Element, OMElement, Con
     }
 
     public <T extends Element> T setAttributeValue(QName qname, String value) {
+        if (BASE.equals(qname))
+            _invalidateResolvedBaseUri();
         OMAttribute attr = this.getAttribute(qname);
         if (attr != null && value != null) {
             attr.setAttributeValue(value);
@@ -582,10 +676,14 @@ public class FOMElement extends OMElementImpl implements Element, OMElement, Con
 
     }
 
+    /**
+     * Copy the attributes and children of src into dest. Child elements are 
+     * created directly beneath their new parent, and each attribute is 
+     * copied exactly once
+     */
     protected OMElement _copyElement(OMElement src, OMElement dest) {
         for (Iterator<OMAttribute> i = src.getAllAttributes(); i.hasNext();) {
             OMAttribute attr = i.next();
-            dest.addAttribute(attr);
             dest.addAttribute(factory.createOMAttribute(attr.getLocalName(), attr.getNamespace(), attr
                 .getAttributeValue()));
         }
@@ -593,11 +691,9 @@ public class FOMElement extends OMElementImpl implements Element, OMElement, Con
             OMNode node = i.next();
             if (node.getType() == OMNode.ELEMENT_NODE) {
                 OMElement element = (OMElement)node;
-                OMElement child = _create(element);
-                if (child != null) {
+                OMElement child = _create(element, dest);
+                if (child != null)
                     _copyElement(element, child);
-                    dest.addChild(child);
-                }
             } else if (node.getType() == OMNode.CDATA_SECTION_NODE) {
                 OMText text = (OMText)node;
                 factory.createOMText(dest, text.getText(), OMNode.CDATA_SECTION_NODE);
@@ -622,19 +718,51 @@ public class FOMElement extends OMElementImpl implements Element, OMElement, Con
     }
 
     protected OMElement _create(OMElement src) {
-        OMElement el = null;
+        return _create(src, (OMContainer)((FOMFactory)factory).newDocument());
+    }
 
+    /**
+     * Create an empty element of the same kind as src as the last child of
+     * the given parent
+     */
+    protected OMElement _create(OMElement src, OMContainer parent) {
         FOMFactory fomfactory = (FOMFactory)factory;
         Object obj = null;
         if (src instanceof Content)
             obj = ((Content)src).getContentType();
         if (src instanceof Text)
             obj = ((Text)src).getTextType();
-        el = fomfactory.createElement(src.getQName(), (OMContainer)fomfactory.newDocument(), factory, obj);
-
+        OMElement el = fomfactory.createElement(src.getQName(), parent, factory, obj);
+        if (el != null && el.getParent() != parent)
+            parent.addChild(el);
         return el;
     }
 
+    public <T extends Element> T moveTo(Element parent) {
+        if (parent instanceof ElementWrapper)
+            parent = ((ElementWrapper)parent).getInternal();
+        complete();
+        parent.complete();
+        OMContainer current = getParent();
+        if (current != null) {
+            // keep the prefixes this element inherited from its old ancestors
+            Set<String> prefixes = new HashSet<String>();
+            for (Iterator<OMNamespace> i = getAllDeclaredNamespaces(); i.hasNext();)
+                prefixes.add(i.next().getPrefix());
+            for (OMContainer c = current; c instanceof OMElement; c = ((OMElement)c).getParent()) {
+                for (Iterator<OMNamespace> i = ((OMElement)c).getAllDeclaredNamespaces(); i.hasNext();) {
+                    OMNamespace ns = i.next();
+                    String prefix = ns.getPrefix();
+                    if (prefix != null && prefix.length() > 0 && prefixes.add(prefix))
+                        declareNamespace(ns.getNamespaceURI(), prefix);
+                }
+            }
+            detach();
+        }
+        ((OMElement)parent).addChild(this);
+        return (T)this;
+    }
+
     public Factory getFactory() {
         return (Factory)this.factory;
     }
@@ -434,9 +434,27 @@ public class FOMEntry extends FOMExtensibleElement implements Entry {
             _setChild(ID, (OMElement)id);
         else
             _removeChildren(ID, false);
+        idChanged();
         return this;
     }
 
+    /**
+     * Tells the containing feed, if any, to index the entry's new atom:id
+     */
+    void idChanged() {
+        OMContainer parent = getParent();
+        if (parent instanceof FOMFeed)
+            ((FOMFeed)parent).indexEntry(this);
+    }
+
+    @Override
+    public void setParent(OMContainer parent) {
+        super.setParent(parent);
+        // also reached when the entry is attached through the Axiom API
+        if (parent instanceof FOMFeed)
+            ((FOMFeed)parent).indexEntry(this);
+    }
+
     public IRI getId() {
         IRIElement id = getIdElement();
         return (id != null) ? id.getValue() : null;
@@ -454,6 +472,7 @@ public class FOMEntry extends FOMExtensibleElement implements Entry {
         complete();
         if (value == null) {
             _removeChildren(ID, false);
+            idChanged();
             return null;
         }
         IRIElement id = getIdElement();
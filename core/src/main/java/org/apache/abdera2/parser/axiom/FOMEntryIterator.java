@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.parser.axiom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import org.apache.abdera2.common.Constants;
+import org.apache.abdera2.common.iri.IRI;
+import org.apache.abdera2.model.Document;
+import org.apache.abdera2.model.Element;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.parser.EntryIterator;
+import org.apache.abdera2.parser.ParseException;
+import org.apache.abdera2.parser.ParserOptions;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNode;
+
+/**
+ * Incremental Atom feed parser. The feed element and each of its children are built from the same underlying 
+ * XMLStreamReader using a separate FOMBuilder per child, each of which sees only the events of that child's subtree. 
+ * Entries are returned as the roots of their own Documents; all other children are moved into the header Feed.
+ */
+class FOMEntryIterator 
+  implements EntryIterator, 
+             XMLStreamConstants, 
+             Constants {
+
+    private final FOMFactory factory;
+    private final XMLStreamReader reader;
+    private final ParserOptions options;
+    private final List<String[]> namespaces = new ArrayList<String[]>();
+    private String encoding;
+    private String charset;
+    private String version;
+    private Feed header;
+    private IRI entryBase;
+    private String entryLanguage;
+    private Entry next;
+    private boolean done;
+
+    FOMEntryIterator(FOMFactory factory, XMLStreamReader reader, IRI base, ParserOptions options) 
+      throws XMLStreamException {
+        this.factory = factory;
+        this.reader = reader;
+        this.options = options;
+        int event = reader.getEventType();
+        if (event == START_DOCUMENT) {
+          encoding = reader.getEncoding();
+          charset = reader.getCharacterEncodingScheme();
+          version = reader.getVersion();
+        }
+        while (event != START_ELEMENT && reader.hasNext())
+          event = reader.next();
+        if (event != START_ELEMENT) {
+          done = true;
+          return;
+        }
+        QName qname = reader.getName();
+        if (options.isQNameAliasMappingEnabled())
+          qname = options.getAlias(qname);
+        if (ENTRY.equals(qname)) {
+          Element root = build(false, base);
+          next = root instanceof Entry ? (Entry)root : null;
+          done = true;
+        } else if (FEED.equals(qname)) {
+          for (int n = 0; n < reader.getNamespaceCount(); n++)
+            namespaces.add(
+              new String[] {
+                reader.getNamespacePrefix(n), 
+                reader.getNamespaceURI(n)});
+          Element root = build(true, base);
+          if (!(root instanceof Feed))
+            throw new ParseException("The feed element was not accepted by the parse filter");
+          header = (Feed)root;
+          entryBase = header.getResolvedBaseUri();
+          entryLanguage = header.getLanguage();
+          next = advance();
+        } else {
+          throw new ParseException("Not an Atom feed: " + qname);
+        }
+    }
+
+    public Feed getHeader() {
+        return header;
+    }
+
+    public boolean hasNext() {
+        if (next == null && !done)
+          next = advance();
+        return next != null;
+    }
+
+    public Entry next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        Entry entry = next;
+        next = null;
+        return entry;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+        done = true;
+        next = null;
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          throw new ParseException(e);
+        }
+    }
+
+    /**
+     * Read forward to the next entry, moving any other children of the feed into the header. The underlying reader
+     * is positioned on either the feed's start tag or the end tag of the previously built child
+     */
+    private Entry advance() {
+        try {
+          while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+              Element element = build(false, entryBase, FEED);
+              if (element instanceof Entry) {
+                if (entryLanguage != null)
+                  element.getDocument().setLanguage(entryLanguage);
+                return (Entry)element;
+              } else if (element != null) {
+                ((OMElement)header).addChild((OMNode)element);
+              }
+            } else if (event == END_ELEMENT) {
+              break;
+            }
+          }
+          done = true;
+          return null;
+        } catch (XMLStreamException e) {
+          throw new ParseException(e);
+        }
+    }
+
+    /**
+     * Build the element the reader is currently positioned on. If shallow is true, only the start tag is consumed
+     * and the element is built without children; otherwise the complete subtree is built and the reader is left on
+     * the element's end tag. Returns null if the element was rejected by the parse filter. The context names the 
+     * ancestors of the element so that a projection can be applied to it as part of the whole document
+     */
+    private Element build(boolean shallow, IRI base, QName... context) {
+        FOMBuilder builder = 
+          new FOMBuilder(
+            factory, 
+            new SubtreeReader(shallow, shallow ? null : namespaces), 
+            options,
+            context);
+        Document<Element> doc = FOMParser.getDocument(builder, base, options);
+        Element root = doc.getRoot();
+        if (root != null)
+          root.complete();
+        return root;
+    }
+
+    /**
+     * Presents a single element of the underlying reader as a complete document. The subtree's root start tag is 
+     * reported with the namespace declarations it inherits from the feed so that the resulting element is self 
+     * contained, and the document level properties are those of the original document. Closing the subtree reader 
+     * does not close the underlying reader
+     */
+    final class SubtreeReader 
+      extends StreamReaderDelegate {
+        private final boolean shallow;
+        private final List<String[]> inherited;
+        private List<String[]> extra;
+        private int event = START_DOCUMENT;
+        private int depth = -1;
+
+        SubtreeReader(boolean shallow, List<String[]> inherited) {
+            super(reader);
+            this.shallow = shallow;
+            this.inherited = inherited;
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            if (event == END_DOCUMENT)
+              throw new NoSuchElementException();
+            if (depth < 0) {
+              depth = 1;
+              event = START_ELEMENT;
+            } else if (depth == 0) {
+              event = END_DOCUMENT;
+            } else if (shallow) {
+              depth = 0;
+              event = END_ELEMENT;
+            } else {
+              event = super.next();
+              if (event == START_ELEMENT)
+                depth++;
+              else if (event == END_ELEMENT)
+                depth--;
+            }
+            return event;
+        }
+
+        @Override
+        public boolean hasNext() throws XMLStreamException {
+            return event != END_DOCUMENT;
+        }
+
+        @Override
+        public int getEventType() {
+            return event;
+        }
+
+        @Override
+        public boolean isStartElement() {
+            return event == START_ELEMENT;
+        }
+
+        @Override
+        public boolean isEndElement() {
+            return event == END_ELEMENT;
+        }
+
+        @Override
+        public void close() throws XMLStreamException {
+        }
+
+        @Override
+        public String getEncoding() {
+            return encoding;
+        }
+
+        @Override
+        public String getCharacterEncodingScheme() {
+            return charset;
+        }
+
+        @Override
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean isStandalone() {
+            return false;
+        }
+
+        @Override
+        public boolean standaloneSet() {
+            return false;
+        }
+
+        private List<String[]> getExtraNamespaces() {
+            if (event != START_ELEMENT || depth != 1 || inherited == null || inherited.isEmpty())
+              return null;
+            if (extra == null) {
+              extra = new ArrayList<String[]>();
+              XMLStreamReader parent = getParent();
+              int count = parent.getNamespaceCount();
+              for (String[] ns : inherited) {
+                boolean declared = false;
+                for (int n = 0; n < count && !declared; n++) {
+                  String prefix = parent.getNamespacePrefix(n);
+                  declared = prefix == null ? ns[0] == null : prefix.equals(ns[0]);
+                }
+                if (!declared)
+                  extra.add(ns);
+              }
+            }
+            return extra;
+        }
+
+        @Override
+        public int getNamespaceCount() {
+            List<String[]> extra = getExtraNamespaces();
+            return super.getNamespaceCount() + (extra != null ? extra.size() : 0);
+        }
+
+        @Override
+        public String getNamespacePrefix(int index) {
+            int count = super.getNamespaceCount();
+            return index < count ? 
+              super.getNamespacePrefix(index) : 
+              getExtraNamespaces().get(index - count)[0];
+        }
+
+        @Override
+        public String getNamespaceURI(int index) {
+            int count = super.getNamespaceCount();
+            return index < count ? 
+              super.getNamespaceURI(index) : 
+              getExtraNamespaces().get(index - count)[1];
+        }
+    }
+}
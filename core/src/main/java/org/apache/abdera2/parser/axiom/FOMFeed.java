@@ -20,14 +20,19 @@ package org.apache.abdera2.parser.axiom;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.namespace.QName;
 
 import org.apache.abdera2.common.Constants;
 import org.apache.abdera2.common.iri.IRI;
 import org.apache.abdera2.common.selector.Selector;
+import org.apache.abdera2.model.Element;
+import org.apache.abdera2.model.ElementIteratorWrapper;
+import org.apache.abdera2.model.ElementWrapper;
 import org.apache.abdera2.model.Entry;
 import org.apache.abdera2.model.Feed;
 import org.apache.abdera2.model.Source;
@@ -39,11 +44,22 @@ import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.OMNode;
 import org.apache.axiom.om.OMXMLParserWrapper;
 
+import com.google.common.collect.ImmutableList;
+
 @SuppressWarnings("rawtypes")
 public class FOMFeed extends FOMSource implements Feed {
 
     private static final long serialVersionUID = 4552921210185524535L;
 
+    /**
+     * Lazily built index of atom:id to the first entry carrying that id. 
+     * Once built, entries are added to it as they are attached to the feed 
+     * or have their atom:id set. Hits are verified before they are returned; 
+     * the index is rebuilt when a hit turns out to be stale or when the 
+     * first entry for an id can no longer be told
+     */
+    private transient Map<IRI,Entry> entryIndex;
+
     public FOMFeed() {
         super(Constants.FEED, new FOMDocument<Feed>(), new FOMFactory());
     }
@@ -72,6 +88,25 @@ public class FOMFeed extends FOMSource implements Feed {
         return _getChildrenAsSet(ENTRY);
     }
 
+    public int getEntryCount() {
+        int count = 0;
+        for (Iterator<?> i = getChildrenWithName(ENTRY); i.hasNext(); i.next())
+            count++;
+        return count;
+    }
+
+    public List<Entry> getEntries(int offset, int count) {
+        if (offset < 0 || count < 0)
+            throw new IndexOutOfBoundsException();
+        ImmutableList.Builder<Entry> list = ImmutableList.builder();
+        Iterator<?> i = getChildrenWithName(ENTRY);
+        for (int n = 0; n < offset && i.hasNext(); n++)
+            i.next();
+        for (int n = 0; n < count && i.hasNext(); n++)
+            list.add(getFactory().<Entry>getElementWrapper((Element)i.next()));
+        return list.build();
+    }
+
     public Feed addEntry(Entry entry) {
         complete();
         addChild((OMElement)entry);
@@ -149,10 +184,13 @@ public class FOMFeed extends FOMSource implements Feed {
         complete();
         if (comparator == null)
             return this;
-        List<Entry> entries = this.getEntries();
-        Entry[] a = entries.toArray(new Entry[entries.size()]);
+        Entry[] a = new Entry[getEntryCount()];
+        Iterator<Entry> i = 
+          new ElementIteratorWrapper<Entry>(getFactory(), getChildrenWithName(ENTRY));
+        for (int n = 0; n < a.length; n++)
+            a[n] = i.next();
         Arrays.sort(a, comparator);
-        for (Entry e : entries) {
+        for (Entry e : a) {
             e.discard();
         }
         for (Entry e : a) {
@@ -214,13 +252,66 @@ public class FOMFeed extends FOMSource implements Feed {
     public Entry getEntry(String id) {
         if (id == null)
             return null;
-        List<Entry> l = getEntries();
-        for (Entry e : l) {
+        IRI iri = new IRI(id);
+        Map<IRI,Entry> index = entryIndex;
+        if (index == null)
+            index = buildEntryIndex();
+        Entry entry = index.get(iri);
+        if (entry == null || isIndexed(entry, iri))
+            return entry;
+        // the entry has been moved or given another id since it was indexed
+        return buildEntryIndex().get(iri);
+    }
+
+    /**
+     * Adds an entry to the atom:id index, if one has been built. Called 
+     * when the entry is attached to this feed and when its atom:id is set
+     */
+    void indexEntry(Entry entry) {
+        Map<IRI,Entry> index = entryIndex;
+        if (index == null)
+            return;
+        IRI id = entry.getId();
+        if (id == null)
+            return;
+        Entry current = index.get(id);
+        if (current == null || !isIndexed(current, id))
+            index.put(id, getFactory().<Entry>getElementWrapper(entry));
+        else if (internal(current) != internal(entry))
+            // two entries share the id and which comes first is not known
+            entryIndex = null;
+    }
+
+    private Map<IRI,Entry> buildEntryIndex() {
+        complete();
+        Map<IRI,Entry> index = new HashMap<IRI,Entry>();
+        for (Iterator<Entry> i = 
+               new ElementIteratorWrapper<Entry>(getFactory(), getChildrenWithName(ENTRY)); 
+             i.hasNext();) {
+            Entry e = i.next();
             IRI eid = e.getId();
-            if (eid != null && eid.equals(new IRI(id)))
-                return e;
+            if (eid != null && !index.containsKey(eid))
+                index.put(eid, e);
         }
-        return null;
+        entryIndex = index;
+        return index;
+    }
+
+    /**
+     * Entries can be detached or moved through the Axiom API without this 
+     * feed being told, so verify an index hit before returning it
+     */
+    private boolean isIndexed(Entry entry, IRI id) {
+        Object internal = internal(entry);
+        return internal instanceof OMNode && 
+               ((OMNode)internal).getParent() == this && 
+               id.equals(entry.getId());
+    }
+
+    private static Object internal(Entry entry) {
+        return entry instanceof ElementWrapper ? 
+          ((ElementWrapper)entry).getInternal() : 
+          entry;
     }
 
     public List<Entry> getEntries(Selector selector) {
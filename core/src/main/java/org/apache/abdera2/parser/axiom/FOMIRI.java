@@ -61,11 +61,25 @@ public class FOMIRI extends FOMElement implements IRIElement {
         complete();
         if (iri != null)
             ((Element)this).setText((new IRI(iri)).toString());
-        else
+        else {
             _removeAllChildren();
+            idChanged();
+        }
         return this;
     }
 
+    @Override
+    public void setText(String text) {
+        super.setText(text);
+        idChanged();
+    }
+
+    private void idChanged() {
+        OMContainer parent = getParent();
+        if (parent instanceof FOMEntry && ID.equals(getQName()))
+            ((FOMEntry)parent).idChanged();
+    }
+
     public IRI getResolvedValue() {
         return _resolve(getResolvedBaseUri(), getValue());
     }
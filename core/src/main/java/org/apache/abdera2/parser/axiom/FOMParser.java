@@ -36,6 +36,7 @@ import org.apache.abdera2.factory.Factory;
 import org.apache.abdera2.model.Document;
 import org.apache.abdera2.model.Element;
 import org.apache.abdera2.parser.AbstractParser;
+import org.apache.abdera2.parser.EntryIterator;
 import org.apache.abdera2.parser.ParseException;
 import org.apache.abdera2.parser.Parser;
 import org.apache.abdera2.parser.ParserOptions;
@@ -79,7 +80,7 @@ public class FOMParser extends AbstractParser implements Parser {
         return factory;
     }
 
-    private <T extends Element> Document<T> getDocument(FOMBuilder builder, IRI base, ParserOptions options)
+    static <T extends Element> Document<T> getDocument(FOMBuilder builder, IRI base, ParserOptions options)
         throws ParseException {
         Document<T> document = builder.getFomDocument();
         try {
@@ -104,30 +105,26 @@ public class FOMParser extends AbstractParser implements Parser {
         try {
             if (options == null)
               options = getDefaultParserOptions();
-            if (!Iterables.isEmpty(options.getCompressionCodecs()))
-              in = Compression.wrap(in, options.getCompressionCodecs());
-            String charset = options.getCharset();
-            if (charset == null && options.getAutodetectCharset()) {
-                XMLStreamSniffingInputStream sin =
-                    (in instanceof XMLStreamSniffingInputStream) ? 
-                      (XMLStreamSniffingInputStream)in : 
-                      new XMLStreamSniffingInputStream(in);
-                charset = sin.getEncoding();
-                if (charset != null)
-                  options = options.usingCharset(charset);
-                in = sin;
-            }
-            if (options.getFilterRestrictedCharacters()) {
-                Reader rdr =
-                    (charset == null)
-                        ? new XmlRestrictedCharReader(in, options.getFilterRestrictedCharacterReplacement())
-                        : new XmlRestrictedCharReader(in, charset, options.getFilterRestrictedCharacterReplacement());
-                return parse(StAXUtils.createXMLStreamReader(rdr), base, options);
-            } else {
-                XMLStreamReader xmlreader =
-                    (charset == null) ? createXMLStreamReader(in) : createXMLStreamReader(in, charset);
-                return parse(xmlreader, base, options);
-            }
+            in = prepareInputStream(in, options);
+            options = detectCharset(in, options);
+            return parse(createXMLStreamReader(in, options), base, options);
+        } catch (Exception e) {
+            if (!(e instanceof ParseException))
+                e = new ParseException(e);
+            throw (ParseException)e;
+        }
+    }
+
+    @Override
+    public EntryIterator parseEntries(InputStream in, String base, ParserOptions options) throws ParseException {
+        if (in == null)
+            throw new IllegalArgumentException(Localizer.get("INPUTSTREAM.NOT.NULL"));
+        try {
+            if (options == null)
+              options = getDefaultParserOptions();
+            in = prepareInputStream(in, options);
+            options = detectCharset(in, options);
+            return parseEntries(createXMLStreamReader(in, options), base, options);
         } catch (Exception e) {
             if (!(e instanceof ParseException))
                 e = new ParseException(e);
@@ -135,6 +132,58 @@ public class FOMParser extends AbstractParser implements Parser {
         }
     }
 
+    @Override
+    public EntryIterator parseEntries(XMLStreamReader reader, String base, ParserOptions options)
+        throws ParseException {
+        try {
+            if (options == null)
+              options = getDefaultParserOptions();
+            return new FOMEntryIterator(getFomFactory(options), reader, base != null ? new IRI(base) : null, options);
+        } catch (Exception e) {
+            if (!(e instanceof ParseException))
+                e = new ParseException(e);
+            throw (ParseException)e;
+        }
+    }
+
+    /**
+     * Apply the configured compression codecs and, if the charset is to be autodetected, wrap the stream so that the
+     * encoding can be sniffed
+     */
+    private static InputStream prepareInputStream(InputStream in, ParserOptions options) throws Exception {
+        if (!Iterables.isEmpty(options.getCompressionCodecs()))
+          in = Compression.wrap(in, options.getCompressionCodecs());
+        if (options.getCharset() == null && 
+            options.getAutodetectCharset() && 
+            !(in instanceof XMLStreamSniffingInputStream))
+          in = new XMLStreamSniffingInputStream(in);
+        return in;
+    }
+
+    private static ParserOptions detectCharset(InputStream in, ParserOptions options) {
+        if (options.getCharset() == null && 
+            options.getAutodetectCharset() && 
+            in instanceof XMLStreamSniffingInputStream) {
+            String charset = ((XMLStreamSniffingInputStream)in).getEncoding();
+            if (charset != null)
+              options = options.usingCharset(charset);
+        }
+        return options;
+    }
+
+    private static XMLStreamReader createXMLStreamReader(InputStream in, ParserOptions options) throws Exception {
+        String charset = options.getCharset();
+        if (options.getFilterRestrictedCharacters()) {
+            Reader rdr =
+                (charset == null)
+                    ? new XmlRestrictedCharReader(in, options.getFilterRestrictedCharacterReplacement())
+                    : new XmlRestrictedCharReader(in, charset, options.getFilterRestrictedCharacterReplacement());
+            return StAXUtils.createXMLStreamReader(rdr);
+        } else {
+            return (charset == null) ? createXMLStreamReader(in) : createXMLStreamReader(in, charset);
+        }
+    }
+
     public <T extends Element> Document<T> parse(Reader in, String base, ParserOptions options) throws ParseException {
         if (in == null)
             throw new IllegalArgumentException(Localizer.get("READER.NOT.NULL"));
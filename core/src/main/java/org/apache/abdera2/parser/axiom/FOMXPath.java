@@ -18,9 +18,12 @@
 package org.apache.abdera2.parser.axiom;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import javax.xml.namespace.QName;
 
@@ -28,6 +31,7 @@ import org.apache.abdera2.Abdera;
 import org.apache.abdera2.model.Base;
 import org.apache.abdera2.model.ElementWrapper;
 import org.apache.abdera2.xpath.AbstractXPath;
+import org.apache.abdera2.xpath.CompiledXPath;
 import org.apache.abdera2.xpath.XPathException;
 import org.apache.axiom.om.OMAttribute;
 import org.apache.axiom.om.xpath.DocumentNavigator;
@@ -40,11 +44,22 @@ import org.jaxen.SimpleVariableContext;
 import org.jaxen.VariableContext;
 import org.jaxen.XPath;
 
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 @SuppressWarnings("unchecked")
 public class FOMXPath extends AbstractXPath {
 
-    private final Map<QName, Function> functions;
-    private final Map<QName, Object> variables;
+    /**
+     * The default maximum number of compiled expressions retained by each FOMXPath instance
+     */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private volatile Map<QName, Function> functions;
+    private volatile Map<QName, Object> variables;
+    private final Cache<CacheKey, FOMCompiledXPath> cache;
 
     public FOMXPath(Abdera abdera) {
         this(null, null, null);
@@ -57,9 +72,17 @@ public class FOMXPath extends AbstractXPath {
     protected FOMXPath(Map<String, String> defaultNamespaces,
                        Map<QName, Function> defaultFunctions,
                        Map<QName, Object> defaultVariables) {
+        this(defaultNamespaces, defaultFunctions, defaultVariables, DEFAULT_CACHE_SIZE);
+    }
+
+    protected FOMXPath(Map<String, String> defaultNamespaces,
+                       Map<QName, Function> defaultFunctions,
+                       Map<QName, Object> defaultVariables,
+                       int cacheSize) {
         super(defaultNamespaces);
-        functions = (defaultFunctions != null) ? defaultFunctions : initDefaultFunctions();
-        variables = (defaultVariables != null) ? defaultVariables : initDefaultVariables();
+        functions = snapshot((defaultFunctions != null) ? defaultFunctions : initDefaultFunctions());
+        variables = snapshot((defaultVariables != null) ? defaultVariables : initDefaultVariables());
+        cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
     }
 
     protected Map<String, String> initDefaultNamespaces() {
@@ -79,6 +102,10 @@ public class FOMXPath extends AbstractXPath {
         return variables;
     }
 
+    private static <K, V> Map<K, V> snapshot(Map<K, V> map) {
+        return map != null ? Collections.unmodifiableMap(new HashMap<K, V>(map)) : null;
+    }
+
     public static XPath getXPath(String path) throws JaxenException {
         return getXPath(path, null);
     }
@@ -109,8 +136,13 @@ public class FOMXPath extends AbstractXPath {
                                  Map<String, String> namespaces,
                                  Map<QName, Function> functions,
                                  Map<QName, Object> variables) throws JaxenException {
-        DocumentNavigator nav = new DocumentNavigator();
-        XPath contextpath = new BaseXPath(path, nav);
+        return configure(new BaseXPath(path, new DocumentNavigator()), namespaces, functions, variables);
+    }
+
+    private static <X extends XPath>X configure(X contextpath,
+                                                 Map<String, String> namespaces,
+                                                 Map<QName, Function> functions,
+                                                 Map<QName, Object> variables) throws JaxenException {
         if (namespaces != null) {
             for (Map.Entry<String, String> entry : namespaces.entrySet()) {
                 contextpath.addNamespace(entry.getKey(), entry.getValue());
@@ -130,27 +162,46 @@ public class FOMXPath extends AbstractXPath {
         return getXPath(path, namespaces, null, null);
     }
 
+    public CompiledXPath compile(String path, Map<String, String> namespaces) throws XPathException {
+        return compile(path, namespaces, functions, variables);
+    }
+
+    /**
+     * Return the compiled form of the specified path. Compiled expressions are cached (up to the configured maximum),
+     * keyed by the path, namespaces, functions and variables, so repeated evaluation of the same expressions does not
+     * reparse them
+     */
+    public CompiledXPath compile(final String path,
+                                 Map<String, String> namespaces,
+                                 Map<QName, Function> functions,
+                                 Map<QName, Object> variables) throws XPathException {
+        CacheKey key = new CacheKey(path, namespaces, functions, variables);
+        FOMCompiledXPath xpath = cache.getIfPresent(key);
+        if (xpath == null) {
+          // the caller's maps may change after this call, so the key that
+          // is retained in the cache has to take a copy of them
+          final CacheKey stable = key.snapshot();
+          try {
+            xpath = cache.get(stable, new Callable<FOMCompiledXPath>() {
+              public FOMCompiledXPath call() throws Exception {
+                return new FOMCompiledXPath(path, stable);
+              }
+            });
+          } catch (ExecutionException e) {
+            throw new XPathException(e.getCause());
+          } catch (UncheckedExecutionException e) {
+            throw new XPathException(e.getCause());
+          }
+        }
+        return xpath;
+    }
+
     public List<Object> selectNodes(String path,
                             Base base,
                             Map<String, String> namespaces,
                             Map<QName, Function> functions,
                             Map<QName, Object> variables) throws XPathException {
-        try {
-            base = getElementWrapped(base);
-            List<Object> nodes = new ArrayList<Object>();
-            XPath xpath = getXPath(path, namespaces, functions, variables);
-            List<Object> results = xpath.selectNodes(base);
-            for (Object obj : results) {
-                if (obj instanceof OMAttribute) {
-                    nodes.add(new FOMAttribute((OMAttribute)obj));
-                } else {
-                    nodes.add(obj);
-                }
-            }
-            return nodes;
-        } catch (JaxenException e) {
-            throw new XPathException(e);
-        }
+        return (List<Object>)compile(path, namespaces, functions, variables).selectNodes(base);
     }
 
     public List<Object> selectNodes(String path, Base base, Map<String, String> namespaces) throws XPathException {
@@ -162,16 +213,7 @@ public class FOMXPath extends AbstractXPath {
                                    Map<String, String> namespaces,
                                    Map<QName, Function> functions,
                                    Map<QName, Object> variables) throws XPathException {
-        try {
-            base = getElementWrapped(base);
-            XPath xpath = getXPath(path, namespaces, functions, variables);
-            Object obj = xpath.selectSingleNode(base);
-            if (obj instanceof OMAttribute)
-                obj = new FOMAttribute((OMAttribute)obj);
-            return obj;
-        } catch (JaxenException e) {
-            throw new XPathException(e);
-        }
+        return compile(path, namespaces, functions, variables).selectSingleNode(base);
     }
 
     public Object selectSingleNode(String path, Base base, Map<String, String> namespaces) throws XPathException {
@@ -183,13 +225,7 @@ public class FOMXPath extends AbstractXPath {
                            Map<String, String> namespaces,
                            Map<QName, Function> functions,
                            Map<QName, Object> variables) throws XPathException {
-        try {
-            base = getElementWrapped(base);
-            XPath xpath = getXPath(path, namespaces, functions, variables);
-            return xpath.evaluate(base);
-        } catch (JaxenException e) {
-            throw new XPathException(e);
-        }
+        return compile(path, namespaces, functions, variables).evaluate(base);
     }
 
     public Object evaluate(String path, Base base, Map<String, String> namespaces) throws XPathException {
@@ -201,13 +237,7 @@ public class FOMXPath extends AbstractXPath {
                           Map<String, String> namespaces,
                           Map<QName, Function> functions,
                           Map<QName, Object> variables) throws XPathException {
-        try {
-            base = getElementWrapped(base);
-            XPath xpath = getXPath(path, namespaces, functions, variables);
-            return xpath.stringValueOf(base);
-        } catch (JaxenException e) {
-            throw new XPathException(e);
-        }
+        return compile(path, namespaces, functions, variables).valueOf(base);
     }
 
     public String valueOf(String path, Base base, Map<String, String> namespaces) throws XPathException {
@@ -219,13 +249,7 @@ public class FOMXPath extends AbstractXPath {
                                   Map<String, String> namespaces,
                                   Map<QName, Function> functions,
                                   Map<QName, Object> variables) throws XPathException {
-        try {
-            base = getElementWrapped(base);
-            XPath xpath = getXPath(path, namespaces, functions, variables);
-            return xpath.booleanValueOf(base);
-        } catch (JaxenException e) {
-            throw new XPathException(e);
-        }
+        return compile(path, namespaces, functions, variables).booleanValueOf(base);
     }
 
     public boolean booleanValueOf(String path, Base base, Map<String, String> namespaces) throws XPathException {
@@ -237,41 +261,178 @@ public class FOMXPath extends AbstractXPath {
                                  Map<String, String> namespaces,
                                  Map<QName, Function> functions,
                                  Map<QName, Object> variables) throws XPathException {
-        try {
-            base = getElementWrapped(base);
-            XPath xpath = getXPath(path, namespaces, functions, variables);
-            return xpath.numberValueOf(base);
-        } catch (JaxenException e) {
-            throw new XPathException(e);
-        }
+        return compile(path, namespaces, functions, variables).numericValueOf(base);
     }
 
     public Number numericValueOf(String path, Base base, Map<String, String> namespaces) throws XPathException {
         return numericValueOf(path, base, namespaces, functions, variables);
     }
 
-    public synchronized Map<QName, Function> getDefaultFunctions() {
+    public Map<QName, Function> getDefaultFunctions() {
         return new HashMap<QName, Function>(functions);
     }
 
-    public synchronized void setDefaultFunctions(Map<QName, Function> functions) {
-        this.functions.clear();
-        this.functions.putAll(functions);
+    public void setDefaultFunctions(Map<QName, Function> functions) {
+        this.functions = snapshot(functions);
     }
 
-    public synchronized Map<QName, Object> getDefaultVariables() {
+    public Map<QName, Object> getDefaultVariables() {
         return new HashMap<QName, Object>(variables);
     }
 
-    public synchronized void setDefaultVariables(Map<QName, Object> variables) {
-        this.variables.clear();
-        this.variables.putAll(variables);
+    public void setDefaultVariables(Map<QName, Object> variables) {
+        this.variables = snapshot(variables);
     }
 
-    private Base getElementWrapped(Base base) {
+    /**
+     * Discard all cached compiled expressions
+     */
+    public void clearCache() {
+        cache.invalidateAll();
+    }
+
+    private static Base getElementWrapped(Base base) {
         if (base instanceof ElementWrapper) {
             base = ((ElementWrapper)base).getInternal();
         }
         return base;
     }
+
+    private static final class CacheKey {
+        private final String path;
+        private final Map<String, String> namespaces;
+        private final Map<QName, Function> functions;
+        private final Map<QName, Object> variables;
+        private final int hash;
+
+        CacheKey(String path,
+                 Map<String, String> namespaces,
+                 Map<QName, Function> functions,
+                 Map<QName, Object> variables) {
+            this.path = path;
+            this.namespaces = namespaces;
+            this.functions = functions;
+            this.variables = variables;
+            this.hash = Objects.hashCode(path, namespaces, functions, variables);
+        }
+
+        CacheKey snapshot() {
+            return new CacheKey(path, FOMXPath.snapshot(namespaces), FOMXPath.snapshot(functions), FOMXPath.snapshot(variables));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof CacheKey))
+                return false;
+            CacheKey other = (CacheKey)obj;
+            return hash == other.hash && 
+              Objects.equal(path, other.path) && 
+              Objects.equal(namespaces, other.namespaces) && 
+              Objects.equal(functions, other.functions) && 
+              Objects.equal(variables, other.variables);
+        }
+    }
+
+    /**
+     * Jaxen lazily creates the evaluation support for an expression on first use; forcing that to happen before the
+     * expression is published makes the compiled expression safe to share between threads
+     */
+    private static final class PreparedXPath extends BaseXPath {
+        private static final long serialVersionUID = 5253146612325765624L;
+
+        PreparedXPath(String path) throws JaxenException {
+            super(path, new DocumentNavigator());
+        }
+
+        PreparedXPath prepare() {
+            getContextSupport();
+            return this;
+        }
+    }
+
+    private static final class FOMCompiledXPath implements CompiledXPath {
+        private final String path;
+        private final XPath xpath;
+
+        FOMCompiledXPath(String path, CacheKey key) throws JaxenException {
+            this.path = path;
+            this.xpath = configure(new PreparedXPath(path), key.namespaces, key.functions, key.variables).prepare();
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<?> selectNodes(Base base) throws XPathException {
+            try {
+                List<Object> results = xpath.selectNodes(getElementWrapped(base));
+                List<Object> nodes = new ArrayList<Object>(results.size());
+                for (Object obj : results) {
+                    if (obj instanceof OMAttribute) {
+                        nodes.add(new FOMAttribute((OMAttribute)obj));
+                    } else {
+                        nodes.add(obj);
+                    }
+                }
+                return nodes;
+            } catch (JaxenException e) {
+                throw new XPathException(e);
+            }
+        }
+
+        public Object selectSingleNode(Base base) throws XPathException {
+            try {
+                Object obj = xpath.selectSingleNode(getElementWrapped(base));
+                if (obj instanceof OMAttribute)
+                    obj = new FOMAttribute((OMAttribute)obj);
+                return obj;
+            } catch (JaxenException e) {
+                throw new XPathException(e);
+            }
+        }
+
+        public Object evaluate(Base base) throws XPathException {
+            try {
+                return xpath.evaluate(getElementWrapped(base));
+            } catch (JaxenException e) {
+                throw new XPathException(e);
+            }
+        }
+
+        public String valueOf(Base base) throws XPathException {
+            try {
+                return xpath.stringValueOf(getElementWrapped(base));
+            } catch (JaxenException e) {
+                throw new XPathException(e);
+            }
+        }
+
+        public boolean booleanValueOf(Base base) throws XPathException {
+            try {
+                return xpath.booleanValueOf(getElementWrapped(base));
+            } catch (JaxenException e) {
+                throw new XPathException(e);
+            }
+        }
+
+        public Number numericValueOf(Base base) throws XPathException {
+            try {
+                return xpath.numberValueOf(getElementWrapped(base));
+            } catch (JaxenException e) {
+                throw new XPathException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
 }
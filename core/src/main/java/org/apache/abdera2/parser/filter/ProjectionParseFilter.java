@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.parser.filter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.apache.abdera2.common.Constants;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * <p>A ParseFilter that projects the parsed document down to a declared 
+ * set of paths. Only the elements along those paths are materialized; 
+ * everything else is skipped by the parser without being built.</p>
+ * 
+ * <p>Paths are evaluated relative to the document element. A path whose
+ * first step names the document element itself starts from it, so 
+ * <code>entry/id</code> selects the id of each entry in a feed document 
+ * as well as the id of an entry document. Each step is a QName, 
+ * <code>{namespace}local</code> or a local name in the Atom namespace, 
+ * optionally followed by one or more attribute predicates naming the 
+ * only attributes to keep, e.g. <code>link[@rel][@href]</code>. The 
+ * complete subtree of the last step of a path is kept; xml:base and 
+ * xml:lang are kept wherever they appear.</p>
+ * 
+ * <pre>
+ *  ParserOptions options = 
+ *    parser.makeDefaultParserOptions()
+ *      .project("entry/id","entry/updated","entry/link[@rel][@href]")
+ *      .get();
+ * </pre>
+ * 
+ * <p>Once every child step of an element has been seen, the parser skips
+ * the remainder of that element. Steps that may occur more than once 
+ * (the Atom entry, link, category, author and contributor elements, or 
+ * any step marked with a trailing <code>*</code>, as in 
+ * <code>entry/{urn:foo}bar*</code>) keep the enclosing element open 
+ * until its end.</p>
+ * 
+ * <p>When used outside of the Abdera parser, or through the plain 
+ * ParseFilter interface, the filter degrades to a whitelist of every 
+ * QName named in any path.</p>
+ */
+public class ProjectionParseFilter 
+  extends AbstractSetParseFilter {
+
+  public static Builder make() {
+    return new Builder();
+  }
+  
+  public static class Builder 
+    extends AbstractSetParseFilter.Builder<ProjectionParseFilter> {
+    
+    final ImmutableList.Builder<String> paths = 
+      ImmutableList.builder();
+    
+    public Builder path(String path) {
+      for (Step step : parse(checkNotNull(path))) {
+        add(step.name);
+        if (step.attributes != null)
+          for (QName attribute : step.attributes)
+            add(step.name, attribute);
+      }
+      paths.add(path);
+      return this;
+    }
+    
+    public Builder path(String... paths) {
+      for (String path : paths)
+        path(path);
+      return this;
+    }
+    
+    public ProjectionParseFilter get() {
+      return new ProjectionParseFilter(this);
+    }
+  }
+  
+  private static final long serialVersionUID = 6455738826513082744L;
+  
+  private static final Set<QName> REPEATABLE = 
+    ImmutableSet.of(
+      Constants.ENTRY,
+      Constants.LINK,
+      Constants.CATEGORY,
+      Constants.AUTHOR,
+      Constants.CONTRIBUTOR);
+  
+  private final ImmutableList<String> paths;
+  private transient Step root;
+  
+  protected ProjectionParseFilter(Builder builder) {
+    super(builder);
+    this.paths = builder.paths.build();
+    this.root = root();
+  }
+  
+  public Iterable<String> getPaths() {
+    return paths;
+  }
+  
+  public boolean acceptable(QName qname) {
+    return checkThrow(contains(qname),qname,null);
+  }
+  
+  public boolean acceptable(QName qname, QName attribute) {
+    Step step = root().find(qname);
+    return checkThrow(
+      step == null || step.acceptsAttribute(attribute),
+      qname,attribute);
+  }
+  
+  /**
+   * The step the document element starts from. If the document element
+   * is named by the first step of a path, the returned step combines 
+   * that step's children with the paths that start below the document 
+   * element; otherwise it holds only the latter. Never null
+   */
+  public Step getDocumentStep(QName qname) {
+    Step root = root();
+    Step step = root.getChild(qname);
+    if (step == null) 
+      return root;
+    if (step.isLeaf())
+      return step;
+    Step merged = new Step(qname, step.repeatable);
+    merged.attributes = step.attributes;
+    merged.merge(root);
+    merged.children.remove(qname);
+    merged.merge(step);
+    return merged;
+  }
+  
+  private Step root() {
+    Step root = this.root;
+    if (root == null) {
+      root = new Step(null, false);
+      root.attributes = new HashSet<QName>();
+      for (String path : paths) {
+        Step current = root;
+        List<Step> steps = parse(path);
+        for (int n = 0; n < steps.size(); n++) {
+          Step step = steps.get(n);
+          boolean last = n == steps.size() - 1;
+          // without a predicate, the last step keeps every attribute and
+          // the steps leading to it keep none but xml:base and xml:lang
+          Set<QName> attributes = 
+            step.attributes != null ? step.attributes : 
+            last ? null : new HashSet<QName>();
+          Step existing = current.children.get(step.name);
+          if (existing == null) {
+            step.attributes = attributes;
+            current.children.put(step.name, step);
+            existing = step;
+          } else {
+            existing.repeatable |= step.repeatable;
+            if (attributes == null)
+              existing.attributes = null;
+            else 
+              existing.addAttributes(attributes);
+          }
+          if (last)
+            existing.leaf = true;
+          current = existing;
+        }
+      }
+      this.root = root;
+    }
+    return root;
+  }
+  
+  private static List<Step> parse(String path) {
+    List<Step> steps = new ArrayList<Step>();
+    int depth = 0, s = 0;
+    for (int n = 0; n <= path.length(); n++) {
+      char c = n < path.length() ? path.charAt(n) : '/';
+      if (c == '{') depth++;
+      else if (c == '}') depth--;
+      else if (c == '/' && depth == 0) {
+        steps.add(parseStep(path.substring(s,n).trim(), path));
+        s = n + 1;
+      }
+    }
+    return steps;
+  }
+  
+  private static Step parseStep(String step, String path) {
+    checkArgument(step.length() > 0, "Empty step in projection path %s", path);
+    int p = step.indexOf("[@", step.lastIndexOf('}') + 1);
+    String name = p > -1 ? step.substring(0,p) : step;
+    boolean repeatable = name.endsWith("*");
+    if (repeatable)
+      name = name.substring(0,name.length()-1);
+    QName qname = qname(name, Constants.ATOM_NS, path);
+    Step result = new Step(qname, repeatable || REPEATABLE.contains(qname));
+    while (p > -1) {
+      int e = step.indexOf(']', p);
+      checkArgument(e > -1, "Unterminated predicate in projection path %s", path);
+      if (result.attributes == null)
+        result.attributes = new HashSet<QName>();
+      result.attributes.add(qname(step.substring(p+2,e), "", path));
+      p = step.indexOf("[@", e);
+    }
+    return result;
+  }
+  
+  private static QName qname(String name, String ns, String path) {
+    name = name.trim();
+    if (name.startsWith("{")) {
+      int e = name.indexOf('}');
+      checkArgument(e > 0, "Malformed QName in projection path %s", path);
+      ns = name.substring(1,e);
+      name = name.substring(e+1);
+    }
+    checkArgument(name.length() > 0, "Missing name in projection path %s", path);
+    return new QName(ns, name);
+  }
+  
+  /**
+   * A single step of the compiled projection. A leaf step keeps the 
+   * element's entire subtree; any other step keeps only the children 
+   * named by its own child steps.
+   */
+  public static final class Step {
+    private final QName name;
+    private final Map<QName,Step> children = 
+      new LinkedHashMap<QName,Step>();
+    private Set<QName> attributes;
+    private boolean repeatable;
+    private boolean leaf;
+    private int required = -2;
+    
+    Step(QName name, boolean repeatable) {
+      this.name = name;
+      this.repeatable = repeatable;
+    }
+    
+    public QName getName() {
+      return name;
+    }
+    
+    public Step getChild(QName qname) {
+      return children.get(qname);
+    }
+    
+    public boolean isLeaf() {
+      return leaf;
+    }
+    
+    public boolean isRepeatable() {
+      return repeatable;
+    }
+    
+    public boolean acceptsAttribute(QName attribute) {
+      return attributes == null || 
+        Constants.XML_NS.equals(attribute.getNamespaceURI()) ||
+        attributes.contains(attribute);
+    }
+    
+    /**
+     * The number of distinct child steps that must be seen before the 
+     * remainder of the element can be skipped, or -1 if it cannot be
+     * skipped because the element is a leaf or a child step may repeat
+     */
+    public int getRequired() {
+      if (required == -2) {
+        int required = leaf || children.isEmpty() ? -1 : children.size();
+        for (Step child : children.values())
+          if (child.repeatable)
+            required = -1;
+        this.required = required;
+      }
+      return required;
+    }
+    
+    Step find(QName qname) {
+      Step step = children.get(qname);
+      if (step == null)
+        for (Step child : children.values())
+          if ((step = child.find(qname)) != null)
+            break;
+      return step;
+    }
+    
+    void merge(Step other) {
+      children.putAll(other.children);
+    }
+    
+    void addAttributes(Set<QName> attributes) {
+      if (this.attributes != null)
+        this.attributes.addAll(attributes);
+    }
+  }
+}
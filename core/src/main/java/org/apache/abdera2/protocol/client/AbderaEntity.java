@@ -17,12 +17,11 @@
  */
 package org.apache.abdera2.protocol.client;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.apache.abdera2.common.io.SpillBuffer;
 import org.apache.abdera2.model.Base;
 import org.apache.abdera2.model.Element.Helper;
 import org.apache.http.Header;
@@ -30,6 +29,9 @@ import org.apache.http.HttpEntity;
 import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.message.BasicHeader;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
 /**
  * Wraps an Abdera object for use with the Apache HTTP client.
  */
@@ -39,8 +41,9 @@ public class AbderaEntity
 
     private final Header ct;
     private final Base base;
-    private final long len;
-    private byte[] buf = null;
+    private final BufferMode mode;
+    private long len = -2;
+    private SpillBuffer buffer = null;
 
     /**
      * Create the entity using the specified Abdera document or element. 
@@ -78,28 +81,40 @@ public class AbderaEntity
      * The content length will be automatically calculated if the 
      * calclen argument is true. The Content-Type specified will be
      * used. If contentType is null, the Content-Type will be automatically
-     * detected based on the type of element passed in.
+     * detected based on the type of element passed in. The length is 
+     * calculated by serializing the content without buffering it 
+     * (BufferMode.MEASURE)
      */
     public AbderaEntity(Base base, boolean calclen, String contentType) {
-      if (base == null) 
+      this(base, calclen ? BufferMode.MEASURE : BufferMode.STREAM, contentType);
+    }
+    
+    /**
+     * Create the entity using the specified Abdera document or element
+     * and BufferMode. The Content-Type will be automatically detected 
+     * based on the type of element passed in.
+     */
+    public AbderaEntity(Base base, BufferMode mode) {
+      this(base, mode, null);
+    }
+    
+    /**
+     * Create the entity using the specified Abdera document or element
+     * and BufferMode. If contentType is null, the Content-Type will be 
+     * automatically detected based on the type of element passed in.
+     */
+    public AbderaEntity(Base base, BufferMode mode, String contentType) {
+      if (base == null || mode == null) 
         throw new IllegalArgumentException();
       this.base = base;
+      this.mode = mode;
       this.ct = new BasicHeader(
         "Content-Type", 
         contentType!=null?contentType:Helper.getMimeType(base));
-      if (calclen) {
-        long l = -1;
-        try {
-          ByteArrayOutputStream out = 
-            new ByteArrayOutputStream();
-          base.writeTo(out);
-          buf = out.toByteArray();
-          l = buf.length;
-        } catch (Throwable t) {}
-        len = l;
-      } else {
-        len = -1;
-      }
+    }
+
+    public BufferMode getBufferMode() {
+      return mode;
     }
 
     public boolean isRepeatable() {
@@ -107,29 +122,86 @@ public class AbderaEntity
     }
 
     public void writeTo(OutputStream out) throws IOException {
-      base.writeTo(out);
+      if (mode == BufferMode.BUFFER)
+        buffer().writeTo(out);
+      else
+        base.writeTo(out);
     }
     
+    /**
+     * Returns the serialized content. Unless the entity is buffered, the 
+     * content is serialized into a temporary SpillBuffer that is released 
+     * when the returned stream is closed
+     */
     public InputStream getContent() {
+      SpillBuffer buf = null;
       try {
-        if (buf == null) {
-          ByteArrayOutputStream out = 
-            new ByteArrayOutputStream();
-          base.writeTo(out);
-          buf = out.toByteArray();
-        }
-        return new ByteArrayInputStream(buf);
+        if (mode == BufferMode.BUFFER)
+          return buffer().getInputStream();
+        buf = new SpillBuffer();
+        base.writeTo(buf);
+        return buf.getInputStream(true);
       } catch (Throwable t) {
+        if (buf != null) 
+          buf.release();
         throw new RuntimeException(t);
       }
     }
 
     public long getContentLength() {
-        return len;
+      if (len == -2) {
+        long l = -1;
+        try {
+          switch(mode) {
+          case MEASURE:
+            CountingOutputStream out = 
+              new CountingOutputStream(
+                ByteStreams.nullOutputStream());
+            base.writeTo(out);
+            l = out.getCount();
+            break;
+          case BUFFER:
+            l = buffer().length();
+            break;
+          default:
+            break;
+          }
+        } catch (Throwable t) {}
+        len = l;
+      }
+      return len;
+    }
+    
+    private SpillBuffer buffer() throws IOException {
+      if (buffer == null) {
+        SpillBuffer buf = new SpillBuffer();
+        boolean done = false;
+        try {
+          base.writeTo(buf);
+          buf.close();
+          done = true;
+        } finally {
+          if (!done) 
+            buf.release();
+        }
+        buffer = buf;
+      }
+      return buffer;
+    }
+    
+    /**
+     * Releases the buffer held by an entity using BufferMode.BUFFER. The 
+     * content will be serialized again if it is needed afterwards
+     */
+    public void release() {
+      if (buffer != null) {
+        buffer.release();
+        buffer = null;
+      }
     }
 
     public boolean isChunked() {
-      return len == -1;
+      return getContentLength() == -1;
     }
     
     public Header getContentType() {
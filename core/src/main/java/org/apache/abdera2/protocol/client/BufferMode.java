@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.protocol.client;
+
+/**
+ * Determines how AbderaEntity and EntityProviderEntity produce their 
+ * content and whether a Content-Length is sent.
+ */
+public enum BufferMode {
+
+    /**
+     * The content is serialized straight to the connection using chunked 
+     * transfer encoding. Nothing is buffered; retries and calls to 
+     * getContent() serialize the content again
+     */
+    STREAM,
+
+    /**
+     * The content is serialized once to a counting sink to determine the 
+     * Content-Length and again when it is written. Nothing is buffered. 
+     * Only suitable when serializing the same content twice yields the 
+     * same bytes
+     */
+    MEASURE,
+
+    /**
+     * The content is serialized once into a SpillBuffer, which keeps small 
+     * entities in pooled memory and moves large ones to a temporary file. 
+     * The buffer serves the Content-Length, retries and getContent() until 
+     * the entity is released
+     */
+    BUFFER
+
+}
@@ -17,13 +17,12 @@
  */
 package org.apache.abdera2.protocol.client;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
 import org.apache.abdera2.Abdera;
+import org.apache.abdera2.common.io.SpillBuffer;
 import org.apache.abdera2.protocol.EntityProvider;
 import org.apache.abdera2.writer.StreamWriter;
 import org.apache.http.Header;
@@ -31,6 +30,9 @@ import org.apache.http.HttpEntity;
 import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.message.BasicHeader;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
 /**
  * Implementation of HttpEntity based on the EntityProvider interface
  */
@@ -40,8 +42,10 @@ public class EntityProviderEntity
 
     private final Abdera abdera;
     private final EntityProvider provider;
-    private byte[] buf = null;
+    private final BufferMode mode;
+    private SpillBuffer buffer = null;
     private InputStream content = null;
+    private long len = -2;
     private boolean auto_indent = false;
     private String encoding = "UTF-8";
     private final Header ct;
@@ -54,11 +58,32 @@ public class EntityProviderEntity
     public EntityProviderEntity(
         Abdera abdera, 
         EntityProvider provider) {
+          this(abdera, provider, BufferMode.STREAM);
+    }
+    
+    /**
+     * Create the entity using the given BufferMode. BufferMode.MEASURE 
+     * requires the provider to be repeatable and to write the same 
+     * content each time; for other providers the content is buffered
+     */
+    public EntityProviderEntity(
+        Abdera abdera, 
+        EntityProvider provider,
+        BufferMode mode) {
+          if (mode == null)
+            throw new IllegalArgumentException();
           this.abdera = abdera;
           this.provider = provider;
+          this.mode = 
+            mode == BufferMode.MEASURE && !provider.isRepeatable() ? 
+              BufferMode.BUFFER : mode;
           this.ct = new BasicHeader(
             "Content-Type", provider.getContentType());
     }
+    
+    public BufferMode getBufferMode() {
+      return mode;
+    }
 
     private void write(OutputStream out) {
         provider.writeTo(
@@ -68,11 +93,31 @@ public class EntityProviderEntity
     }
 
     public boolean isChunked() {
-      return true;
+      return getContentLength() == -1;
     }
     
     public long getContentLength() {
-      return -1;
+      if (len == -2) {
+        long l = -1;
+        try {
+          switch(mode) {
+          case MEASURE:
+            CountingOutputStream out = 
+              new CountingOutputStream(
+                ByteStreams.nullOutputStream());
+            write(out);
+            l = out.getCount();
+            break;
+          case BUFFER:
+            l = buffer().length();
+            break;
+          default:
+            break;
+          }
+        } catch (Throwable t) {}
+        len = l;
+      }
+      return len;
     }
 
     public Header getContentType() {
@@ -80,36 +125,74 @@ public class EntityProviderEntity
     }
 
     public boolean isRepeatable() {
-        return provider.isRepeatable();
+        return mode == BufferMode.BUFFER || provider.isRepeatable();
     }
 
+    /**
+     * Returns the serialized content. Buffered entities return a new 
+     * stream over the buffer. Otherwise a repeatable provider is written 
+     * into a temporary SpillBuffer that is released when the returned 
+     * stream is closed, and a non-repeatable provider is written once and 
+     * the same stream is returned on every call
+     */
     @Override
     public InputStream getContent() {
-      InputStream in = null;
-      if (isRepeatable()) {
-        if (buf == null) {
-          ByteArrayOutputStream out = new ByteArrayOutputStream();
-          write(out);
-          buf = out.toByteArray();
+      try {
+        if (mode == BufferMode.BUFFER)
+          return buffer().getInputStream();
+        if (!provider.isRepeatable() && content != null)
+          return content;
+        SpillBuffer buf = new SpillBuffer();
+        boolean done = false;
+        try {
+          write(buf);
+          content = buf.getInputStream(true);
+          done = true;
+        } finally {
+          if (!done) 
+            buf.release();
         }
-        in = new ByteArrayInputStream(buf);
-      } else {
-        if (content == null) {
-          if (buf == null) {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            write(out);
-            buf = out.toByteArray();
-          }
-          content = new ByteArrayInputStream(buf);
-        }
-        in = content;
+        return content;
+      } catch (IOException e) {
+        throw new RuntimeException(e);
       }
-      return in;
     }
     
     @Override
     public void writeTo(OutputStream out) throws IOException {
-      write(out);
+      if (mode == BufferMode.BUFFER)
+        buffer().writeTo(out);
+      else
+        write(out);
+    }
+    
+    private SpillBuffer buffer() throws IOException {
+      if (buffer == null) {
+        SpillBuffer buf = new SpillBuffer();
+        boolean done = false;
+        try {
+          write(buf);
+          buf.close();
+          done = true;
+        } finally {
+          if (!done) 
+            buf.release();
+        }
+        buffer = buf;
+      }
+      return buffer;
+    }
+    
+    /**
+     * Releases the buffer held by an entity using BufferMode.BUFFER. A 
+     * repeatable provider will be written again if the content is needed 
+     * afterwards
+     */
+    public void release() {
+      if (buffer != null) {
+        buffer.release();
+        buffer = null;
+      }
     }
 
     public boolean isAutoIndent() {
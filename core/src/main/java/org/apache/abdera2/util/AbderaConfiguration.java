@@ -17,12 +17,16 @@
  */
 package org.apache.abdera2.util;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.abdera2.Abdera;
 import org.apache.abdera2.common.Constants;
@@ -36,6 +40,10 @@ import org.apache.abdera2.protocol.error.ErrorExtensionFactory;
 import org.apache.abdera2.writer.StreamWriter;
 import org.apache.abdera2.writer.Writer;
 
+import com.google.common.base.Supplier;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
  * Provides the basic configuration for the Abdera default implementation. This class should not be accessed by
@@ -47,6 +55,15 @@ public final class AbderaConfiguration
 
     private static final long serialVersionUID = 7460203853824337559L;
 
+    /**
+     * Factories used by newInstance, keyed weakly by the context ClassLoader
+     * and then by the requested class and the configured implementation. 
+     * The factories only hold weak references to the ClassLoader, so a 
+     * discarded ClassLoader (e.g. of an undeployed web application) is 
+     * not kept reachable
+     */
+    private transient volatile LoadingCache<ClassLoader,ConcurrentMap<List<Object>,Supplier<?>>> factories;
+
     public AbderaConfiguration(Abdera abdera) {
         super(null,abdera);
     }
@@ -99,11 +116,51 @@ public final class AbderaConfiguration
         return parsers;
     }
 
+    @SuppressWarnings("unchecked")
     public <T>T newInstance(Abdera abdera, Class<T> _class, String defaultImpl) {
-      return Discover.locate(
-          _class, 
-          abdera.getConfiguration().getConfigurationOption(
-              _class.getName(), defaultImpl), abdera);      
+      String impl = 
+        abdera.getConfiguration().getConfigurationOption(
+          _class.getName(), defaultImpl);
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      if (loader == null)
+        loader = Discover.class.getClassLoader();
+      List<Object> key = Arrays.<Object>asList(_class, impl, abdera);
+      ConcurrentMap<List<Object>,Supplier<?>> factories = 
+        factories().getUnchecked(loader);
+      Supplier<T> factory = (Supplier<T>)factories.get(key);
+      if (factory == null) {
+        factory = Discover.factory(_class, impl, loader, abdera);
+        factories.putIfAbsent(key, factory);
+      }
+      return factory.get();
+    }
+
+    private LoadingCache<ClassLoader,ConcurrentMap<List<Object>,Supplier<?>>> factories() {
+      LoadingCache<ClassLoader,ConcurrentMap<List<Object>,Supplier<?>>> factories = 
+        this.factories;
+      if (factories == null) {
+        synchronized(this) {
+          if ((factories = this.factories) == null)
+            this.factories = factories = 
+              CacheBuilder.newBuilder()
+                .weakKeys()
+                .build(new CacheLoader<ClassLoader,ConcurrentMap<List<Object>,Supplier<?>>>() {
+                  public ConcurrentMap<List<Object>,Supplier<?>> load(ClassLoader loader) {
+                    return new ConcurrentHashMap<List<Object>,Supplier<?>>();
+                  }
+                });
+        }
+      }
+      return factories;
+    }
+
+    /**
+     * Forgets the implementations resolved by newInstance and rescans the 
+     * META-INF/services resources on the next call
+     */
+    public void refresh() {
+      factories().invalidateAll();
+      Discover.refresh();
     }
     
 }
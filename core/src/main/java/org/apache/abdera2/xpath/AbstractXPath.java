@@ -17,6 +17,7 @@
  */
 package org.apache.abdera2.xpath;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,7 +37,9 @@ public abstract class AbstractXPath implements XPath {
     }
 
     protected AbstractXPath(Map<String, String> defaultNamespaces) {
-        namespaces = (defaultNamespaces != null) ? defaultNamespaces : initDefaultNamespaces();
+        namespaces = 
+          Collections.unmodifiableMap(
+            (defaultNamespaces != null) ? defaultNamespaces : initDefaultNamespaces());
     }
 
     protected Map<String, String> initDefaultNamespaces() {
@@ -52,27 +55,31 @@ public abstract class AbstractXPath implements XPath {
     }
 
     public List<?> selectNodes(String path, Base base) throws XPathException {
-        return selectNodes(path, base, getDefaultNamespaces());
+        return selectNodes(path, base, namespaces);
     }
 
     public Object selectSingleNode(String path, Base base) throws XPathException {
-        return selectSingleNode(path, base, getDefaultNamespaces());
+        return selectSingleNode(path, base, namespaces);
     }
 
     public Object evaluate(String path, Base base) throws XPathException {
-        return evaluate(path, base, getDefaultNamespaces());
+        return evaluate(path, base, namespaces);
     }
 
     public String valueOf(String path, Base base) throws XPathException {
-        return valueOf(path, base, getDefaultNamespaces());
+        return valueOf(path, base, namespaces);
     }
 
     public boolean booleanValueOf(String path, Base base) throws XPathException {
-        return booleanValueOf(path, base, getDefaultNamespaces());
+        return booleanValueOf(path, base, namespaces);
     }
 
     public Number numericValueOf(String path, Base base) throws XPathException {
-        return numericValueOf(path, base, getDefaultNamespaces());
+        return numericValueOf(path, base, namespaces);
+    }
+
+    public CompiledXPath compile(String path) throws XPathException {
+        return compile(path, namespaces);
     }
 
 }
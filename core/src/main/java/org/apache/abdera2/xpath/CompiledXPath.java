@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.xpath;
+
+import java.util.List;
+
+import org.apache.abdera2.model.Base;
+
+/**
+ * A precompiled XPath expression. Instances are immutable and threadsafe and can be evaluated repeatedly against any
+ * number of Feed Object Model instances. Acquire instances using XPath.compile
+ */
+public interface CompiledXPath {
+
+    /**
+     * Return the XPath expression
+     */
+    String getPath();
+
+    /**
+     * Return a listing of nodes matching this Path
+     */
+    List<?> selectNodes(Base base) throws XPathException;
+
+    /**
+     * Return the first node matching this Path
+     */
+    Object selectSingleNode(Base base) throws XPathException;
+
+    /**
+     * Evaluate this XPath and return it's value
+     */
+    Object evaluate(Base base) throws XPathException;
+
+    /**
+     * Return the text value of this Path
+     */
+    String valueOf(Base base) throws XPathException;
+
+    /**
+     * Return a boolean representation of this Path
+     */
+    boolean booleanValueOf(Base base) throws XPathException;
+
+    /**
+     * Return a numeric representation of this Path
+     */
+    Number numericValueOf(Base base) throws XPathException;
+
+}
@@ -94,4 +94,16 @@ public interface XPath {
      */
     Number numericValueOf(String path, Base base, Map<String, String> namespaces) throws XPathException;
 
+    /**
+     * Compile the specified Path using the default Namespaces mapping. The returned CompiledXPath is threadsafe and
+     * should be reused when the same expression is evaluated repeatedly
+     */
+    CompiledXPath compile(String path) throws XPathException;
+
+    /**
+     * Compile the specified Path using the specified Namespaces mapping. The returned CompiledXPath is threadsafe and
+     * should be reused when the same expression is evaluated repeatedly
+     */
+    CompiledXPath compile(String path, Map<String, String> namespaces) throws XPathException;
+
 }
@@ -2,10 +2,15 @@ package org.apache.abdera2.ext.activities;
 
 import javax.xml.namespace.QName;
 
+import org.apache.abdera2.Abdera;
 import org.apache.abdera2.activities.model.ASObject;
 import org.apache.abdera2.activities.model.Activity;
 import org.apache.abdera2.activities.model.Collection;
 import org.apache.abdera2.common.xml.XMLVersion;
+import org.apache.abdera2.factory.StreamBuilder;
+import org.apache.abdera2.model.Document;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
 import org.apache.abdera2.model.Text;
 import org.apache.abdera2.writer.StreamWriter;
 import org.joda.time.DateTime;
@@ -168,4 +173,39 @@ public class ActivityToFeedConverter {
       writer.endDocument();
   }
   
+  /**
+   * Builds an atom:feed document directly through the Abdera Factory, 
+   * without serializing and reparsing the XML
+   */
+  public Document<Feed> toDocument(
+    Collection<Activity> stream, 
+    Abdera abdera) {
+      StreamBuilder builder = new StreamBuilder(abdera);
+      convert(stream,builder);
+      return builder.getBase();
+  }
+  
+  /**
+   * Builds an atom:entry document directly through the Abdera Factory, 
+   * without serializing and reparsing the XML
+   */
+  public Document<Entry> toDocument(
+    Activity activity, 
+    Abdera abdera) {
+      StreamBuilder builder = new StreamBuilder(abdera);
+      convert(activity,builder);
+      return builder.getBase();
+  }
+  
+  /**
+   * Builds a single atom:entry that is not attached to a document
+   */
+  public Entry toEntry(
+    Activity activity, 
+    Abdera abdera) {
+      StreamBuilder builder = new StreamBuilder(abdera);
+      writeEntry(activity,builder);
+      return builder.getBase();
+  }
+  
 }
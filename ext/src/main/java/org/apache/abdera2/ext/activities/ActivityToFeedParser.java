@@ -1,23 +1,28 @@
 package org.apache.abdera2.ext.activities;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UnsupportedEncodingException;
 
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.abdera2.Abdera;
 import org.apache.abdera2.activities.model.ASBase;
+import org.apache.abdera2.activities.model.ASObject;
 import org.apache.abdera2.activities.model.Activity;
 import org.apache.abdera2.activities.model.Collection;
 import org.apache.abdera2.activities.model.IO;
 import org.apache.abdera2.common.anno.Name;
 import org.apache.abdera2.model.Document;
 import org.apache.abdera2.model.Element;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
 import org.apache.abdera2.parser.AbstractParser;
+import org.apache.abdera2.parser.EntryIterator;
 import org.apache.abdera2.parser.ParseException;
 import org.apache.abdera2.parser.ParserOptions;
-import org.apache.abdera2.writer.StreamWriter;
+
 import static com.google.common.base.Preconditions.*;
 
 @Name("activity")
@@ -49,22 +54,110 @@ public class ActivityToFeedParser
     ParserOptions options) 
       throws ParseException {
     
-    // first, we read it in as an activity stream thingy
+    // first, we read it in as an activity stream thingy, then build 
+    // the feed object model from it directly
     ASBase as = io.read(in);
     checkNotNull(as);
     checkArgument(as instanceof Collection || as instanceof Activity);
-    StreamWriter sw = abdera.create(StreamWriter.class);
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    sw.setAutoclose(true)
-      .setOutputStream(out,"UTF-8");
-    if (as instanceof Collection) {
-      a2fc.convert((Collection<Activity>)as,sw);
-    } else {
-      a2fc.convert((Activity)as,sw);
+    Document<T> doc = as instanceof Collection ?
+      (Document<T>)a2fc.toDocument((Collection<Activity>)as,abdera()) :
+      (Document<T>)a2fc.toDocument((Activity)as,abdera());
+    if (base != null)
+      doc.setBaseUri(base);
+    return doc;
+  }
+  
+  /**
+   * Converts the items of an Activity Streams collection to atom:entry 
+   * elements one at a time, as they are read from the stream. The header 
+   * is built from the properties of the collection itself
+   */
+  public EntryIterator parseEntries(Reader in) {
+    return parseEntries(in, null);
+  }
+  
+  /**
+   * As parseEntries(Reader), with the given Base URI set on the header 
+   * and on the document of each entry, just as parse does
+   */
+  public EntryIterator parseEntries(Reader in, String base) {
+    return new ActivityEntryIterator(
+      io.<ASObject>readCollectionItems(checkNotNull(in)), 
+      abdera(),
+      base);
+  }
+  
+  public EntryIterator parseEntries(
+    InputStream in, 
+    String base, 
+    ParserOptions options)
+      throws ParseException {
+    String charset = options != null ? options.getCharset() : null;
+    try {
+      return parseEntries(
+        new InputStreamReader(
+          checkNotNull(in), 
+          charset != null ? charset : "UTF-8"),
+        base);
+    } catch (UnsupportedEncodingException e) {
+      throw new ParseException(e);
     }
-    ByteArrayInputStream input = 
-      new ByteArrayInputStream(out.toByteArray());
-    return abdera.getParser().parse(input);
+  }
+  
+  private static final class ActivityEntryIterator 
+    implements EntryIterator {
+    private final IO.ItemIterator<ASObject> items;
+    private final Abdera abdera;
+    private final String base;
+    private Collection<ASObject> collection;
+    private Feed header;
+    ActivityEntryIterator(
+      IO.ItemIterator<ASObject> items, 
+      Abdera abdera,
+      String base) {
+      this.items = items;
+      this.abdera = abdera;
+      this.base = base;
+    }
+    @SuppressWarnings("unchecked")
+    public Feed getHeader() {
+      // the header collection only changes once the items are exhausted
+      Collection<ASObject> current = items.getHeader();
+      if (header == null || current != collection) {
+        collection = current;
+        Document<Feed> doc = a2fc.toDocument(
+          (Collection<Activity>)(Collection<?>)current, abdera);
+        if (base != null)
+          doc.setBaseUri(base);
+        header = doc.getRoot();
+      }
+      return header;
+    }
+    public boolean hasNext() {
+      return items.hasNext();
+    }
+    public Entry next() {
+      ASObject item = items.next();
+      Activity activity = 
+        item instanceof Activity ? 
+          (Activity)item : 
+          item.as(Activity.class);
+      if (base == null)
+        return a2fc.toEntry(activity, abdera);
+      Document<Entry> doc = a2fc.toDocument(activity, abdera);
+      doc.setBaseUri(base);
+      return doc.getRoot();
+    }
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+    public void close() {
+      items.close();
+    }
+  }
+  
+  private Abdera abdera() {
+    return abdera != null ? abdera : Abdera.getInstance();
   }
 
   public <T extends Element> Document<T> parse(
@@ -28,6 +28,7 @@ import org.apache.abdera2.model.Link;
 import org.apache.abdera2.model.Person;
 import org.apache.abdera2.model.Generator;
 import org.apache.abdera2.model.Text;
+import org.apache.abdera2.parser.EntryIterator;
 import static org.apache.abdera2.model.selector.Selectors.withRel;
 
 /**
@@ -71,11 +72,47 @@ public class FeedToActivityConverter {
     }
     writer.complete();
   }
+  
+  /**
+   * Converts the entries of a feed to activities as the parser reaches 
+   * them, writing each one to the CollectionWriter before the next entry 
+   * is parsed. The collection header is taken from the feed metadata that 
+   * precedes the first entry. The EntryIterator is closed when done
+   */
+  public void convert(EntryIterator entries, CollectionWriter writer) {
+    convert(entries,writer,null);
+  }
+  
+  @SuppressWarnings({"rawtypes","unchecked"})
+  public void convert(
+    EntryIterator entries, 
+    CollectionWriter writer, 
+    Selector selector) {
+    try {
+      Feed feed = entries.getHeader();
+      if (feed != null) {
+        ASBase header = header(feed);
+        if (header != null)
+          writer.writeHeader(header);
+      }
+      while (entries.hasNext()) {
+        Entry entry = entries.next();
+        if (selector != null && !selector.select(entry))
+          continue;
+        Activity activity = item(entry);
+        if (activity != null)
+          writer.writeObject(activity);
+      }
+    } finally {
+      entries.close();
+    }
+    writer.complete();
+  }
 
   protected ASBase header(Feed feed) {
     CollectionBuilder<Activity> builder = 
       Collection.<Activity>makeCollection()
-        .id(feed.getId().toString())
+        .id(feed.getId() != null ? feed.getId().toString() : null)
         .author(authors(feed.getAuthors()))
         .set("contributors", authors(feed.getContributors()));
     categories(feed.getCategories(), builder);
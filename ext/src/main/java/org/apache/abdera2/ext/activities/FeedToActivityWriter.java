@@ -2,6 +2,7 @@ package org.apache.abdera2.ext.activities;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 import org.apache.abdera2.Abdera;
@@ -13,6 +14,8 @@ import org.apache.abdera2.model.Base;
 import org.apache.abdera2.model.Document;
 import org.apache.abdera2.model.Entry;
 import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.parser.EntryIterator;
+import org.apache.abdera2.parser.Parser;
 import org.apache.abdera2.writer.AbstractWriter;
 import org.apache.abdera2.writer.Writer;
 import org.apache.abdera2.writer.WriterOptions;
@@ -29,6 +32,9 @@ public class FeedToActivityWriter
   private static final FeedToActivityConverter f2ac = 
     new FeedToActivityConverter();
 
+  private final Abdera abdera;
+  private final IO io;
+  
   public FeedToActivityWriter(Abdera abdera) {
     super(
       "application/json", 
@@ -36,6 +42,8 @@ public class FeedToActivityWriter
       "application/ecmascript", 
       "text/javascript", 
       "text/ecmascript");
+    this.abdera = abdera;
+    this.io = IO.get();
   }
   
   public void writeTo(
@@ -57,7 +65,7 @@ public class FeedToActivityWriter
        f2ac.convert((Entry)base).writeTo(out,options.getCharset());
     } else if (base instanceof Feed) {
       CollectionWriter cw = 
-        IO.get().getCollectionWriter(
+        io.getCollectionWriter(
           out,options.getCharset());
       f2ac.convert((Feed)base, cw);
     }
@@ -78,12 +86,77 @@ public class FeedToActivityWriter
        f2ac.convert((Entry)base).writeTo(out);
     } else if (base instanceof Feed) {
       CollectionWriter cw = 
-        IO.get().getCollectionWriter(out);
+        io.getCollectionWriter(out);
       f2ac.convert((Feed)base, cw);
     }
     if (options.getAutoClose())
       out.close();
   }
+  
+  /**
+   * Parses the Atom document read from in and writes it as JSON, one 
+   * entry at a time. The feed is never fully built: each entry is 
+   * converted and written out as soon as it has been parsed, so memory 
+   * use is bounded by the largest entry
+   */
+  public void writeTo(
+    InputStream in, 
+    OutputStream out, 
+    WriterOptions options)
+      throws IOException {
+    checkNotNull(in);
+    Parser parser = 
+      (abdera != null ? abdera : Abdera.getInstance()).getParser();
+    writeTo(
+      parser.parseEntries(in, parser.getDefaultParserOptions()), 
+      out, 
+      options);
+  }
+  
+  /**
+   * Writes the entries of the EntryIterator as JSON as they are parsed. 
+   * A feed becomes an Activity Streams collection, a standalone entry a 
+   * single activity. The EntryIterator is closed when done
+   */
+  public void writeTo(
+    EntryIterator entries, 
+    OutputStream out, 
+    WriterOptions options)
+      throws IOException {
+    checkNotNull(entries);
+    checkNotNull(out);
+    checkNotNull(options);
+    if (!Iterables.isEmpty(options.getCompressionCodecs())) 
+      out = Compression.wrap(out, options.getCompressionCodecs());
+    if (entries.getHeader() == null) {
+      if (entries.hasNext())
+        f2ac.convert(entries.next()).writeTo(io,out,options.getCharset());
+      entries.close();
+    } else {
+      f2ac.convert(entries, io.getCollectionWriter(out,options.getCharset()));
+    }
+    if (options.getAutoClose())
+      out.close();
+  }
+
+  public void writeTo(
+    EntryIterator entries, 
+    java.io.Writer out, 
+    WriterOptions options)
+      throws IOException {
+    checkNotNull(entries);
+    checkNotNull(out);
+    checkNotNull(options);
+    if (entries.getHeader() == null) {
+      if (entries.hasNext())
+        f2ac.convert(entries.next()).writeTo(io,out);
+      entries.close();
+    } else {
+      f2ac.convert(entries, io.getCollectionWriter(out));
+    }
+    if (options.getAutoClose())
+      out.close();
+  }
 
   public Object write(Base base, WriterOptions options) throws IOException {
     try {
@@ -0,0 +1,567 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.ext.history;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.abdera2.common.http.CacheControl;
+import org.apache.abdera2.common.http.EntityTag;
+import org.apache.abdera2.common.http.ResponseType;
+import org.apache.abdera2.common.iri.IRI;
+import org.apache.abdera2.common.misc.ExceptionHelper;
+import org.apache.abdera2.common.misc.MoreExecutors2;
+import org.apache.abdera2.common.protocol.BasicClient;
+import org.apache.abdera2.common.protocol.ConnectionPoolOptions;
+import org.apache.abdera2.common.protocol.ProtocolException;
+import org.apache.abdera2.common.protocol.RequestOptions;
+import org.apache.abdera2.model.Document;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.model.Link;
+import org.apache.abdera2.protocol.client.AbderaClient;
+import org.apache.abdera2.protocol.client.AbderaClientResponse;
+import org.apache.abdera2.protocol.client.AbderaSession;
+import org.joda.time.DateTime;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Periodically polls a set of feeds and reports the entries that have 
+ * not been seen before. Each poll is a conditional GET using the ETag 
+ * and Last-Modified values of the previous response, so unchanged feeds 
+ * cost a 304. The Cache-Control max-age of a response, when present, 
+ * determines when the feed is polled next. If every entry on a page is 
+ * new, the poller follows the next (or previous) paging link until it 
+ * reaches an entry it has already seen or the page limit.
+ * 
+ * Entries are remembered by their atom:id. An entry without an id is 
+ * remembered by its alternate link, updated date and title instead, 
+ * so it is reported again whenever one of these changes; an entry 
+ * with none of them is never reported.
+ * 
+ * Polls run on a bounded pool of workers and at most maxPerHost polls 
+ * for the same host run at a time; a poll that finds its host busy is 
+ * put back on the schedule.
+ */
+public class FeedPoller {
+
+  public static interface Listener {
+    /**
+     * Called with the entries that were not seen before, in document order
+     */
+    void onEntries(String uri, List<Entry> entries);
+    
+    void onError(String uri, Throwable error);
+  }
+  
+  public static Builder make() {
+    return new Builder();
+  }
+  
+  public static class Builder 
+    implements Supplier<FeedPoller> {
+    
+    private AbderaClient client;
+    private int workers = 4;
+    private int maxPerHost = 2;
+    private long interval = TimeUnit.MINUTES.toMillis(5);
+    private long minInterval = TimeUnit.SECONDS.toMillis(30);
+    private int maxPages = 10;
+    private int maxSeen = 1000;
+    private boolean previous;
+    
+    /**
+     * The client used to fetch feeds. If not set, the poller creates 
+     * its own with a connection pool sized to match the poller and 
+     * shuts it down along with the poller
+     */
+    public Builder client(AbderaClient client) {
+      this.client = checkNotNull(client);
+      return this;
+    }
+    
+    /**
+     * The maximum number of polls running at once
+     */
+    public Builder workers(int workers) {
+      checkArgument(workers > 0);
+      this.workers = workers;
+      return this;
+    }
+    
+    /**
+     * The maximum number of polls running at once for any single host
+     */
+    public Builder maxPerHost(int max) {
+      checkArgument(max > 0);
+      this.maxPerHost = max;
+      return this;
+    }
+    
+    /**
+     * How often a feed is polled when the response does not specify
+     * a max-age
+     */
+    public Builder interval(long time, TimeUnit unit) {
+      this.interval = checkNotNull(unit).toMillis(time);
+      checkArgument(interval > 0);
+      return this;
+    }
+    
+    /**
+     * The shortest interval between polls of the same feed, regardless
+     * of the max-age of the response
+     */
+    public Builder minInterval(long time, TimeUnit unit) {
+      this.minInterval = checkNotNull(unit).toMillis(time);
+      return this;
+    }
+    
+    /**
+     * The maximum number of pages fetched during a single poll
+     */
+    public Builder maxPages(int max) {
+      checkArgument(max > 0);
+      this.maxPages = max;
+      return this;
+    }
+    
+    /**
+     * The number of entry ids remembered per feed
+     */
+    public Builder maxSeen(int max) {
+      checkArgument(max > 0);
+      this.maxSeen = max;
+      return this;
+    }
+    
+    /**
+     * Follow previous rather than next links when paging, for feeds
+     * whose pages run from oldest to newest
+     */
+    public Builder followPrevious() {
+      this.previous = true;
+      return this;
+    }
+    
+    public FeedPoller get() {
+      return new FeedPoller(this);
+    }
+  }
+  
+  /**
+   * The polling state kept for each feed
+   */
+  public static final class State {
+    private final int maxSeen;
+    private final Set<String> seen = new LinkedHashSet<String>();
+    private volatile EntityTag etag;
+    private volatile DateTime lastModified;
+    private volatile long delay;
+    private volatile long polls;
+    private volatile long notModified;
+    
+    State(int maxSeen, long delay) {
+      this.maxSeen = maxSeen;
+      this.delay = delay;
+    }
+    
+    public EntityTag getEntityTag() {
+      return etag;
+    }
+    
+    public DateTime getLastModified() {
+      return lastModified;
+    }
+    
+    /**
+     * The delay in milliseconds until the next scheduled poll
+     */
+    public long getDelay() {
+      return delay;
+    }
+    
+    public long getPollCount() {
+      return polls;
+    }
+    
+    public long getNotModifiedCount() {
+      return notModified;
+    }
+    
+    synchronized boolean hasSeen(String id) {
+      return seen.contains(id);
+    }
+    
+    synchronized void markSeen(Iterable<String> ids) {
+      for (String id : ids)
+        seen.add(id);
+      Iterator<String> i = seen.iterator();
+      while (seen.size() > maxSeen && i.hasNext()) {
+        i.next();
+        i.remove();
+      }
+    }
+  }
+  
+  private static final long RETRY_DELAY = 250;
+  
+  private final AbderaClient client;
+  private final boolean ownsClient;
+  private final ListeningExecutorService workers;
+  private final ScheduledExecutorService timer;
+  private final ConcurrentMap<String,Subscription> subscriptions = 
+    new ConcurrentHashMap<String,Subscription>();
+  private final ConcurrentMap<String,Semaphore> hosts = 
+    new ConcurrentHashMap<String,Semaphore>();
+  private final int maxPerHost;
+  private final long interval;
+  private final long minInterval;
+  private final int maxPages;
+  private final int maxSeen;
+  private final boolean previous;
+  
+  protected FeedPoller(Builder builder) {
+    this.maxPerHost = builder.maxPerHost;
+    this.interval = builder.interval;
+    this.minInterval = builder.minInterval;
+    this.maxPages = builder.maxPages;
+    this.maxSeen = builder.maxSeen;
+    this.previous = builder.previous;
+    this.ownsClient = builder.client == null;
+    this.client = 
+      builder.client != null ? 
+        builder.client : 
+        new AbderaClient(
+          new BasicClient(
+            ConnectionPoolOptions.make()
+              .maxTotal(builder.workers)
+              .maxPerRoute(builder.maxPerHost)
+              .get()));
+    this.workers = 
+      MoreExecutors.listeningDecorator(
+        MoreExecutors2.getExitingFixedExecutor(builder.workers));
+    this.timer = 
+      Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("abdera-feed-poller-%d")
+          .build());
+  }
+  
+  /**
+   * Start polling the given feed, the first poll happens right away
+   */
+  public State subscribe(String uri, Listener listener) {
+    return subscribe(uri, listener, 0, TimeUnit.MILLISECONDS);
+  }
+  
+  /**
+   * Start polling the given feed after the given initial delay
+   */
+  public State subscribe(
+    String uri, 
+    Listener listener, 
+    long delay, 
+    TimeUnit unit) {
+      Subscription sub = 
+        new Subscription(
+          checkNotNull(uri), 
+          checkNotNull(listener), 
+          new State(maxSeen, interval));
+      checkState(
+        subscriptions.putIfAbsent(uri, sub) == null, 
+        "Already subscribed to %s", uri);
+      schedule(sub, unit.toMillis(delay));
+      return sub.state;
+  }
+  
+  /**
+   * Stop polling the given feed
+   */
+  public void unsubscribe(String uri) {
+    Subscription sub = subscriptions.remove(uri);
+    if (sub != null) {
+      sub.cancelled = true;
+      ScheduledFuture<?> next = sub.next;
+      if (next != null) 
+        next.cancel(false);
+    }
+  }
+  
+  public State getState(String uri) {
+    Subscription sub = subscriptions.get(uri);
+    return sub != null ? sub.state : null;
+  }
+  
+  /**
+   * Poll a subscribed feed immediately on the calling thread, returning
+   * the new entries rather than passing them to the listener. Returns
+   * an empty list if a poll of the feed is already in progress.
+   */
+  public List<Entry> poll(String uri) throws InterruptedException {
+    Subscription sub = subscriptions.get(uri);
+    checkArgument(sub != null, "Not subscribed to %s", uri);
+    Semaphore permits = permits(sub.host);
+    permits.acquire();
+    try {
+      return poll(sub);
+    } catch (Throwable t) {
+      throw ExceptionHelper.propogate(t);
+    } finally {
+      permits.release();
+    }
+  }
+  
+  public void shutdown() {
+    timer.shutdownNow();
+    workers.shutdown();
+    if (ownsClient)
+      client.shutdown();
+  }
+  
+  private Semaphore permits(String host) {
+    Semaphore permits = hosts.get(host);
+    if (permits == null) {
+      Semaphore s = new Semaphore(maxPerHost);
+      permits = hosts.putIfAbsent(host, s);
+      if (permits == null) permits = s;
+    }
+    return permits;
+  }
+  
+  private void schedule(final Subscription sub, long delay) {
+    if (sub.cancelled || timer.isShutdown()) return;
+    sub.next = timer.schedule(
+      new Runnable() {
+        public void run() {
+          dispatch(sub);
+        }
+      }, 
+      delay, 
+      TimeUnit.MILLISECONDS);
+  }
+  
+  private void dispatch(final Subscription sub) {
+    final Semaphore permits = permits(sub.host);
+    if (!permits.tryAcquire()) {
+      schedule(sub, RETRY_DELAY);
+      return;
+    }
+    ListenableFuture<List<Entry>> future;
+    try {
+      future = workers.submit(
+        new Callable<List<Entry>>() {
+          public List<Entry> call() throws Exception {
+            try {
+              return poll(sub);
+            } finally {
+              permits.release();
+            }
+          }
+        });
+    } catch (RuntimeException e) {
+      permits.release(); // rejected, the poller is shutting down
+      return;
+    }
+    Futures.addCallback(
+      future, 
+      new FutureCallback<List<Entry>>() {
+        public void onSuccess(List<Entry> entries) {
+          try {
+            if (!entries.isEmpty() && !sub.cancelled)
+              sub.listener.onEntries(sub.uri, entries);
+          } finally {
+            schedule(sub, sub.state.delay);
+          }
+        }
+        public void onFailure(Throwable t) {
+          try {
+            if (!sub.cancelled)
+              sub.listener.onError(sub.uri, t);
+          } finally {
+            schedule(sub, interval);
+          }
+        }
+      });
+  }
+  
+  private List<Entry> poll(Subscription sub) {
+    if (!sub.running.compareAndSet(false, true))
+      return ImmutableList.of();
+    try {
+      State state = sub.state;
+      AbderaSession session = client.newSession();
+      RequestOptions.Builder options = 
+        session.getDefaultRequestOptions();
+      if (state.etag != null)
+        options.ifNoneMatch(state.etag);
+      if (state.lastModified != null)
+        options.ifModifiedSince(state.lastModified);
+      AbderaClientResponse resp = session.get(sub.uri, options.get());
+      EntityTag etag;
+      DateTime lastModified;
+      Feed feed;
+      try {
+        state.polls++;
+        state.delay = delay(resp.getCacheControl());
+        if (resp.getStatus() == 304) {
+          state.notModified++;
+          return ImmutableList.of();
+        }
+        etag = resp.getEntityTag();
+        lastModified = resp.getLastModified();
+        feed = root(resp);
+      } finally {
+        resp.release();
+      }
+      ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+      Set<String> ids = new HashSet<String>();
+      boolean reached = collect(feed, state, entries, ids);
+      for (int pages = 1; !reached && pages < maxPages; pages++) {
+        IRI link = 
+          previous ? 
+            FeedPagingHelper.getPrevious(feed) : 
+            FeedPagingHelper.getNext(feed);
+        if (link == null) break;
+        resp = session.get(link.toString());
+        try {
+          feed = root(resp);
+        } finally {
+          resp.release();
+        }
+        reached = collect(feed, state, entries, ids);
+      }
+      // only remember what we've seen once every page has been read, 
+      // a failure part way through leaves the state as it was so the 
+      // next poll starts over
+      state.markSeen(ids);
+      state.etag = etag;
+      state.lastModified = lastModified;
+      return entries.build();
+    } finally {
+      sub.running.set(false);
+    }
+  }
+  
+  private static Feed root(AbderaClientResponse resp) {
+    if (resp.getType() != ResponseType.SUCCESSFUL)
+      throw new ProtocolException(resp.getStatus(), resp.getStatusText());
+    Document<Feed> doc = resp.getDocument();
+    Feed feed = doc.getRoot();
+    feed.complete(); // the response is released before the entries are used
+    return feed;
+  }
+  
+  /**
+   * Collects the entries that have not been seen before, returning true
+   * if the page contained at least one entry that had been seen
+   */
+  private static boolean collect(
+    Feed feed, 
+    State state, 
+    ImmutableList.Builder<Entry> entries, 
+    Set<String> ids) {
+      boolean reached = false;
+      for (Entry entry : feed.getEntries()) {
+        String key = key(entry);
+        if (key == null)
+          continue;
+        if (state.hasSeen(key))
+          reached = true;
+        else if (ids.add(key))
+          entries.add(entry);
+      }
+      return reached;
+  }
+  
+  /**
+   * The key an entry is remembered by: its atom:id or, for an entry 
+   * without one, its alternate link, updated date and title. Returns 
+   * null if the entry has none of these
+   */
+  private static String key(Entry entry) {
+    IRI id = entry.getId();
+    if (id != null)
+      return id.toString();
+    Link link = entry.getAlternateLink();
+    IRI href = link != null ? link.getResolvedHref() : null;
+    org.apache.abdera2.model.DateTime updated = entry.getUpdatedElement();
+    String date = updated != null ? updated.getText() : null;
+    String title = entry.getTitle();
+    if (href == null && date == null && title == null)
+      return null;
+    // the leading space keeps these from colliding with an atom:id
+    return " " + href + " " + date + " " + title;
+  }
+  
+  private long delay(CacheControl cc) {
+    long maxAge = cc != null ? cc.getMaxAge() : -1;
+    return maxAge >= 0 ? 
+      Math.max(minInterval, TimeUnit.SECONDS.toMillis(maxAge)) : 
+      interval;
+  }
+  
+  private static String host(String uri) {
+    try {
+      String host = URI.create(uri).getHost();
+      return host != null ? host.toLowerCase() : "";
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+  }
+  
+  private static final class Subscription {
+    final String uri;
+    final String host;
+    final Listener listener;
+    final State state;
+    final AtomicBoolean running = new AtomicBoolean();
+    volatile ScheduledFuture<?> next;
+    volatile boolean cancelled;
+    Subscription(String uri, Listener listener, State state) {
+      this.uri = uri;
+      this.host = host(uri);
+      this.listener = listener;
+      this.state = state;
+    }
+  }
+}
@@ -109,10 +109,11 @@ public class RssChannel extends ExtensibleElementWrapper {
     public Entry getEntry(String id) {
         if (id == null)
             return null;
+        IRI iri = new IRI(id);
         List<Entry> l = getEntries();
         for (Entry e : l) {
             IRI eid = e.getId();
-            if (eid != null && eid.equals(new IRI(id)))
+            if (eid != null && eid.equals(iri))
                 return e;
         }
         return null;
@@ -81,6 +81,19 @@ public class RssFeed extends ExtensibleElementWrapper implements Feed {
         return getChannel().getEntry(id);
     }
 
+    public int getEntryCount() {
+        return getChannel().getEntries().size();
+    }
+
+    public List<Entry> getEntries(int offset, int count) {
+        if (offset < 0 || count < 0)
+            throw new IndexOutOfBoundsException();
+        List<Entry> entries = getChannel().getEntries();
+        int start = Math.min(offset, entries.size());
+        int end = Math.min(start + count, entries.size());
+        return entries.subList(start, end);
+    }
+
     public Feed insertEntry(Entry entry) {
         getChannel().insertEntry(entry);
         return this;
@@ -17,6 +17,8 @@
  */
 package org.apache.abdera2.ext.serializer;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
@@ -24,6 +26,8 @@ import java.lang.reflect.Member;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.apache.abdera2.common.misc.MoreFunctions;
@@ -35,6 +39,8 @@ public abstract class AbstractConventions implements Conventions, Cloneable, Ser
     private final Map<Class<? extends Annotation>, Pattern> conventions =
         new HashMap<Class<? extends Annotation>, Pattern>();
     private final boolean isCaseSensitive;
+    private transient ConcurrentMap<AccessibleObject, Class<? extends Annotation>> matches =
+        new ConcurrentHashMap<AccessibleObject, Class<? extends Annotation>>();
 
     protected AbstractConventions() {
         this(false);
@@ -51,6 +57,7 @@ public abstract class AbstractConventions implements Conventions, Cloneable, Ser
     public void setConvention(String pattern, Class<? extends Annotation> annotationType) {
         Pattern regex = isCaseSensitive ? Pattern.compile(pattern) : Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
         conventions.put(annotationType, regex);
+        matches.clear();
     }
 
     public void setConvention(Class<? extends Annotation> annotationType) {
@@ -60,10 +67,23 @@ public abstract class AbstractConventions implements Conventions, Cloneable, Ser
         setConvention(conv.value(), annotationType);
     }
 
+    /**
+     * The unconstrained match for an accessor depends only on its name, 
+     * so the result is remembered until the conventions change
+     */
     public Class<? extends Annotation> matchConvention(AccessibleObject accessor) {
-        return matchConvention(accessor, null);
+        if (accessor == null)
+            return null;
+        Class<? extends Annotation> match = matches.get(accessor);
+        if (match == null) {
+            match = matchConvention(accessor, null);
+            matches.putIfAbsent(accessor, match != null ? match : NoMatch.class);
+        }
+        return match != NoMatch.class ? match : null;
     }
 
+    private static @interface NoMatch {}
+
     public Class<? extends Annotation> matchConvention(AccessibleObject accessor, Class<? extends Annotation> expect) {
         if (accessor == null)
             return null;
@@ -103,6 +123,11 @@ public abstract class AbstractConventions implements Conventions, Cloneable, Ser
         return true;
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        matches = new ConcurrentHashMap<AccessibleObject, Class<? extends Annotation>>();
+    }
+
     public Conventions clone() {
         try {
             return (Conventions)super.clone();
@@ -35,6 +35,7 @@ public abstract class AbstractSerializationContext implements SerializationConte
     private final Abdera abdera;
     private final StreamWriter streamWriter;
     private final Map<Class<?>, Serializer> serializers = new HashMap<Class<?>, Serializer>();
+    private final Map<Class<?>, Serializer> resolved = new HashMap<Class<?>, Serializer>();
 
     protected AbstractSerializationContext(StreamWriter streamWriter) {
         this(Abdera.getInstance(), streamWriter);
@@ -67,13 +68,8 @@ public abstract class AbstractSerializationContext implements SerializationConte
                         return serializer;
                 }
             }
-            if (serializer == null && !type.isAnnotation()) {
-                for (Class<?> knownType : serializers.keySet()) {
-                    if (!knownType.isAnnotation() && knownType.isAssignableFrom(type)) {
-                        return serializers.get(knownType);
-                    }
-                }
-            }
+            if (serializer == null && !type.isAnnotation())
+                serializer = resolveSerializer(type);
             return serializer;
         } catch (Throwable t) {
             throw new SerializationException(t);
@@ -95,13 +91,27 @@ public abstract class AbstractSerializationContext implements SerializationConte
     public boolean hasSerializer(Class<?> type) {
         if (serializers.containsKey(type))
             return true;
-        if (!type.isAnnotation()) {
-            for (Class<?> t : serializers.keySet()) {
-                if (!t.isAnnotation() && t.isAssignableFrom(type))
-                    return true;
+        return !type.isAnnotation() && resolveSerializer(type) != null;
+    }
+
+    /**
+     * Find the serializer registered for a supertype of the given type. 
+     * The outcome, including a miss, is remembered until the set of 
+     * registered serializers changes
+     */
+    private Serializer resolveSerializer(Class<?> type) {
+        if (resolved.containsKey(type))
+            return resolved.get(type);
+        Serializer serializer = null;
+        for (Map.Entry<Class<?>, Serializer> entry : serializers.entrySet()) {
+            Class<?> knownType = entry.getKey();
+            if (!knownType.isAnnotation() && knownType.isAssignableFrom(type)) {
+                serializer = entry.getValue();
+                break;
             }
         }
-        return false;
+        resolved.put(type, serializer);
+        return serializer;
     }
 
     public boolean hasSerializer(AccessibleObject accessor) {
@@ -117,6 +127,7 @@ public abstract class AbstractSerializationContext implements SerializationConte
 
     public void setSerializer(Class<?> type, Serializer Serializer) {
         serializers.put(type, Serializer);
+        resolved.clear();
     }
 
     public void serialize(Object object) {
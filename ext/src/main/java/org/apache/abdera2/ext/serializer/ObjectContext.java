@@ -21,7 +21,6 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -35,8 +34,7 @@ public class ObjectContext {
     private final AccessibleObject accessor;
     private final Annotation[] annotations;
     private final Serializer serializer;
-    private final Field[] fields;
-    private final Method[] methods;
+    private final TypeMetadata metadata;
 
     public ObjectContext(Object object) {
         this(object, null, null);
@@ -48,49 +46,16 @@ public class ObjectContext {
                 .getReturnType(accessor) : null;
         this.parent = parent;
         this.accessor = accessor;
+        this.metadata = objectType != null ? TypeMetadata.of(objectType) : null;
         this.annotations = initAnnotations();
         this.serializer = initSerializer();
-        this.fields = initFields();
-        this.methods = initMethods();
-    }
-
-    private Field[] initFields() {
-        Field[] fields = objectType.getFields();
-        List<Field> list = new ArrayList<Field>();
-        for (Field field : fields) {
-            int mods = field.getModifiers();
-            // ignore static fields
-            if (!Modifier.isStatic(mods)) {
-                list.add(field);
-            }
-        }
-        return list.toArray(new Field[list.size()]);
-    }
-
-    private Method[] initMethods() {
-        Method[] methods = objectType.getMethods();
-        List<Method> list = new ArrayList<Method>();
-        for (Method method : methods) {
-            // only methods that have no parameters, return a value, are not
-            // abstract and are not static
-            int mods = method.getModifiers();
-            if (!Modifier.isStatic(mods) && !Modifier.isAbstract(mods)
-                && method.getParameterTypes().length == 0
-                && method.getReturnType() != Void.class) {
-                list.add(method);
-            }
-        }
-        return list.toArray(new Method[list.size()]);
     }
 
     private Annotation[] initAnnotations() {
+        if (objectType != null)
+            return metadata.getAnnotations(accessor);
         Map<Class<? extends Annotation>, Annotation> annotations =
             new HashMap<Class<? extends Annotation>, Annotation>();
-        if (objectType != null) {
-            for (Annotation annotation : objectType.getAnnotations()) {
-                annotations.put(annotation.annotationType(), annotation);
-            }
-        }
         if (accessor != null) {
             for (Annotation annotation : accessor.getAnnotations()) {
                 annotations.put(annotation.annotationType(), annotation);
@@ -134,7 +99,7 @@ public class ObjectContext {
     }
 
     public Annotation[] getAnnotations() {
-        return annotations;
+        return annotations.clone();
     }
 
     public Serializer getSerializer() {
@@ -142,26 +107,21 @@ public class ObjectContext {
     }
 
     public Field[] getFields() {
-        return fields;
+        return metadata.getFields().clone();
     }
 
     public Method[] getMethods() {
-        return methods;
+        return metadata.getMethods().clone();
     }
 
     public AccessibleObject[] getAccessors() {
-        List<AccessibleObject> list = new ArrayList<AccessibleObject>();
-        for (Method method : methods)
-            list.add(method);
-        for (Field field : fields)
-            list.add(field);
-        return list.toArray(new AccessibleObject[list.size()]);
+        return metadata.getAccessors().clone();
     }
 
     public AccessibleObject[] getAccessors(Class<? extends Annotation> annotation, Conventions conventions) {
         List<AccessibleObject> accessors = new ArrayList<AccessibleObject>();
-        for (AccessibleObject accessor : getAccessors()) {
-            if (accessor.isAnnotationPresent(annotation) || annotation.equals(conventions.matchConvention(accessor))) {
+        for (AccessibleObject accessor : metadata.getAccessors()) {
+            if (metadata.isAnnotationPresent(accessor, annotation) || annotation.equals(conventions.matchConvention(accessor))) {
                 accessors.add(accessor);
             }
         }
@@ -169,8 +129,8 @@ public class ObjectContext {
     }
 
     public AccessibleObject getAccessor(Class<? extends Annotation> annotation, Conventions conventions) {
-        for (AccessibleObject accessor : getAccessors()) {
-            if (accessor.isAnnotationPresent(annotation) || annotation.equals(conventions.matchConvention(accessor))) {
+        for (AccessibleObject accessor : metadata.getAccessors()) {
+            if (metadata.isAnnotationPresent(accessor, annotation) || annotation.equals(conventions.matchConvention(accessor))) {
                 return accessor;
             }
         }
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.ext.serializer;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The reflective metadata for a serialized type: its public instance 
+ * fields, its no-argument accessor methods and the annotations present
+ * on each. This is resolved once per class and shared by every 
+ * ObjectContext for that type. Accessors are made accessible up front
+ * so that invoking them later skips the per-call access checks.
+ * 
+ * The metadata references the class through its members, so it is 
+ * held softly; otherwise the cache would keep every serialized class, 
+ * and its ClassLoader, reachable forever.
+ */
+final class TypeMetadata {
+
+    private static final LoadingCache<Class<?>,TypeMetadata> cache = 
+        CacheBuilder.newBuilder()
+            .weakKeys()
+            .softValues()
+            .build(new CacheLoader<Class<?>,TypeMetadata>() {
+                public TypeMetadata load(Class<?> type) {
+                    return new TypeMetadata(type);
+                }
+            });
+    
+    static TypeMetadata of(Class<?> type) {
+        return cache.getUnchecked(type);
+    }
+    
+    private final Annotation[] annotations;
+    private final Field[] fields;
+    private final Method[] methods;
+    private final AccessibleObject[] accessors;
+    private final ImmutableMap<AccessibleObject,Set<Class<? extends Annotation>>> present;
+    // accessors usually belong to other types, weak keys keep this from
+    // pinning them
+    private final Cache<AccessibleObject,Annotation[]> merged = 
+        CacheBuilder.newBuilder().weakKeys().build();
+    
+    private TypeMetadata(Class<?> type) {
+        this.annotations = type.getAnnotations();
+        this.fields = initFields(type);
+        this.methods = initMethods(type);
+        this.accessors = new AccessibleObject[methods.length + fields.length];
+        System.arraycopy(methods, 0, accessors, 0, methods.length);
+        System.arraycopy(fields, 0, accessors, methods.length, fields.length);
+        ImmutableMap.Builder<AccessibleObject,Set<Class<? extends Annotation>>> present = 
+            ImmutableMap.builder();
+        Set<AccessibleObject> seen = new HashSet<AccessibleObject>();
+        for (AccessibleObject accessor : accessors) {
+            if (!seen.add(accessor)) continue;
+            ImmutableSet.Builder<Class<? extends Annotation>> types = 
+                ImmutableSet.builder();
+            for (Annotation annotation : accessor.getAnnotations())
+                types.add(annotation.annotationType());
+            present.put(accessor, types.build());
+            try {
+                accessor.setAccessible(true);
+            } catch (SecurityException e) {
+                // fall back to checked access
+            }
+        }
+        this.present = present.build();
+    }
+    
+    private static Field[] initFields(Class<?> type) {
+        List<Field> list = new ArrayList<Field>();
+        for (Field field : type.getFields()) {
+            // ignore static fields
+            if (!Modifier.isStatic(field.getModifiers()))
+                list.add(field);
+        }
+        return list.toArray(new Field[list.size()]);
+    }
+    
+    private static Method[] initMethods(Class<?> type) {
+        List<Method> list = new ArrayList<Method>();
+        for (Method method : type.getMethods()) {
+            // only methods that have no parameters, return a value, are not
+            // abstract and are not static
+            int mods = method.getModifiers();
+            if (!Modifier.isStatic(mods) && !Modifier.isAbstract(mods)
+                    && method.getParameterTypes().length == 0
+                    && method.getReturnType() != Void.class) {
+                list.add(method);
+            }
+        }
+        return list.toArray(new Method[list.size()]);
+    }
+    
+    Field[] getFields() {
+        return fields;
+    }
+    
+    Method[] getMethods() {
+        return methods;
+    }
+    
+    /**
+      * The methods followed by the fields
+      */
+    AccessibleObject[] getAccessors() {
+        return accessors;
+    }
+    
+    boolean isAnnotationPresent(
+        AccessibleObject accessor, 
+        Class<? extends Annotation> annotation) {
+            Set<Class<? extends Annotation>> types = present.get(accessor);
+            return types != null ? 
+                types.contains(annotation) : 
+                accessor.isAnnotationPresent(annotation);
+    }
+    
+    /**
+      * The annotations of the type merged with those of the accessor used
+      * to reach a value of the type, the accessor's taking precedence
+      */
+    Annotation[] getAnnotations(AccessibleObject accessor) {
+        if (accessor == null)
+            return annotations;
+        Annotation[] result = merged.getIfPresent(accessor);
+        if (result == null) {
+            Map<Class<? extends Annotation>,Annotation> map = 
+                new LinkedHashMap<Class<? extends Annotation>,Annotation>();
+            for (Annotation annotation : annotations)
+                map.put(annotation.annotationType(), annotation);
+            for (Annotation annotation : accessor.getAnnotations())
+                map.put(annotation.annotationType(), annotation);
+            result = map.values().toArray(new Annotation[map.size()]);
+            merged.put(accessor, result);
+        }
+        return result;
+    }
+}
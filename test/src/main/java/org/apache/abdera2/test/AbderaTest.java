@@ -1,8 +1,22 @@
 package org.apache.abdera2.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.abdera2.Abdera;
+import org.apache.abdera2.common.Discover;
+import org.apache.abdera2.parser.Parser;
 import org.apache.abdera2.writer.StreamWriter;
 import org.junit.Test;
 
@@ -27,4 +41,64 @@ public class AbderaTest {
     assertNotNull(abdera.create(StreamWriter.class));
   }
   
+  @Test
+  public void createTest() {
+    Abdera abdera = Abdera.getInstance();
+    StreamWriter sw1 = abdera.create(StreamWriter.class);
+    StreamWriter sw2 = abdera.create(StreamWriter.class);
+    assertNotSame(sw1, sw2);
+    assertEquals(sw1.getClass(), sw2.getClass());
+    Discover.refresh();
+    assertEquals(sw1.getClass(), abdera.create(StreamWriter.class).getClass());
+    Parser parser = 
+      Discover.factory(Parser.class, null, abdera).get();
+    assertEquals(abdera.getParser().getClass(), parser.getClass());
+  }
+  
+  @Test
+  public void factoryFallbackTest() throws Exception {
+    // the first implementation can be loaded but not instantiated
+    File dir = File.createTempFile("abdera", "services");
+    dir.delete();
+    File services = new File(dir, "META-INF/services");
+    services.mkdirs();
+    File file = new File(services, List.class.getName());
+    OutputStream out = new FileOutputStream(file);
+    out.write("java.util.AbstractList\njava.util.ArrayList\n".getBytes("UTF-8"));
+    out.close();
+    try {
+      ClassLoader loader = 
+        new URLClassLoader(new URL[] {dir.toURI().toURL()}, getClass().getClassLoader());
+      List<?> list = Discover.factory(List.class, null, loader).get();
+      assertEquals(ArrayList.class, list.getClass());
+      Discover.refresh(loader);
+    } finally {
+      file.delete();
+      services.delete();
+      services.getParentFile().delete();
+      dir.delete();
+    }
+  }
+  
+  @Test
+  public void contextClassLoaderNotRetainedTest() throws Exception {
+    Abdera abdera = Abdera.getInstance();
+    Thread thread = Thread.currentThread();
+    ClassLoader original = thread.getContextClassLoader();
+    ClassLoader loader = new URLClassLoader(new URL[0], original);
+    WeakReference<ClassLoader> ref = new WeakReference<ClassLoader>(loader);
+    thread.setContextClassLoader(loader);
+    try {
+      assertNotNull(abdera.create(StreamWriter.class));
+    } finally {
+      thread.setContextClassLoader(original);
+    }
+    loader = null;
+    for (int n = 0; n < 50 && ref.get() != null; n++) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertNull(ref.get());
+  }
+  
 }
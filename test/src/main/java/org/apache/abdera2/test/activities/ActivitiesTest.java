@@ -3,6 +3,8 @@ package org.apache.abdera2.test.activities;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.hamcrest.CoreMatchers.*;
@@ -13,6 +15,7 @@ import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.Locale;
 
 import javax.activation.MimeType;
@@ -66,9 +69,16 @@ public class ActivitiesTest {
     IO io = IO.get();
     assertNotNull(io);
     
+    assertSame(io, IO.get());
+    
     // Test IO with Custom Type Adapter
-    io = IO.get(new TestTypeAdapter());
+    TestTypeAdapter adapter = new TestTypeAdapter();
+    io = IO.get(adapter);
     assertNotNull(io);
+    assertSame(io, IO.get(adapter));
+    // a different adapter set must never share the cached instance
+    assertNotSame(io, IO.get(adapter, new TestTypeAdapter()));
+    assertNotSame(io, IO.get());
     
     // Test IO Builder
     io = IO.make()
@@ -285,6 +295,30 @@ public class ActivitiesTest {
     assertEquals(3, Iterables.size(col.getItems()));
   }
   
+  @Test
+  public void testReadCollectionItems() {
+    IO io = IO.get();
+    StringWriter sw = new StringWriter();
+    CollectionWriter cw = io.getCollectionWriter(sw);
+    cw.writeHeader(
+      ASBase.make()
+      .set("a","b")
+      .get());
+    cw.writeObjects(
+      Activity.makeActivity().verb(Verb.POST).actor(PersonObject.makePerson("Joe")).get(),
+      NoteObject.makeNote().content("foo").get());
+    cw.complete();
+    Iterator<ASObject> items = 
+      io.readCollectionItems(new StringReader(sw.toString()));
+    assertTrue(items.hasNext());
+    Activity activity = (Activity)items.next();
+    assertEquals(Verb.POST, activity.getVerb());
+    assertEquals("Joe", ((PersonObject)activity.getActor()).getDisplayName());
+    NoteObject note = (NoteObject)items.next();
+    assertEquals("foo", note.getContent());
+    assertFalse(items.hasNext());
+  }
+  
   @Test
   public void testMediaLink() {
     MediaLink ml = 
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.test.activities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.abdera2.activities.client.ActivitiesClient;
+import org.apache.abdera2.activities.client.ActivitiesClientBatchPusher;
+import org.apache.abdera2.activities.client.ActivitiesSession;
+import org.apache.abdera2.activities.model.ASObject;
+import org.apache.abdera2.activities.model.IO;
+import org.apache.abdera2.test.JettyUtil;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BatchPusherTest {
+
+    private static final List<Integer> batches = new ArrayList<Integer>();
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicInteger failures = new AtomicInteger();
+    private static final AtomicInteger active = new AtomicInteger();
+    private static final AtomicInteger maxActive = new AtomicInteger();
+    private static volatile long latency;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+      JettyUtil.addServlet(CollectionServlet.class.getName(), "/activities");
+      JettyUtil.start();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+      JettyUtil.stop();
+    }
+
+    @Before
+    public void reset() {
+      synchronized(batches) {
+        batches.clear();
+      }
+      requests.set(0);
+      failures.set(0);
+      active.set(0);
+      maxActive.set(0);
+      latency = 0;
+    }
+
+    private static String uri() {
+      return "http://localhost:" + JettyUtil.getPort() + "/activities";
+    }
+
+    @SuppressWarnings("serial")
+    public static class CollectionServlet extends HttpServlet {
+      protected void doPost(
+        HttpServletRequest request,
+        HttpServletResponse response)
+          throws ServletException, IOException {
+        requests.incrementAndGet();
+        int n = active.incrementAndGet();
+        int max = maxActive.get();
+        while (n > max && !maxActive.compareAndSet(max, n))
+          max = maxActive.get();
+        try {
+          if (latency > 0)
+            Thread.sleep(latency);
+          if (failures.getAndDecrement() > 0) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+          }
+          int count = 0;
+          Iterator<ASObject> items =
+            IO.get().readCollectionItems(request.getReader());
+          while (items.hasNext()) {
+            items.next();
+            count++;
+          }
+          synchronized(batches) {
+            batches.add(count);
+          }
+          response.setStatus(HttpServletResponse.SC_CREATED);
+        } catch (InterruptedException e) {
+          response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } finally {
+          active.decrementAndGet();
+        }
+      }
+    }
+
+    private static class TestPusher
+      extends ActivitiesClientBatchPusher<ASObject> {
+      final List<Throwable> errors = new ArrayList<Throwable>();
+      TestPusher(ActivitiesClientBatchPusher.Window window) {
+        super(uri(), session(), session().getDefaultRequestOptions().get(), window);
+      }
+      protected void handle(Throwable t) {
+        synchronized(errors) {
+          errors.add(t);
+        }
+      }
+    }
+
+    private static ActivitiesSession session;
+
+    private static synchronized ActivitiesSession session() {
+      if (session == null)
+        session = new ActivitiesClient().newSession();
+      return session;
+    }
+
+    private static ASObject item(int n) {
+      return ASObject.makeObject("note").id("urn:item:" + n).get();
+    }
+
+    private static List<Integer> batches() {
+      synchronized(batches) {
+        return new ArrayList<Integer>(batches);
+      }
+    }
+
+    private static void awaitBatches(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (batches().size() < count && System.currentTimeMillis() < deadline)
+        Thread.sleep(10);
+    }
+
+    @Test
+    public void testSizeTrigger() throws Exception {
+      TestPusher pusher =
+        new TestPusher(
+          ActivitiesClientBatchPusher.makeWindow()
+            .size(3)
+            .delay(1, TimeUnit.HOURS)
+            .get());
+      for (int n = 0; n < 7; n++)
+        pusher.push(item(n));
+      // two full windows go out without waiting for the delay
+      awaitBatches(2);
+      assertEquals(2, batches().size());
+      assertEquals(3, batches().get(0).intValue());
+      assertEquals(3, batches().get(1).intValue());
+      // closing posts the remainder
+      pusher.close();
+      assertEquals(3, batches().size());
+      assertEquals(1, batches().get(2).intValue());
+      assertEquals(0, pusher.errors.size());
+    }
+
+    @Test
+    public void testTimeTrigger() throws Exception {
+      TestPusher pusher =
+        new TestPusher(
+          ActivitiesClientBatchPusher.makeWindow()
+            .size(100)
+            .delay(200, TimeUnit.MILLISECONDS)
+            .get());
+      long start = System.currentTimeMillis();
+      pusher.push(item(1));
+      pusher.push(item(2));
+      awaitBatches(1);
+      assertTrue(System.currentTimeMillis() - start >= 150);
+      assertEquals(1, batches().size());
+      assertEquals(2, batches().get(0).intValue());
+      pusher.close();
+      assertEquals(1, batches().size());
+    }
+
+    @Test
+    public void testInFlightCap() throws Exception {
+      latency = 200;
+      TestPusher pusher =
+        new TestPusher(
+          ActivitiesClientBatchPusher.makeWindow()
+            .size(1)
+            .maxInFlight(2)
+            .get());
+      for (int n = 0; n < 6; n++)
+        pusher.push(item(n));
+      pusher.close();
+      assertEquals(6, batches().size());
+      assertTrue(maxActive.get() <= 2);
+      assertEquals(0, pusher.errors.size());
+    }
+
+    @Test
+    public void testRetryOnServerError() throws Exception {
+      failures.set(2);
+      TestPusher pusher =
+        new TestPusher(
+          ActivitiesClientBatchPusher.makeWindow()
+            .size(2)
+            .retries(3)
+            .backoff(10, TimeUnit.MILLISECONDS)
+            .get());
+      pusher.push(item(1));
+      pusher.push(item(2));
+      pusher.close();
+      assertEquals(3, requests.get());
+      assertEquals(1, batches().size());
+      assertEquals(2, batches().get(0).intValue());
+      assertEquals(0, pusher.errors.size());
+    }
+
+    @Test
+    public void testRetriesExhausted() throws Exception {
+      failures.set(5);
+      TestPusher pusher =
+        new TestPusher(
+          ActivitiesClientBatchPusher.makeWindow()
+            .size(1)
+            .retries(1)
+            .backoff(10, TimeUnit.MILLISECONDS)
+            .get());
+      pusher.push(item(1));
+      pusher.close();
+      assertEquals(2, requests.get());
+      assertEquals(0, batches().size());
+      assertEquals(1, pusher.errors.size());
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.test.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.abdera2.Abdera;
+import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.protocol.client.AbderaEntity;
+import org.apache.abdera2.protocol.client.BufferMode;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class AbderaEntityTest {
+
+    private static Feed feed() {
+        Feed feed = Abdera.getInstance().newFeed();
+        feed.setId("urn:feed");
+        feed.setTitle("Feed");
+        for (int n = 0; n < 100; n++)
+            feed.addEntry().setId("urn:entry:" + n);
+        return feed;
+    }
+
+    private static byte[] bytes(AbderaEntity entity) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testEntityModes() throws Exception {
+        Feed feed = feed();
+        AbderaEntity stream = new AbderaEntity(feed);
+        assertEquals(BufferMode.STREAM, stream.getBufferMode());
+        assertTrue(stream.isChunked());
+        assertEquals(-1, stream.getContentLength());
+        byte[] expected = bytes(stream);
+        assertArrayEquals(expected, ByteStreams.toByteArray(stream.getContent()));
+
+        AbderaEntity measured = new AbderaEntity(feed, true);
+        assertEquals(BufferMode.MEASURE, measured.getBufferMode());
+        assertFalse(measured.isChunked());
+        assertEquals(expected.length, measured.getContentLength());
+        assertArrayEquals(expected, bytes(measured));
+
+        AbderaEntity buffered = new AbderaEntity(feed, BufferMode.BUFFER);
+        assertEquals(expected.length, buffered.getContentLength());
+        assertArrayEquals(expected, bytes(buffered));
+        assertArrayEquals(expected, bytes(buffered));
+        buffered.release();
+        assertArrayEquals(expected, ByteStreams.toByteArray(buffered.getContent()));
+        buffered.release();
+    }
+}
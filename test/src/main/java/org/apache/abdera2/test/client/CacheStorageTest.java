@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.test.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.apache.abdera2.common.protocol.LruHeapCacheStorage;
+import org.apache.abdera2.common.protocol.MappedFileCacheStorage;
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.impl.client.cache.HeapResource;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class CacheStorageTest {
+
+    private static HttpCacheEntry entry(String etag, int size) {
+      byte[] data = new byte[size];
+      for (int n = 0; n < size; n++)
+        data[n] = (byte)('a' + n % 26);
+      return new HttpCacheEntry(
+        new Date(), 
+        new Date(), 
+        new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"), 
+        new Header[] {new BasicHeader("ETag", etag)}, 
+        new HeapResource(data));
+    }
+    
+    private static String etag(HttpCacheEntry entry) {
+      return entry.getFirstHeader("ETag").getValue();
+    }
+    
+    private static long length(HttpCacheEntry entry) throws IOException {
+      return ByteStreams.toByteArray(
+        entry.getResource().getInputStream()).length;
+    }
+    
+    @Test
+    public void testLruHeapCacheStorage() throws Exception {
+      LruHeapCacheStorage storage = new LruHeapCacheStorage(3000);
+      storage.putEntry("a", entry("a", 900));
+      storage.putEntry("b", entry("b", 900));
+      storage.putEntry("c", entry("c", 900));
+      assertEquals(3, storage.getEntryCount());
+      assertEquals(0, storage.getEvictionCount());
+      
+      // touch a so that b is the least recently used
+      assertNotNull(storage.getEntry("a"));
+      storage.putEntry("d", entry("d", 900));
+      assertEquals(3, storage.getEntryCount());
+      assertEquals(1, storage.getEvictionCount());
+      assertNull(storage.getEntry("b"));
+      assertNotNull(storage.getEntry("a"));
+      assertTrue(storage.getBytesCached() <= 3000);
+      
+      // entries larger than the bound are not stored
+      storage.putEntry("e", entry("e", 4000));
+      assertNull(storage.getEntry("e"));
+      
+      storage.removeEntry("a");
+      assertEquals(2, storage.getEntryCount());
+    }
+    
+    @Test
+    public void testMappedFileCacheStorage() throws Exception {
+      File file = File.createTempFile("abdera-cache", ".dat");
+      file.deleteOnExit();
+      MappedFileCacheStorage storage = new MappedFileCacheStorage(file, 16 * 1024);
+      storage.putEntry("a", entry("a", 1000));
+      storage.putEntry("b", entry("b", 1000));
+      storage.putEntry("a", entry("a2", 1000));
+      storage.removeEntry("b");
+      storage.updateEntry("c", new HttpCacheUpdateCallback() {
+        public HttpCacheEntry update(HttpCacheEntry existing) {
+          assertNull(existing);
+          return entry("c", 500);
+        }
+      });
+      assertEquals(2, storage.getEntryCount());
+      storage.close();
+      
+      // entries survive reopening the file
+      storage = new MappedFileCacheStorage(file, 16 * 1024);
+      assertEquals(2, storage.getEntryCount());
+      assertEquals("a2", etag(storage.getEntry("a")));
+      assertEquals(1000, length(storage.getEntry("a")));
+      assertEquals("c", etag(storage.getEntry("c")));
+      assertNull(storage.getEntry("b"));
+      
+      // filling the file compacts it and evicts the least recently used
+      for (int n = 0; n < 40; n++) {
+        storage.getEntry("c");
+        storage.putEntry("k" + n, entry("k" + n, 1000));
+      }
+      assertTrue(storage.getEvictionCount() > 0);
+      assertTrue(storage.getBytesCached() <= storage.getCapacity());
+      assertNull(storage.getEntry("a"));
+      assertEquals("c", etag(storage.getEntry("c")));
+      assertEquals("k39", etag(storage.getEntry("k39")));
+      int count = storage.getEntryCount();
+      storage.close();
+      
+      storage = new MappedFileCacheStorage(file, 16 * 1024);
+      assertEquals(count, storage.getEntryCount());
+      assertEquals("k39", etag(storage.getEntry("k39")));
+      storage.close();
+    }
+}
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -31,8 +32,11 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.abdera2.common.http.CacheControl;
 import org.apache.abdera2.common.protocol.BasicCachingClient;
+import org.apache.abdera2.common.protocol.CacheStats;
 import org.apache.abdera2.common.protocol.Client;
 import org.apache.abdera2.common.protocol.ClientResponse;
+import org.apache.abdera2.common.protocol.LruHeapCacheStorage;
+import org.apache.abdera2.common.protocol.MappedFileCacheStorage;
 import org.apache.abdera2.common.protocol.RequestOptions;
 import org.apache.abdera2.common.protocol.Session;
 import org.apache.abdera2.test.JettyUtil;
@@ -93,7 +97,9 @@ public class CacheTest {
                           "org.apache.abdera2.test.client.CacheTest$AuthServlet",
                           "/auth",
                           "org.apache.abdera2.test.client.CacheTest$CheckMustRevalidateServlet",
-                          "/must_revalidate");
+                          "/must_revalidate",
+                          "org.apache.abdera2.test.client.CacheTest$LargeServlet",
+                          "/large");
     }
 
     public static class CheckMustRevalidateServlet extends HttpServlet {
@@ -172,6 +178,25 @@ public class CacheTest {
         }
     }
 
+    public static class LargeServlet extends HttpServlet {
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException,
+            IOException {
+            response.setDateHeader("Date", System.currentTimeMillis());
+            response.setHeader("ETag", "\"large\"");
+            if ("\"large\"".equals(request.getHeader("If-None-Match"))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("text/plain");
+            response.setHeader("Cache-Control", "max-age=60");
+            char[] body = new char[20 * 1024];
+            java.util.Arrays.fill(body, 'x');
+            response.getWriter().print(body);
+            response.getWriter().close();
+        }
+    }
+
     public static class AuthServlet extends HttpServlet {
         protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException,
             IOException {
@@ -487,6 +512,76 @@ public class CacheTest {
         abderaClient.shutdown();
     }
 
+    @Test
+    public void testPersistentCacheStorage() throws Exception {
+        File file = File.createTempFile("abdera-cache", ".dat");
+        file.deleteOnExit();
+        
+        MappedFileCacheStorage storage = new MappedFileCacheStorage(file, 64 * 1024);
+        BasicCachingClient abderaClient = new BasicCachingClient(storage);
+        Session session = abderaClient.newSession();
+        ClientResponse response = session.get(
+          CHECK_CACHE_INVALIDATE, 
+          getRequestOptions(session, 1).get());
+        assertEquals("1", getResponse(response));
+        response.release();
+        CacheStats stats = abderaClient.getCacheStats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEntryCount());
+        abderaClient.shutdown();
+        storage.close();
+        
+        // a new client reopening the same file is answered from the cache
+        storage = new MappedFileCacheStorage(file, 64 * 1024);
+        abderaClient = new BasicCachingClient(storage);
+        session = abderaClient.newSession();
+        response = session.get(
+          CHECK_CACHE_INVALIDATE, 
+          getRequestOptions(session, 2).get());
+        assertEquals("1", getResponse(response));
+        response.release();
+        stats = abderaClient.getCacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(0, stats.getMisses());
+        assertEquals(1.0, stats.getHitRate(), 0);
+        abderaClient.shutdown();
+        storage.close();
+    }
+
+    @Test
+    public void testLargeResponseWithMeteredStorage() throws Exception {
+        // the object size limit follows the storage, not the 8 KB default
+        BasicCachingClient abderaClient = 
+          new BasicCachingClient(new LruHeapCacheStorage());
+        Session session = abderaClient.newSession();
+        String uri = getBase() + "/large";
+        for (int n = 1; n <= 2; n++) {
+            ClientResponse response = session.get(uri, getRequestOptions(session, n).get());
+            assertEquals(20 * 1024, getResponse(response).length());
+            response.release();
+        }
+        CacheStats stats = abderaClient.getCacheStats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getHits());
+        abderaClient.shutdown();
+    }
+
+    @Test
+    public void testCallerConditionalRequestIsNotRevalidation() throws Exception {
+        BasicCachingClient abderaClient = 
+          new BasicCachingClient(new LruHeapCacheStorage());
+        Session session = abderaClient.newSession();
+        ClientResponse response = session.get(
+          getBase() + "/large", 
+          getRequestOptions(session, 1).ifNoneMatch("\"large\"").get());
+        assertEquals(304, response.getStatus());
+        response.release();
+        CacheStats stats = abderaClient.getCacheStats();
+        assertEquals(0, stats.getRevalidations());
+        assertEquals(0, stats.getNotModified());
+        abderaClient.shutdown();
+    }
+
     private static String getResponse(ClientResponse response) throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         int m = -1;
@@ -18,12 +18,16 @@ package org.apache.abdera2.test.client;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.Cookie;
@@ -35,15 +39,23 @@ import org.apache.abdera2.common.misc.MoreExecutors2;
 import org.apache.abdera2.common.protocol.BasicClient;
 import org.apache.abdera2.common.protocol.Client;
 import org.apache.abdera2.common.protocol.ClientResponse;
+import org.apache.abdera2.common.protocol.ConnectionPoolOptions;
+import org.apache.abdera2.common.protocol.ConnectionPoolStats;
 import org.apache.abdera2.common.protocol.Session;
 import org.apache.abdera2.common.protocol.Session.Listener;
 import org.apache.abdera2.test.JettyUtil;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import static com.google.common.base.Preconditions.checkState;
 
 public class ClientTest {
@@ -142,6 +154,64 @@ public class ClientTest {
       client.shutdown();
     }
     
+    @Test
+    public void testPooledAsyncClient() throws Exception {
+      Client client = 
+        new BasicClient(
+          ConnectionPoolOptions.make()
+            .maxTotal(10)
+            .maxPerRoute(2)
+            .maxForHost("LocalHost", 3)
+            .maxForHost("localhost", 4)
+            .timeToLive(1, TimeUnit.MINUTES)
+            .idleTimeout(30, TimeUnit.SECONDS)
+            .evictEvery(10, TimeUnit.SECONDS)
+            .get());
+      assertEquals(10, client.getMaxConnectionsTotal());
+      assertEquals(2, client.getMaxConnectionsPerHost());
+      HttpRoute route = 
+        new HttpRoute(new HttpHost("localhost",9002));
+      ConnectionPoolStats stats = client.getPoolStats(route);
+      assertNotNull(stats);
+      assertEquals(4, stats.getMax());
+      assertEquals(0, stats.getLeased());
+      
+      Session session = client.newSession();
+      ImmutableList.Builder<ListenableFuture<Integer>> futures = 
+        ImmutableList.builder();
+      for (int n = 0; n < 8; n++)
+        futures.add(
+          Futures.transform(
+            session.<ClientResponse>getAsync("http://localhost:9002/"), 
+            new Function<ClientResponse,Integer>() {
+              public Integer apply(ClientResponse resp) {
+                try {
+                  return resp.getStatus();
+                } finally {
+                  resp.release();
+                }
+              }
+            }));
+      List<Integer> statuses = 
+        Futures.allAsList(futures.build()).get();
+      assertEquals(8, statuses.size());
+      for (Integer status : statuses)
+        assertEquals(Integer.valueOf(200), status);
+      
+      stats = client.getPoolStats();
+      assertEquals(0, stats.getLeased());
+      assertEquals(0, stats.getPending());
+      assertEquals(10, stats.getMax());
+      
+      client.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+      assertEquals(0, client.getPoolStats().getAvailable());
+      client.shutdown();
+      try {
+        client.getExecutor();
+        fail("The executor should not be available after shutdown");
+      } catch (IllegalStateException e) {}
+    }
+    
     static class FutureMap<X,Y> extends AbstractFuture<Map<X,Y>> {
       private ImmutableMap.Builder<X,Y> builder = ImmutableMap.builder();
       FutureMap<X,Y> put(X key, Y value) {
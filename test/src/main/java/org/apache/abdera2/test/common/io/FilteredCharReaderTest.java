@@ -23,4 +23,33 @@ public class FilteredCharReaderTest {
     } catch (Throwable t) {}
   }
   
+  @Test
+  public void filteredCharReaderBlockTest() throws Exception {
+    char[] cs = {'A',0x0,0x1,'B','C',0x2};
+    char[] data = new char[8];
+    FilteredCharReader fcar = 
+      new FilteredCharReader(new CharArrayReader(cs),Profile.XML1RESTRICTED);
+    assertEquals(3, fcar.read(data,2,6));
+    assertEquals("ABC", new String(data,2,3));
+    assertEquals(-1, fcar.read(data,0,8));
+    
+    fcar = new FilteredCharReader(
+      new CharArrayReader(cs),Profile.XML1RESTRICTED,'?');
+    assertEquals(6, fcar.read(data,0,8));
+    assertEquals("A??BC?", new String(data,0,6));
+    
+    fcar = new FilteredCharReader(
+      new CharArrayReader("clean".toCharArray()),Profile.XML1RESTRICTED);
+    assertEquals(5, fcar.read(data,0,8));
+    assertEquals("clean", new String(data,0,5));
+    
+    // a block made up entirely of unwanted characters is skipped
+    char[] junk = {0x0,0x1,0x2,0x3,'D'};
+    fcar = new FilteredCharReader(
+      new CharArrayReader(junk),Profile.XML1RESTRICTED);
+    assertEquals(1, fcar.read(data,0,4));
+    assertEquals('D', data[0]);
+    assertEquals(-1, fcar.read(data,0,4));
+  }
+  
 }
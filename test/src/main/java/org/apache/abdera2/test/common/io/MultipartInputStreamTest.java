@@ -3,6 +3,8 @@ package org.apache.abdera2.test.common.io;
 import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 
 import org.apache.abdera2.common.io.MultipartInputStream;
 import org.junit.Test;
@@ -33,4 +35,45 @@ public class MultipartInputStreamTest {
     } catch (Throwable t) {}
   }
   
+  private static String readPart(InputStream in) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[7];
+    int r;
+    while ((r = in.read(buf)) != -1)
+      out.write(buf,0,r);
+    return new String(out.toByteArray(),"UTF-8");
+  }
+  
+  @Test
+  public void multipartInputStreamPartsTest() throws Exception {
+    StringBuilder body = new StringBuilder();
+    for (int n = 0; n < 50; n++)
+      body.append("part ").append(n).append(" -- -bound-frontier ");
+    String part = body.toString();
+    String data = "preamble--frontier" + part + "--frontier--frontier" + part;
+    byte[] boundary = "--frontier".getBytes("UTF-8");
+    // a small scan buffer forces boundaries to span refills
+    for (int size : new int[] {20, 33, 8192}) {
+      MultipartInputStream mis = 
+        new MultipartInputStream(
+          new ByteArrayInputStream(data.getBytes("UTF-8")),boundary,size);
+      assertEquals("preamble", readPart(mis));
+      assertEquals(part, readPart(mis));
+      assertEquals("", readPart(mis));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      assertEquals(part.length(), mis.transferTo(out));
+      assertEquals(part, new String(out.toByteArray(),"UTF-8"));
+      assertEquals(-1, mis.read());
+      assertEquals(-1, mis.read());
+    }
+    MultipartInputStream mis = 
+      new MultipartInputStream(
+        new ByteArrayInputStream(data.getBytes("UTF-8")),boundary);
+    mis.skipBoundary();
+    assertEquals('p', mis.read());
+    mis.skipBoundary();
+    mis.skipBoundary();
+    assertEquals(part, readPart(mis));
+  }
+  
 }
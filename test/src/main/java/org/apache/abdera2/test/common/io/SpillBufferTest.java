@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.test.common.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import org.apache.abdera2.common.io.SpillBuffer;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class SpillBufferTest {
+
+  private static byte[] data(int len) {
+    byte[] data = new byte[len];
+    for (int n = 0; n < len; n++)
+      data[n] = (byte)(n % 251);
+    return data;
+  }
+  
+  @Test
+  public void spillBufferMemoryTest() throws Exception {
+    byte[] data = data(SpillBuffer.CHUNK_SIZE * 2 + 17);
+    SpillBuffer buf = new SpillBuffer(data.length);
+    buf.write(data, 0, 10);
+    buf.write(data[10]);
+    buf.write(data, 11, data.length - 11);
+    assertFalse(buf.isSpilled());
+    assertEquals(data.length, buf.length());
+    assertArrayEquals(data, ByteStreams.toByteArray(buf.getInputStream()));
+    // the content can be read more than once
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    buf.writeTo(out);
+    assertArrayEquals(data, out.toByteArray());
+    buf.release();
+  }
+  
+  @Test
+  public void spillBufferFileTest() throws Exception {
+    byte[] data = data(SpillBuffer.CHUNK_SIZE * 3);
+    SpillBuffer buf = new SpillBuffer(1000);
+    buf.write(data, 0, 900);
+    assertFalse(buf.isSpilled());
+    buf.write(data, 900, data.length - 900);
+    assertTrue(buf.isSpilled());
+    assertEquals(data.length, buf.length());
+    InputStream in = buf.getInputStream(true);
+    assertArrayEquals(data, ByteStreams.toByteArray(in));
+    in.close();
+    try {
+      buf.getInputStream();
+      fail();
+    } catch (java.io.IOException e) {}
+  }
+  
+  @Test
+  public void spillBufferCleanupTest() throws Exception {
+    File dir = File.createTempFile("spill", "");
+    assertTrue(dir.delete() && dir.mkdir());
+    try {
+      byte[] data = data(2000);
+      SpillBuffer buf = new SpillBuffer(1000, dir);
+      buf.write(data, 0, data.length);
+      assertTrue(buf.isSpilled());
+      assertEquals(1, dir.list().length);
+      buf.release();
+      assertEquals(0, dir.list().length);
+      // a buffer that is never released is cleaned up once collected
+      buf = new SpillBuffer(1000, dir);
+      buf.write(data, 0, data.length);
+      assertEquals(1, dir.list().length);
+      buf = null;
+      for (int n = 0; n < 50 && dir.list().length > 0; n++) {
+        System.gc();
+        System.runFinalization();
+        Thread.sleep(20);
+      }
+      assertEquals(0, dir.list().length);
+    } finally {
+      for (File file : dir.listFiles())
+        file.delete();
+      dir.delete();
+    }
+  }
+  
+}
@@ -105,4 +105,30 @@ public class TemplateTest {
     assertEquals(map.get("b"),"2");
     assertEquals(map.get("c"),"3");
   }
+  
+  @Test
+  public void compiledTemplateTest() {
+    Template template = new Template("http://example.org/{a}/{b}{/a}{?c}");
+    MapContext context = new MapContext();
+    context.put("a", "x");
+    context.put("b", "$1");
+    context.put("c", "y");
+    // values are appended literally, never treated as regex replacements
+    assertEquals("http://example.org/x/%241/x?c=y", template.expand(context));
+    StringBuilder buf = new StringBuilder();
+    template.expand(context, buf);
+    buf.setLength(0);
+    context.put("a", "z");
+    assertEquals("http://example.org/z/%241/z?c=y", template.expand(context, buf).toString());
+  }
+  
+  @Test
+  public void routeExpandTest() {
+    Route<String> route = new Route<String>("A","http://foo/:a/:ab/:(b)c");
+    MapContext context = new MapContext();
+    context.put("a", "1");
+    context.put("ab", "2");
+    context.put("b", "3");
+    assertEquals("http://foo/1/2/3c", route.expand(context));
+  }
 }
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.test.ext.activities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.abdera2.Abdera;
+import org.apache.abdera2.activities.model.Activity;
+import org.apache.abdera2.activities.model.Collection;
+import org.apache.abdera2.activities.model.IO;
+import org.apache.abdera2.ext.activities.ActivityToFeedParser;
+import org.apache.abdera2.ext.activities.FeedToActivityConverter;
+import org.apache.abdera2.ext.activities.FeedToActivityWriter;
+import org.apache.abdera2.model.Document;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.Feed;
+import org.apache.abdera2.parser.EntryIterator;
+import org.junit.Test;
+
+public class ActivitiesConversionTest {
+
+    private static final String STREAM = 
+      "{\"id\":\"urn:stream\",\"displayName\":\"Stream\"," + 
+      "\"items\":[" + 
+      "{\"verb\":\"post\",\"id\":\"urn:a:1\",\"title\":\"First\"," + 
+      "\"actor\":{\"objectType\":\"person\",\"displayName\":\"Joe\"}," + 
+      "\"object\":{\"objectType\":\"note\",\"id\":\"urn:n:1\",\"displayName\":\"Note\"}}," + 
+      "{\"verb\":\"post\",\"id\":\"urn:a:2\",\"title\":\"Second\"," + 
+      "\"actor\":{\"objectType\":\"person\",\"displayName\":\"Jane\"}}" + 
+      "]}";
+
+    @Test
+    public void testActivityToFeed() throws Exception {
+        Abdera abdera = Abdera.getInstance();
+        ActivityToFeedParser parser = new ActivityToFeedParser(abdera);
+        Document<Feed> doc = parser.parse(new StringReader(STREAM));
+        Feed feed = doc.getRoot();
+        assertEquals("urn:stream", feed.getId().toString());
+        assertEquals("Stream", feed.getTitle());
+        assertEquals(2, feed.getEntryCount());
+        Entry entry = feed.getEntry("urn:a:1");
+        assertNotNull(entry);
+        assertEquals("First", entry.getTitle());
+        assertEquals("Joe", entry.getAuthor().getName());
+        assertNotNull(entry.getExtension(FeedToActivityConverter.OBJECT));
+    }
+
+    @Test
+    public void testActivityToFeedEntries() throws Exception {
+        Abdera abdera = Abdera.getInstance();
+        ActivityToFeedParser parser = new ActivityToFeedParser(abdera);
+        EntryIterator entries = parser.parseEntries(new StringReader(STREAM));
+        assertEquals("urn:stream", entries.getHeader().getId().toString());
+        assertEquals("Stream", entries.getHeader().getTitle());
+        assertEquals(0, entries.getHeader().getEntryCount());
+        assertTrue(entries.hasNext());
+        Entry entry = entries.next();
+        assertEquals("urn:a:1", entry.getId().toString());
+        assertEquals("Joe", entry.getAuthor().getName());
+        assertTrue(entries.hasNext());
+        assertEquals("Second", entries.next().getTitle());
+        assertFalse(entries.hasNext());
+        entries.close();
+    }
+
+    @Test
+    public void testActivityToFeedEntriesTrailingHeaderAndClose() throws Exception {
+        Abdera abdera = Abdera.getInstance();
+        ActivityToFeedParser parser = new ActivityToFeedParser(abdera);
+        String stream = 
+          "{\"id\":\"urn:stream\",\"items\":[{\"verb\":\"post\",\"id\":\"urn:a:1\"," + 
+          "\"actor\":{\"objectType\":\"person\",\"displayName\":\"Joe\"}}]," + 
+          "\"displayName\":\"Late\"}";
+        EntryIterator entries = 
+          parser.parseEntries(
+            new ByteArrayInputStream(stream.getBytes("UTF-8")), 
+            null, 
+            parser.getDefaultParserOptions());
+        assertEquals("urn:stream", entries.getHeader().getId().toString());
+        assertEquals("urn:a:1", entries.next().getId().toString());
+        assertFalse(entries.hasNext());
+        // members after the items are picked up once iteration is complete
+        assertEquals("Late", entries.getHeader().getTitle());
+
+        final AtomicBoolean closed = new AtomicBoolean();
+        Reader reader = new StringReader(STREAM) {
+          public void close() {
+            closed.set(true);
+            super.close();
+          }
+        };
+        entries = parser.parseEntries(reader);
+        assertTrue(entries.hasNext());
+        entries.close();
+        assertTrue(closed.get());
+        assertFalse(entries.hasNext());
+    }
+
+    @Test
+    public void testActivityToFeedEntriesBase() throws Exception {
+        Abdera abdera = Abdera.getInstance();
+        ActivityToFeedParser parser = new ActivityToFeedParser(abdera);
+        String stream = 
+          "{\"id\":\"urn:stream\",\"items\":[{\"verb\":\"post\",\"id\":\"urn:a:1\"," + 
+          "\"url\":\"a/1\",\"actor\":{\"objectType\":\"person\",\"displayName\":\"Joe\"}}]}";
+        String base = "http://example.org/stream/";
+        Feed feed = 
+          parser.<Feed>parse(new StringReader(stream), base, null).getRoot();
+        EntryIterator entries = 
+          parser.parseEntries(
+            new ByteArrayInputStream(stream.getBytes("UTF-8")), 
+            base, 
+            parser.getDefaultParserOptions());
+        assertEquals(base, entries.getHeader().getResolvedBaseUri().toString());
+        Entry entry = entries.next();
+        assertEquals(
+          "http://example.org/stream/a/1", 
+          entry.getAlternateLink().getResolvedHref().toString());
+        assertEquals(
+          feed.getEntries().get(0).getAlternateLink().getResolvedHref(), 
+          entry.getAlternateLink().getResolvedHref());
+        entries.close();
+    }
+
+    @Test
+    public void testFeedToActivityStreaming() throws Exception {
+        Abdera abdera = Abdera.getInstance();
+        Feed feed = abdera.newFeed();
+        feed.setId("urn:feed");
+        feed.setTitle("Feed");
+        feed.setUpdatedNow();
+        for (int n = 0; n < 3; n++) {
+            Entry entry = feed.addEntry();
+            entry.setId("urn:entry:" + n);
+            entry.setTitle("Entry " + n);
+            entry.setUpdatedNow();
+        }
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        feed.writeTo(xml);
+
+        FeedToActivityWriter writer = new FeedToActivityWriter(abdera);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        writer.writeTo(
+          new ByteArrayInputStream(xml.toByteArray()), 
+          json, 
+          writer.getDefaultWriterOptions());
+        Collection<Activity> col = 
+          IO.get().readCollection(json.toString("UTF-8"));
+        assertEquals("urn:feed", col.getId());
+        Iterator<Activity> items = col.getItems().iterator();
+        for (int n = 0; n < 3; n++)
+            assertEquals("urn:entry:" + n, items.next().getId());
+        assertFalse(items.hasNext());
+    }
+}
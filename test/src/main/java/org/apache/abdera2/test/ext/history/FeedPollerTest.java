@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+package org.apache.abdera2.test.ext.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.abdera2.ext.history.FeedPoller;
+import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.test.JettyUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FeedPollerTest {
+
+    private static volatile int version = 1;
+    private static final AtomicInteger pageTwoRequests = new AtomicInteger();
+    
+    @BeforeClass
+    public static void setUp() throws Exception {
+      JettyUtil.addServlet(FeedServlet.class.getName(), "/feed");
+      JettyUtil.addServlet(NoIdServlet.class.getName(), "/noid");
+      JettyUtil.start();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+      JettyUtil.stop();
+    }
+    
+    private static String uri() {
+      return "http://localhost:" + JettyUtil.getPort() + "/feed";
+    }
+
+    @SuppressWarnings("serial")
+    public static class FeedServlet extends HttpServlet {
+      protected void doGet(
+        HttpServletRequest request, 
+        HttpServletResponse response)
+          throws ServletException, IOException {
+        boolean second = "2".equals(request.getParameter("page"));
+        String etag = "\"v" + version + (second ? "p2" : "") + "\"";
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+          response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+          return;
+        }
+        if (second) pageTwoRequests.incrementAndGet();
+        response.setContentType("application/atom+xml");
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "max-age=120");
+        PrintWriter out = response.getWriter();
+        out.print("<feed xmlns='http://www.w3.org/2005/Atom'>");
+        out.print("<id>urn:feed</id><title>Test</title><updated>2012-01-01T00:00:00Z</updated>");
+        if (second) {
+          for (int n = 3; n > 0; n--)
+            entry(out, n);
+        } else {
+          out.print("<link rel='next' href='" + uri() + "?page=2'/>");
+          for (int n = version + 4; n > 3; n--)
+            entry(out, n);
+        }
+        out.print("</feed>");
+      }
+      private void entry(PrintWriter out, int n) {
+        out.print("<entry><id>urn:entry:" + n + "</id><title>" + n + "</title>" + 
+                  "<updated>2012-01-01T00:00:00Z</updated></entry>");
+      }
+    }
+    
+    /**
+     * Serves entries without an atom:id and never answers with a 304
+     */
+    @SuppressWarnings("serial")
+    public static class NoIdServlet extends HttpServlet {
+      protected void doGet(
+        HttpServletRequest request, 
+        HttpServletResponse response)
+          throws ServletException, IOException {
+        response.setContentType("application/atom+xml");
+        PrintWriter out = response.getWriter();
+        out.print("<feed xmlns='http://www.w3.org/2005/Atom'>");
+        out.print("<id>urn:feed</id><title>Test</title><updated>2012-01-01T00:00:00Z</updated>");
+        for (int n = version; n > 0; n--)
+          out.print("<entry><link href='http://example.org/" + n + "'/>" + 
+                    "<updated>2012-01-01T00:00:00Z</updated></entry>");
+        out.print("<entry/>");
+        out.print("</feed>");
+      }
+    }
+    
+    private static final FeedPoller.Listener NOOP = 
+      new FeedPoller.Listener() {
+        public void onEntries(String uri, List<Entry> entries) {}
+        public void onError(String uri, Throwable error) {}
+      };
+    
+    @Test
+    public void testConditionalPolling() throws Exception {
+      version = 1;
+      pageTwoRequests.set(0);
+      FeedPoller poller = FeedPoller.make().get();
+      FeedPoller.State state = 
+        poller.subscribe(uri(), NOOP, 1, TimeUnit.HOURS);
+      
+      // the first poll follows the next link to pick up every entry
+      List<Entry> entries = poller.poll(uri());
+      assertEquals(5, entries.size());
+      assertEquals("urn:entry:5", entries.get(0).getId().toString());
+      assertEquals("urn:entry:1", entries.get(4).getId().toString());
+      assertNotNull(state.getEntityTag());
+      assertEquals(TimeUnit.SECONDS.toMillis(120), state.getDelay());
+      assertEquals(1, pageTwoRequests.get());
+      
+      // nothing changed, the server answers with a 304
+      entries = poller.poll(uri());
+      assertEquals(0, entries.size());
+      assertEquals(1, state.getNotModifiedCount());
+      
+      // a new entry on the first page, no need to look at the second
+      version = 2;
+      entries = poller.poll(uri());
+      assertEquals(1, entries.size());
+      assertEquals("urn:entry:6", entries.get(0).getId().toString());
+      assertEquals(1, pageTwoRequests.get());
+      assertEquals(3, state.getPollCount());
+      poller.shutdown();
+    }
+    
+    @Test
+    public void testScheduledPolling() throws Exception {
+      version = 1;
+      FeedPoller poller = 
+        FeedPoller.make()
+          .workers(2)
+          .maxPerHost(1)
+          .get();
+      final CountDownLatch latch = new CountDownLatch(1);
+      final AtomicInteger count = new AtomicInteger();
+      poller.subscribe(uri(), new FeedPoller.Listener() {
+        public void onEntries(String uri, List<Entry> entries) {
+          count.addAndGet(entries.size());
+          latch.countDown();
+        }
+        public void onError(String uri, Throwable error) {
+          latch.countDown();
+        }
+      });
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      assertEquals(5, count.get());
+      poller.unsubscribe(uri());
+      poller.shutdown();
+    }
+
+    @Test
+    public void testEntriesWithoutId() throws Exception {
+      version = 1;
+      String uri = "http://localhost:" + JettyUtil.getPort() + "/noid";
+      FeedPoller poller = FeedPoller.make().get();
+      poller.subscribe(uri, NOOP, 1, TimeUnit.HOURS);
+      // the entry with nothing to key on is skipped
+      List<Entry> entries = poller.poll(uri);
+      assertEquals(1, entries.size());
+      assertEquals(
+        "http://example.org/1", 
+        entries.get(0).getAlternateLink().getHref().toString());
+      // the same entries are not reported again
+      entries = poller.poll(uri);
+      assertEquals(0, entries.size());
+      version = 2;
+      entries = poller.poll(uri);
+      assertEquals(1, entries.size());
+      assertEquals(
+        "http://example.org/2", 
+        entries.get(0).getAlternateLink().getHref().toString());
+      poller.shutdown();
+    }
+}
@@ -69,6 +69,36 @@ public class SerializerTest {
         assertEquals("http://example.org/foo", entry.getAlternateLink().getResolvedHref().toString());
     }
 
+    @Test
+    public void testRepeatedSubclass() throws Exception {
+        // the second pass is served from the cached type metadata and the
+        // remembered supertype serializer lookup
+        for (int n = 0; n < 2; n++) {
+            Abdera abdera = Abdera.getInstance();
+            StreamWriter sw = abdera.create(StreamWriter.class);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            sw.setOutputStream(out);
+            ConventionSerializationContext c = new ConventionSerializationContext(sw);
+            c.setSerializer(MyEntry.class, new EntrySerializer());
+            assertTrue(c.hasSerializer(MySubEntry.class));
+            sw.startDocument();
+            c.serialize(new MySubEntry());
+            sw.endDocument();
+            ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+            Document<Entry> doc = abdera.getParser().parse(in);
+            Entry entry = doc.getRoot();
+            assertEquals("tag:example.org,2008:foo", entry.getId().toString());
+            assertEquals("This is the subtitle", entry.getTitle());
+            assertEquals("James", entry.getAuthor().getName());
+        }
+    }
+
+    public static class MySubEntry extends MyEntry {
+        public String getTitle() {
+            return "This is the subtitle";
+        }
+    }
+
     public static class MyEntry {
         public String getId() {
             return "tag:example.org,2008:foo";
@@ -1,12 +1,18 @@
 package org.apache.abdera2.test.factory;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
 
 import javax.xml.namespace.QName;
 
 import org.apache.abdera2.Abdera;
 import org.apache.abdera2.model.Content;
 import org.apache.abdera2.model.Element;
+import org.apache.abdera2.model.ElementWrapper;
 import org.apache.abdera2.model.Entry;
 import org.apache.abdera2.model.ExtensibleElementWrapper;
 import org.apache.abdera2.model.Text;
@@ -16,6 +22,8 @@ import org.apache.abdera2.ext.thread.Total;
 import org.apache.abdera2.factory.AbstractExtensionFactory;
 import org.apache.abdera2.factory.AbstractExtensionFactory.Impls;
 import org.apache.abdera2.factory.AbstractExtensionFactory.Impl;
+import org.apache.abdera2.factory.ExtensionFactory;
+import org.apache.abdera2.factory.ExtensionFactoryMap;
 import org.apache.abdera2.factory.Factory;
 import org.junit.Test;
 
@@ -81,6 +89,28 @@ public class FactoryTest {
     assertNotNull(te);
   }
   
+  @Test
+  public void extensionFactoryMapTest() {
+    Abdera abdera = Abdera.getInstance();
+    ExtensionFactoryMap map = 
+      new ExtensionFactoryMap(
+        Arrays.<ExtensionFactory>asList(new TestExtensionFactory()));
+    assertTrue(map.handlesNamespace("b"));
+    assertFalse(map.handlesNamespace("urn:none"));
+    
+    Element el = abdera.getFactory().newElement(new QName("b","a"));
+    Element internal = el instanceof ElementWrapper ? 
+      ((ElementWrapper)el).getInternal() : el;
+    // the second lookup is answered by the factory that owned the first
+    for (int n = 0; n < 2; n++)
+      assertTrue(map.getElementWrapper(internal) instanceof TestExtension);
+    
+    Element other = abdera.getFactory().newElement(new QName("b","c"));
+    assertSame(other, map.getElementWrapper(other));
+    Element unhandled = abdera.getFactory().newElement(new QName("urn:none","a"));
+    assertSame(unhandled, map.getElementWrapper(unhandled));
+  }
+  
   @Namespace({"foo","b"})
   @Impls(@Impl(TestExtension.class))
   public static class TestExtensionFactory extends AbstractExtensionFactory {}
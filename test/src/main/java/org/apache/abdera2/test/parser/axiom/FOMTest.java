@@ -20,6 +20,7 @@ package org.apache.abdera2.test.parser.axiom;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -29,6 +30,7 @@ import java.io.OutputStreamWriter;
 import java.net.URL;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 import javax.activation.DataHandler;
 import javax.activation.MimeType;
@@ -53,6 +55,7 @@ import org.apache.abdera2.model.Div;
 import org.apache.abdera2.model.Document;
 import org.apache.abdera2.model.Element;
 import org.apache.abdera2.model.Entry;
+import org.apache.abdera2.model.ExtensibleElement;
 import org.apache.abdera2.model.Feed;
 import org.apache.abdera2.model.Generator;
 import org.apache.abdera2.model.IRIElement;
@@ -65,6 +68,7 @@ import org.apache.abdera2.model.Workspace;
 import org.apache.abdera2.parser.Parser;
 import org.apache.abdera2.parser.ParserFactory;
 import org.apache.abdera2.parser.ParserOptions;
+import org.apache.abdera2.parser.axiom.FOMBuilder;
 import org.apache.abdera2.extra.AbderaSource;
 import org.apache.abdera2.parser.filter.BlackListParseFilter;
 import org.apache.abdera2.parser.filter.ParseFilter;
@@ -73,6 +77,7 @@ import org.apache.abdera2.writer.Writer;
 import org.apache.abdera2.writer.WriterFactory;
 import org.apache.abdera2.xpath.XPath;
 import org.apache.axiom.attachments.ByteArrayDataSource;
+import org.apache.axiom.om.OMElement;
 import org.junit.Test;
 
 public class FOMTest {
@@ -169,6 +174,120 @@ public class FOMTest {
 
     }
 
+    @Test
+    public void testCloneAndMove() throws Exception {
+        String xml = 
+          "<feed xmlns='http://www.w3.org/2005/Atom' xmlns:x='urn:x'>" +
+          "<entry x:a='1'><id>urn:1</id><title type='html'>One</title>" +
+          "<x:ext x:b='2'><x:inner>text</x:inner></x:ext></entry></feed>";
+        Document<Feed> doc = getParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        Feed feed = doc.getRoot();
+        Entry entry = feed.getEntries().get(0);
+
+        Entry copy = (Entry)entry.clone();
+        assertEquals(1, copy.getAttributes().size());
+        assertEquals("1", copy.getAttributeValue(new QName("urn:x", "a")));
+        assertEquals(Text.Type.HTML, copy.getTitleType());
+        Element ext = copy.getExtension(new QName("urn:x", "ext"));
+        assertEquals(1, ext.getAttributes().size());
+        assertEquals("text", ((ExtensibleElement)ext).getSimpleExtension(new QName("urn:x", "inner")));
+        assertEquals(1, feed.getEntries().size());
+
+        Feed other = getFactory().newFeed();
+        Entry moved = entry.moveTo(other);
+        assertSame(entry, moved);
+        assertTrue(feed.getEntries().isEmpty());
+        assertEquals(1, other.getEntries().size());
+        assertEquals("urn:1", other.getEntries().get(0).getId().toString());
+        assertTrue(other.toString().contains("xmlns:x=\"urn:x\""));
+    }
+
+    @Test
+    public void testResolvedBaseUriInvalidation() throws Exception {
+        String xml = 
+          "<feed xmlns='http://www.w3.org/2005/Atom' xml:base='http://example.org/a/'>" +
+          "<entry xml:base='b/'><link href='c'/></entry></feed>";
+        Document<Feed> doc = getParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        Feed feed = doc.getRoot();
+        Entry entry = feed.getEntries().get(0);
+        Link link = entry.getLinks().get(0);
+        assertEquals("http://example.org/a/b/c", link.getResolvedHref().toString());
+        assertEquals("http://example.org/a/b/c", link.getResolvedHref().toString());
+
+        feed.setBaseUri("http://example.com/x/");
+        assertEquals("http://example.com/x/b/c", link.getResolvedHref().toString());
+        entry.setBaseUri("y/");
+        assertEquals("http://example.com/x/y/c", link.getResolvedHref().toString());
+        entry.removeAttribute(new QName(Constants.XML_NS, "base"));
+        assertEquals("http://example.com/x/c", link.getResolvedHref().toString());
+
+        Feed other = getFactory().newFeed();
+        other.setBaseUri("http://example.net/z/");
+        entry.discard();
+        other.addEntry(entry);
+        assertEquals("http://example.net/z/c", 
+          other.getEntries().get(0).getLinks().get(0).getResolvedHref().toString());
+    }
+
+    @Test
+    public void testResolvedBaseUriScopedToDocument() throws Exception {
+        String xml = 
+          "<feed xmlns='http://www.w3.org/2005/Atom'>" +
+          "<entry xml:base='b/'><link href='c'/></entry></feed>";
+        Document<Feed> doc = 
+          getParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")), "http://example.org/a/");
+        Entry entry = doc.getRoot().getEntries().get(0);
+        IRI base = entry.getResolvedBaseUri();
+        assertEquals("http://example.org/a/b/", base.toString());
+
+        // parsing and changing another document leaves the memo alone
+        Document<Feed> other = 
+          getParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")), "http://example.net/");
+        Entry otherEntry = other.getRoot().getEntries().get(0);
+        assertEquals("http://example.net/b/", otherEntry.getResolvedBaseUri().toString());
+        otherEntry.setBaseUri("d/");
+        other.setBaseUri("http://example.com/");
+        assertEquals("http://example.com/d/", otherEntry.getResolvedBaseUri().toString());
+        assertSame(base, entry.getResolvedBaseUri());
+
+        doc.setBaseUri("http://example.com/");
+        assertEquals("http://example.com/b/", entry.getResolvedBaseUri().toString());
+    }
+
+    @Test
+    public void testWhiteListParseFilterDeepSkip() throws Exception {
+        ParseFilter filter = 
+          WhiteListParseFilter
+            .make()
+            .add(Constants.FEED)
+            .add(Constants.ENTRY)
+            .add(Constants.ID)
+            .get();
+        ParserOptions options = 
+          getParser().makeDefaultParserOptions()
+            .filter(filter).get();
+        // a rejected subtree far deeper than the stack would allow 
+        // if it were skipped one frame per token
+        StringBuilder buf = new StringBuilder();
+        buf.append("<feed xmlns='http://www.w3.org/2005/Atom'><entry><id>urn:a</id>");
+        buf.append("<content type='xhtml'>");
+        for (int n = 0; n < 50000; n++)
+            buf.append("<div xmlns='http://www.w3.org/1999/xhtml'>");
+        for (int n = 0; n < 50000; n++)
+            buf.append("</div>");
+        buf.append("</content><title>Skipped</title></entry></feed>");
+        Document<Feed> doc = 
+          getParser().parse(new ByteArrayInputStream(buf.toString().getBytes("UTF-8")), options);
+        Feed feed = doc.getRoot();
+        Entry entry = feed.getEntries().get(0);
+        assertEquals("urn:a", entry.getId().toString());
+        assertNull(entry.getContentElement());
+        assertNull(entry.getTitleElement());
+        FOMBuilder builder = (FOMBuilder)((OMElement)feed).getBuilder();
+        assertEquals(2, builder.getSkippedElements());
+        assertTrue(builder.getSkippedBytes() > 0);
+    }
+
     @Test
     public void testWhiteListParseFilter() throws Exception {
 
@@ -794,4 +913,79 @@ public class FOMTest {
 
         assertEquals("tóst", entry.getContent());
     }
+
+    @Test
+    public void testFeedEntryIndex() throws Exception {
+        Abdera abdera = Abdera.getInstance();
+        Feed feed = abdera.newFeed();
+        for (int n = 0; n < 10; n++)
+            feed.addEntry().setId("urn:test:" + n);
+        assertEquals(10, feed.getEntryCount());
+        Entry e3 = feed.getEntry("urn:test:3");
+        assertNotNull(e3);
+        assertEquals("urn:test:3", e3.getId().toString());
+        assertNull(feed.getEntry("urn:test:10"));
+
+        // the index must follow changes to the feed and its entries
+        feed.addEntry().setId("urn:test:10");
+        assertNotNull(feed.getEntry("urn:test:10"));
+        e3.setId("urn:test:three");
+        assertNull(feed.getEntry("urn:test:3"));
+        assertSame(e3, feed.getEntry("urn:test:three"));
+        e3.getIdElement().setValue("urn:test:3");
+        assertSame(e3, feed.getEntry("urn:test:3"));
+        e3.discard();
+        assertNull(feed.getEntry("urn:test:3"));
+        Entry first = feed.insertEntry();
+        first.setId("urn:test:3");
+        assertSame(first, feed.getEntry("urn:test:3"));
+
+        // changes made through the id text or the Axiom API are indexed too
+        Entry e5 = feed.getEntry("urn:test:5");
+        e5.getIdElement().setText("urn:test:five");
+        assertSame(e5, feed.getEntry("urn:test:five"));
+        e5.getIdElement().setText("urn:test:5");
+        assertSame(e5, feed.getEntry("urn:test:5"));
+        Entry raw = abdera.getFactory().newEntry();
+        raw.setId("urn:test:raw");
+        ((OMElement)e5).insertSiblingAfter((OMElement)raw);
+        assertSame(raw, feed.getEntry("urn:test:raw"));
+        raw.discard();
+
+        List<Entry> range = feed.getEntries(2, 3);
+        assertEquals(3, range.size());
+        assertEquals("urn:test:1", range.get(0).getId().toString());
+        assertEquals("urn:test:4", range.get(2).getId().toString());
+        assertEquals(2, feed.getEntries(9, 5).size());
+        assertEquals(0, feed.getEntries(20, 5).size());
+
+        feed.sortEntries(new java.util.Comparator<Entry>() {
+          public int compare(Entry a, Entry b) {
+            return b.getId().toString().compareTo(a.getId().toString());
+          }
+        });
+        assertEquals("urn:test:9", feed.getEntries().get(0).getId().toString());
+        assertEquals(11, feed.getEntryCount());
+        assertSame(first, feed.getEntry("urn:test:3"));
+        assertNotNull(feed.getEntry("urn:test:0"));
+    }
+
+    @Test
+    public void testFeedEntryIndexMerge() throws Exception {
+        // merging by id must not rebuild the index on every miss, which
+        // made this loop quadratic; 10,000 ids took well over a minute
+        Abdera abdera = Abdera.getInstance();
+        Feed feed = abdera.newFeed();
+        long start = System.currentTimeMillis();
+        for (int n = 0; n < 10000; n++) {
+            String id = "urn:test:" + n;
+            if (feed.getEntry(id) == null)
+                feed.addEntry().setId(id);
+        }
+        for (int n = 0; n < 10000; n++)
+            assertNull(feed.getEntry("urn:missing:" + n));
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertEquals(10000, feed.getEntryCount());
+        assertEquals("urn:test:9999", feed.getEntry("urn:test:9999").getId().toString());
+    }
 }
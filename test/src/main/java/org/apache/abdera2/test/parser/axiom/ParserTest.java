@@ -18,8 +18,12 @@
 package org.apache.abdera2.test.parser.axiom;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -29,7 +33,11 @@ import org.apache.abdera2.model.Document;
 import org.apache.abdera2.model.Entry;
 import org.apache.abdera2.model.Feed;
 import org.apache.abdera2.model.Service;
+import org.apache.abdera2.parser.EntryIterator;
 import org.apache.abdera2.parser.Parser;
+import org.apache.abdera2.parser.ParserOptions;
+import org.apache.abdera2.parser.axiom.FOMBuilder;
+import org.apache.axiom.om.OMElement;
 import org.junit.Test;
 
 public class ParserTest {
@@ -98,4 +106,108 @@ public class ParserTest {
 
     }
 
+    @Test
+    public void testParseEntries() throws Exception {
+        String xml = 
+          "<feed xmlns='http://www.w3.org/2005/Atom' xmlns:x='urn:x' " + 
+          "xml:base='http://example.org/feed/' xml:lang='en'>" +
+          "<id>urn:feed</id><title>Feed</title>" +
+          "<entry><id>urn:1</id><title>One</title><link href='one'/><x:ext>a</x:ext></entry>" +
+          "<entry xml:lang='fr' xml:base='other/'><id>urn:2</id><title>Two</title><link href='two'/></entry>" +
+          "<entry><id>urn:3</id><title>Three</title></entry>" +
+          "<subtitle>Trailing</subtitle>" +
+          "</feed>";
+        EntryIterator entries = 
+          getParser().parseEntries(
+            new ByteArrayInputStream(xml.getBytes("UTF-8")), 
+            getParser().getDefaultParserOptions());
+        Feed header = entries.getHeader();
+        assertEquals("urn:feed", header.getId().toString());
+        assertEquals("Feed", header.getTitle());
+        assertTrue(header.getEntries().isEmpty());
+
+        assertTrue(entries.hasNext());
+        Entry entry = entries.next();
+        assertEquals("urn:1", entry.getId().toString());
+        assertEquals("http://example.org/feed/one", entry.getAlternateLink().getResolvedHref().toString());
+        assertEquals("en", entry.getLanguage());
+        assertEquals("a", entry.getSimpleExtension("urn:x", "ext", "x"));
+        assertTrue(entry.toString().contains("xmlns:x=\"urn:x\""));
+        assertTrue(entry.getParentElement() instanceof Document);
+
+        entry = entries.next();
+        assertEquals("urn:2", entry.getId().toString());
+        assertEquals("http://example.org/feed/other/two", entry.getAlternateLink().getResolvedHref().toString());
+        assertEquals("fr", entry.getLanguage());
+
+        entry = entries.next();
+        assertEquals("Three", entry.getTitle());
+        assertFalse(entries.hasNext());
+        assertEquals("Trailing", header.getSubtitle());
+        entries.close();
+
+        entries = 
+          getParser().parseEntries(
+            ParserTest.class.getResourceAsStream("/simpleEntry.xml"), 
+            getParser().getDefaultParserOptions());
+        assertNull(entries.getHeader());
+        assertTrue(entries.next() instanceof Entry);
+        assertFalse(entries.hasNext());
+        entries.close();
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        String xml = 
+          "<feed xmlns='http://www.w3.org/2005/Atom' xml:base='http://example.org/feed/'>" +
+          "<id>urn:feed</id><title>Feed</title><link rel='self' href='self'/>" +
+          "<entry><id>urn:1</id><updated>2012-01-01T00:00:00Z</updated>" +
+          "<link rel='alternate' href='one'/><title>One</title><content>c</content></entry>" +
+          "<entry><title>Two</title><link rel='alternate' href='two'/>" +
+          "<updated>2012-01-02T00:00:00Z</updated><id>urn:2</id></entry>" +
+          "</feed>";
+        ParserOptions options = 
+          getParser().makeDefaultParserOptions()
+            .project("entry/id", "entry/updated", "entry/link[@href]", "link[@rel]")
+            .get();
+        Document<Feed> doc = 
+          getParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")), options);
+        Feed feed = doc.getRoot();
+        assertNull(feed.getIdElement());
+        assertNull(feed.getTitleElement());
+        assertEquals("self", feed.getLinks().get(0).getRel());
+        assertNull(feed.getLinks().get(0).getHref());
+        assertEquals(2, feed.getEntries().size());
+        Entry entry = feed.getEntries().get(0);
+        assertEquals("urn:1", entry.getId().toString());
+        assertNotNull(entry.getUpdated());
+        assertEquals("http://example.org/feed/one", entry.getLinks().get(0).getResolvedHref().toString());
+        assertNull(entry.getTitleElement());
+        assertNull(entry.getContentElement());
+        entry = feed.getEntries().get(1);
+        assertEquals("urn:2", entry.getId().toString());
+        assertNull(entry.getTitleElement());
+        
+        // without the repeatable link step, the rest of each entry is 
+        // skipped as soon as its id and updated have been read
+        options = 
+          getParser().makeDefaultParserOptions()
+            .project("entry/id", "entry/updated")
+            .get();
+        EntryIterator entries = 
+          getParser().parseEntries(
+            new ByteArrayInputStream(xml.getBytes("UTF-8")), options);
+        assertNull(entries.getHeader().getTitleElement());
+        entry = entries.next();
+        assertEquals("urn:1", entry.getId().toString());
+        assertNotNull(entry.getUpdated());
+        assertTrue(entry.getLinks().isEmpty());
+        FOMBuilder builder = (FOMBuilder)((OMElement)entry).getBuilder();
+        assertEquals(3, builder.getSkippedElements());
+        entry = entries.next();
+        assertEquals("urn:2", entry.getId().toString());
+        assertFalse(entries.hasNext());
+        entries.close();
+    }
+
 }
@@ -1,14 +1,25 @@
 package org.apache.abdera2.test.protocol.pusher;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.abdera2.common.pusher.ChannelManager;
 import org.apache.abdera2.common.pusher.Listener;
 import org.apache.abdera2.common.pusher.Pusher;
 import org.apache.abdera2.common.pusher.Receiver;
 import org.apache.abdera2.common.pusher.SimpleChannelManager;
+import org.apache.abdera2.common.pusher.SimplePusher;
 import org.junit.Test;
 
 public class PusherTest {
@@ -42,4 +53,153 @@ public class PusherTest {
     cm.shutdown();
   }
   
+  @Test
+  public void orderedDeliveryTest() throws Exception {
+    SimplePusher<Integer> pusher = new SimplePusher<Integer>(4,8,3);
+    final CountDownLatch latch = new CountDownLatch(200);
+    final List<Integer> a = new ArrayList<Integer>();
+    final List<Integer> b = new ArrayList<Integer>();
+    pusher.startListening(new CollectingListener(a,latch));
+    pusher.startListening(new CollectingListener(b,latch));
+    for (int n = 0; n < 100; n++)
+      pusher.push(n);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    for (int n = 0; n < 100; n++) {
+      assertEquals(n, a.get(n).intValue());
+      assertEquals(n, b.get(n).intValue());
+    }
+    assertEquals(100, pusher.getPushedCount());
+    pusher.shutdown();
+    assertFalse(pusher.isRunning());
+  }
+  
+  @Test
+  public void backpressureTest() throws Exception {
+    SimplePusher<String> pusher = new SimplePusher<String>(1,2,1);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch received = new CountDownLatch(3);
+    pusher.startListening(
+      new Listener<String>() {
+        public void beforeItems() {}
+        public void onItem(String t) {
+          try {
+            blocked.await();
+          } catch (InterruptedException e) {}
+          received.countDown();
+        }
+        public void afterItems() {}
+      }
+    );
+    pusher.push("a");
+    pusher.push("b");
+    assertEquals(2, pusher.getQueueDepth());
+    assertFalse(pusher.offer("c", 50, TimeUnit.MILLISECONDS));
+    blocked.countDown();
+    assertTrue(pusher.offer("c", 10, TimeUnit.SECONDS));
+    assertTrue(received.await(10, TimeUnit.SECONDS));
+    pusher.shutdown();
+  }
+  
+  @Test(timeout=10000)
+  public void noListenerTest() throws Exception {
+    SimplePusher<Integer> pusher = new SimplePusher<Integer>(1,2,1);
+    // nobody is listening, so a full pusher drops rather than blocks
+    for (int n = 0; n < 5; n++)
+      pusher.push(n);
+    assertEquals(5, pusher.getPushedCount());
+    assertEquals(3, pusher.getDroppedCount());
+    assertTrue(pusher.offer(5, 0, TimeUnit.MILLISECONDS));
+    assertEquals(4, pusher.getDroppedCount());
+    final CountDownLatch latch = new CountDownLatch(2);
+    final List<Integer> items = new ArrayList<Integer>();
+    pusher.startListening(new CollectingListener(items,latch));
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(5, items.get(items.size()-1).intValue());
+    pusher.shutdown();
+  }
+  
+  @Test(timeout=10000)
+  public void noListenerHeldBatchTest() throws Exception {
+    SimplePusher<Integer> pusher = new SimplePusher<Integer>(1,2,2);
+    pusher.push(0);
+    pusher.push(1);
+    // let the dispatcher take both items while it waits for a listener
+    Thread.sleep(200);
+    pusher.push(2);
+    assertEquals(1, pusher.getDroppedCount());
+    final CountDownLatch latch = new CountDownLatch(2);
+    final List<Integer> items = new ArrayList<Integer>();
+    pusher.startListening(new CollectingListener(items,latch));
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    // the oldest item made room, the newest was kept
+    synchronized(items) {
+      assertEquals(Arrays.asList(1, 2), items);
+    }
+    pusher.shutdown();
+  }
+  
+  @Test(timeout=10000)
+  public void stopListeningTest() throws Exception {
+    final SimplePusher<String> pusher = new SimplePusher<String>(1,10,1);
+    final CountDownLatch first = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicBoolean stopped = new AtomicBoolean();
+    final AtomicInteger late = new AtomicInteger();
+    final Listener<String> listener = 
+      new Listener<String>() {
+        public void beforeItems() {}
+        public void onItem(String t) {
+          if (stopped.get())
+            late.incrementAndGet();
+          first.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {}
+        }
+        public void afterItems() {
+          stopped.set(true);
+        }
+      };
+    pusher.startListening(listener);
+    pusher.push("a");
+    pusher.push("b");
+    pusher.push("c");
+    assertTrue(first.await(10, TimeUnit.SECONDS));
+    Thread stopper = new Thread() {
+      public void run() {
+        pusher.stopListening(listener);
+      }
+    };
+    stopper.start();
+    // afterItems must wait for the onItem call in progress
+    stopper.join(100);
+    assertFalse(stopped.get());
+    release.countDown();
+    stopper.join();
+    assertTrue(stopped.get());
+    // the undelivered batches are discarded and their capacity returned
+    while (pusher.getQueueDepth() > 0)
+      Thread.sleep(10);
+    Thread.sleep(100);
+    assertEquals(0, late.get());
+    pusher.shutdown();
+  }
+  
+  private static class CollectingListener implements Listener<Integer> {
+    private final List<Integer> items;
+    private final CountDownLatch latch;
+    CollectingListener(List<Integer> items, CountDownLatch latch) {
+      this.items = items;
+      this.latch = latch;
+    }
+    public void beforeItems() {}
+    public void onItem(Integer t) {
+      synchronized(items) {
+        items.add(t);
+      }
+      latch.countDown();
+    }
+    public void afterItems() {}
+  }
+  
 }
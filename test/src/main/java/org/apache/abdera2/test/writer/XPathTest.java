@@ -1,12 +1,18 @@
 package org.apache.abdera2.test.writer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
 
 import org.apache.abdera2.Abdera;
 import org.apache.abdera2.model.Entry;
 import org.apache.abdera2.model.Person;
+import org.apache.abdera2.parser.axiom.FOMXPath;
+import org.apache.abdera2.xpath.CompiledXPath;
 import org.apache.abdera2.xpath.XPath;
 import org.junit.Test;
 
@@ -24,4 +30,37 @@ public class XPathTest {
     assertEquals("James",person.getName());
   }
   
+  @Test
+  public void compiledXPathTest() {
+    Abdera abdera = Abdera.getInstance();
+    Entry entry = abdera.newEntry();
+    entry.addAuthor("James");
+    entry.addAuthor("Joe");
+    XPath xpath = abdera.getXPath();
+    CompiledXPath compiled = xpath.compile("count(/a:entry/a:author)");
+    assertSame(compiled, xpath.compile("count(/a:entry/a:author)"));
+    assertEquals(2, compiled.numericValueOf(entry).intValue());
+    entry.addAuthor("Jane");
+    assertEquals(3, compiled.numericValueOf(entry).intValue());
+    assertEquals("James", xpath.compile("/a:entry/a:author[1]/a:name").valueOf(entry));
+  }
+
+  @Test
+  public void xpathVariablesTest() {
+    Abdera abdera = Abdera.getInstance();
+    Entry entry = abdera.newEntry();
+    entry.addAuthor("James");
+    entry.addAuthor("Joe");
+    FOMXPath xpath = new FOMXPath(abdera);
+    Map<QName,Object> variables = xpath.getDefaultVariables();
+    variables.put(new QName("name"), "James");
+    xpath.setDefaultVariables(variables);
+    String path = "count(/a:entry/a:author[a:name=$name])";
+    assertEquals(1, xpath.numericValueOf(path, entry).intValue());
+    // changing the variables must not return the expression compiled for the old values
+    variables.put(new QName("name"), "Jane");
+    xpath.setDefaultVariables(variables);
+    assertEquals(0, xpath.numericValueOf(path, entry).intValue());
+  }
+
 }